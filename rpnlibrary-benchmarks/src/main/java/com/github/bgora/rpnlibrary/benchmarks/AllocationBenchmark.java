@@ -0,0 +1,71 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+package com.github.bgora.rpnlibrary.benchmarks;
+
+import com.github.bgora.rpnlibrary.Calculator;
+import com.github.bgora.rpnlibrary.exceptions.RPNException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@link Calculator#calculate(String)} of each expression of {@link Corpus}, with the default Calculator.
+ * <p>
+ * Run with the GC profiler ({@code -prof gc}), bytes allocated per operation are reported as gc.alloc.rate.norm,
+ * and checked against the baseline by {@link AllocationGate}.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllocationBenchmark {
+
+    @Param({"short", "nested", "chain", "functions"})
+    public String expression;
+
+    private Calculator calculator;
+    private String input;
+
+    @Setup
+    public void setUp() {
+        calculator = Calculator.createCalculator();
+        input = Corpus.constantExpression(expression);
+    }
+
+    @Benchmark
+    public BigDecimal calculate() throws RPNException {
+        return calculator.calculate(input);
+    }
+}
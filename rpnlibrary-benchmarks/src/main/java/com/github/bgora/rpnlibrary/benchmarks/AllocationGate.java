@@ -0,0 +1,140 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+package com.github.bgora.rpnlibrary.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Runs {@link AllocationBenchmark} with the GC profiler, and compares bytes allocated per operation with the baseline.
+ * <p>
+ * Arguments: baseline file, allowed increase in percent, and "true" to write measured values as the new baseline
+ * instead of checking them. Baseline is a properties file with expression name, and bytes per operation.
+ * Exits with status 1, if any expression allocates more than the baseline, plus the allowed increase, or has
+ * no baseline. Used by the allocation-gate profile.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
+public final class AllocationGate {
+
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    private AllocationGate() {
+    }
+
+    public static void main(final String[] args) throws IOException, RunnerException {
+        if (args.length < 2) {
+            System.err.println("Usage: AllocationGate <baseline file> <allowed increase %> [update]");
+            System.exit(2);
+        }
+        final Path baselineFile = Paths.get(args[0]);
+        final double tolerance = Double.parseDouble(args[1]);
+        final boolean update = args.length > 2 && Boolean.parseBoolean(args[2]);
+
+        final Map<String, Double> measured = measure();
+        if (update) {
+            writeBaseline(baselineFile, measured);
+            System.out.println("Baseline written to " + baselineFile);
+            return;
+        }
+        final Properties baseline = readBaseline(baselineFile);
+        boolean failed = false;
+        for (Map.Entry<String, Double> entry : measured.entrySet()) {
+            final String expected = baseline.getProperty(entry.getKey());
+            if (expected == null) {
+                System.out.printf("%-10s %10.1f B/op  no baseline%n", entry.getKey(), entry.getValue());
+                failed = true;
+                continue;
+            }
+            final double limit = Double.parseDouble(expected) * (1 + tolerance / 100);
+            final boolean exceeded = entry.getValue() > limit;
+            System.out.printf("%-10s %10.1f B/op  baseline %s, limit %.1f%s%n", entry.getKey(), entry.getValue(),
+                    expected, limit, exceeded ? "  EXCEEDED" : "");
+            failed |= exceeded;
+        }
+        if (failed) {
+            System.err.println("Allocation per operation is above the baseline, by more than " + tolerance
+                    + "%. If the increase is expected, update " + baselineFile + " with -Dallocation.update=true");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Returns bytes allocated per operation, for each expression.
+     */
+    private static Map<String, Double> measure() throws RunnerException {
+        final Options options = new OptionsBuilder()
+                .include(AllocationBenchmark.class.getName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        final Map<String, Double> result = new TreeMap<>();
+        for (RunResult run : new Runner(options).run()) {
+            result.put(run.getParams().getParam("expression"), allocation(run.getSecondaryResults()));
+        }
+        return result;
+    }
+
+    /**
+     * Older JMH versions prefix names of profiler results with "·".
+     */
+    private static double allocation(final Map<String, Result> results) {
+        for (Map.Entry<String, Result> entry : results.entrySet()) {
+            if (entry.getKey().endsWith(ALLOCATION)) {
+                return entry.getValue().getScore();
+            }
+        }
+        throw new IllegalStateException("GC profiler did not report " + ALLOCATION);
+    }
+
+    private static Properties readBaseline(final Path file) throws IOException {
+        final Properties baseline = new Properties();
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                baseline.load(reader);
+            }
+        }
+        return baseline;
+    }
+
+    private static void writeBaseline(final Path file, final Map<String, Double> measured) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("# Bytes allocated per Calculator.calculate, measured by AllocationBenchmark (gc.alloc.rate.norm)\n");
+            for (Map.Entry<String, Double> entry : measured.entrySet()) {
+                writer.write(entry.getKey() + "=" + Math.round(entry.getValue()) + "\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+package com.github.bgora.rpnlibrary.benchmarks;
+
+import com.github.bgora.rpnlibrary.Calculator;
+import com.github.bgora.rpnlibrary.CompiledExpression;
+import com.github.bgora.rpnlibrary.RPNCheckerFactory;
+import com.github.bgora.rpnlibrary.RPNExecutionerFactory;
+import com.github.bgora.rpnlibrary.exceptions.RPNException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of each stage of calculation, for every expression of {@link Corpus}, and several precisions.
+ * <p>
+ * Tokenizing, and conversion to RPN are done in a single pass, so {@link #compile()} measures both, with
+ * optimization of the program. {@link #evaluate()} measures evaluation of the compiled expression, and
+ * {@link #calculate()} the whole {@link Calculator#calculate(String)}, without the expression cache.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CalculatorBenchmark {
+
+    @Param({"short", "nested", "chain", "functions"})
+    public String expression;
+
+    @Param({"7", "16", "34", "100"})
+    public int precision;
+
+    private Calculator calculator;
+    private String input;
+    private String constantInput;
+    private CompiledExpression compiled;
+    private BigDecimal[] values;
+
+    @Setup
+    public void setUp() throws RPNException {
+        calculator = Calculator.createCalculator(RPNCheckerFactory.createRPNChecker(),
+                RPNExecutionerFactory.createRPNExecutioner(), new MathContext(precision), 2);
+        input = Corpus.expression(expression);
+        constantInput = Corpus.constantExpression(expression);
+        compiled = calculator.compile(input);
+        values = new BigDecimal[compiled.getVariables().size()];
+        values[compiled.getVariableIndex("p")] = new BigDecimal(Corpus.P);
+        values[compiled.getVariableIndex("q")] = new BigDecimal(Corpus.Q);
+    }
+
+    @Benchmark
+    public CompiledExpression compile() throws RPNException {
+        return calculator.compile(input);
+    }
+
+    @Benchmark
+    public BigDecimal evaluate() throws RPNException {
+        return compiled.evaluate(values);
+    }
+
+    @Benchmark
+    public BigDecimal calculate() throws RPNException {
+        return calculator.calculate(constantInput);
+    }
+}
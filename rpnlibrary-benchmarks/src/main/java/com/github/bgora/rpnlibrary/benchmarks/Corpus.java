@@ -0,0 +1,110 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+package com.github.bgora.rpnlibrary.benchmarks;
+
+/**
+ * Expressions used by benchmarks.
+ * <p>
+ * Each expression uses variables p, and q, so the compiled form can not be folded into a constant, and evaluation
+ * is measured. For end-to-end calculation variables are replaced with {@link #P}, and {@link #Q}.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
+public final class Corpus {
+
+    public static final String P = "1.5";
+    public static final String Q = "0.25";
+
+    private static final int NESTING = 32;
+    private static final int CHAIN = 100;
+    private static final String[] CHAIN_OPERATORS = {"+", "-", "*", "/"};
+
+    private Corpus() {
+    }
+
+    /**
+     * Returns expression with variables p, and q.
+     *
+     * @param name short, nested, chain, or functions
+     * @return expression
+     */
+    public static String expression(final String name) {
+        switch (name) {
+            case "short":
+                return "p+q*2";
+            case "nested":
+                return nested();
+            case "chain":
+                return chain();
+            case "functions":
+                return "sin(p)+cos(p)+tg(q)+ctg(q)+min(p, q)+max(p, q)+fib(20)+p^q+q^3";
+            default:
+                throw new IllegalArgumentException("Unknown expression: " + name);
+        }
+    }
+
+    /**
+     * Returns expression with values instead of variables.
+     *
+     * @param name short, nested, chain, or functions
+     * @return expression
+     */
+    public static String constantExpression(final String name) {
+        return expression(name).replace("p", P).replace("q", Q);
+    }
+
+    /**
+     * ((((p+1)*q+2)*q+3)*q ... brackets nested {@value #NESTING} times.
+     */
+    private static String nested() {
+        final StringBuilder result = new StringBuilder();
+        for (int i = 0; i < NESTING; i++) {
+            result.append('(');
+        }
+        result.append('p');
+        for (int i = 1; i <= NESTING; i++) {
+            result.append('+').append(i).append(")*q");
+        }
+        return result.toString();
+    }
+
+    /**
+     * p+q-2*p/q+5-p*q/8 ... with {@value #CHAIN} operators. Operands differ, so the optimizer does not find common
+     * subexpressions.
+     */
+    private static String chain() {
+        final StringBuilder result = new StringBuilder("p");
+        for (int i = 0; i < CHAIN; i++) {
+            result.append(CHAIN_OPERATORS[i % CHAIN_OPERATORS.length]);
+            switch (i % 3) {
+                case 0:
+                    result.append('q');
+                    break;
+                case 1:
+                    result.append(i + 1);
+                    break;
+                default:
+                    result.append('p');
+                    break;
+            }
+        }
+        return result.toString();
+    }
+}
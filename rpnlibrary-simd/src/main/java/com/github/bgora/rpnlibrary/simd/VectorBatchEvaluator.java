@@ -0,0 +1,337 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+
+package com.github.bgora.rpnlibrary.simd;
+
+import com.github.bgora.rpnlibrary.Columns;
+import com.github.bgora.rpnlibrary.CompiledExpression;
+import com.github.bgora.rpnlibrary.InstructionVisitor;
+import com.github.bgora.rpnlibrary.exceptions.NoSuchFunctionFound;
+import com.github.bgora.rpnlibrary.exceptions.WrongArgumentException;
+import com.github.bgora.rpnlibrary.functions.AbstractFunctionStrategy;
+import com.github.bgora.rpnlibrary.operators.AbstractOperatorStrategy;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Evaluates {@link CompiledExpression} for whole columns of double values, with the Vector API.
+ * <p>
+ * Built-in {@code +}, {@code -}, {@code *}, {@code /}, and functions {@code min}, {@code max} are calculated with
+ * {@link DoubleVector} lanes, and a scalar loop for the remaining rows. Vector operations are IEEE 754 double
+ * operations, and {@code min}, {@code max} have {@code java.lang.Math} semantics, so results are the same as from
+ * {@link CompiledExpression#evaluateBatch(Columns, double[])}. Other operators, and functions are calculated with
+ * column methods of their strategies. If strategies are not available (the Calculator uses custom executioner),
+ * the whole evaluation is done by {@link CompiledExpression#evaluateBatch(Columns, double[])}.
+ * <p>
+ * Requires {@code --add-modules jdk.incubator.vector}, when compiling, and running.
+ * <pre>
+ *     CompiledExpression expression = calc.compile("price * qty - discount");
+ *     VectorBatchEvaluator evaluator = VectorBatchEvaluator.create(expression);
+ *     double[][] columns = new double[3][];
+ *     columns[expression.getVariableIndex("price")] = prices;
+ *     columns[expression.getVariableIndex("qty")] = quantities;
+ *     columns[expression.getVariableIndex("discount")] = discounts;
+ *     evaluator.evaluate(columns, result);
+ * </pre>
+ * Instances are immutable, and can be shared between threads.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
+public final class VectorBatchEvaluator {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int CHUNK = 1024;
+
+    private static final byte CONSTANT = 0;
+    private static final byte VARIABLE = 1;
+    private static final byte STORE = 2;
+    private static final byte LOAD = 3;
+    private static final byte OPERATOR = 4;
+    private static final byte FUNCTION = 5;
+    private static final byte ADD = 6;
+    private static final byte SUBTRACT = 7;
+    private static final byte MULTIPLY = 8;
+    private static final byte DIVIDE = 9;
+    private static final byte MIN = 10;
+    private static final byte MAX = 11;
+
+    private final CompiledExpression expression;
+    private final byte[] kinds;
+    private final int[] operands;
+    private final double[] constants;
+    private final Object[] strategies;
+    private final int maxStack;
+    private final int temps;
+    private final boolean vectorized;
+
+    private VectorBatchEvaluator(final CompiledExpression expression, final Lowering lowering) {
+        this.expression = expression;
+        final int length = lowering.kinds.size();
+        this.kinds = new byte[length];
+        this.operands = new int[length];
+        this.constants = new double[length];
+        this.strategies = lowering.supported ? lowering.strategies.toArray() : null;
+        boolean anyVector = false;
+        for (int i = 0; i < length; i++) {
+            kinds[i] = lowering.kinds.get(i);
+            operands[i] = lowering.operands.get(i);
+            constants[i] = lowering.constants.get(i);
+            anyVector |= kinds[i] >= ADD;
+        }
+        this.maxStack = lowering.maxStack;
+        this.temps = lowering.temps;
+        this.vectorized = anyVector && lowering.supported;
+    }
+
+    /**
+     * Creates evaluator for the expression.
+     *
+     * @param expression CompiledExpression
+     * @return VectorBatchEvaluator
+     */
+    public static VectorBatchEvaluator create(final CompiledExpression expression) {
+        final Lowering lowering = new Lowering();
+        expression.accept(lowering);
+        return new VectorBatchEvaluator(expression, lowering);
+    }
+
+    /**
+     * Returns true, if at least one operation is calculated with the Vector API.
+     *
+     * @return true if vectorized
+     */
+    public boolean isVectorized() {
+        return vectorized;
+    }
+
+    /**
+     * Evaluates the expression for each row.
+     *
+     * @param columns variable values, one column for each slot, see {@link CompiledExpression#getVariableIndex(String)}
+     * @param result  array for results; its length is the number of rows
+     * @throws WrongArgumentException if there is something wrong with the input, or columns don't match variables.
+     * @throws NoSuchFunctionFound    if the executioner cannot find a function.
+     */
+    public void evaluate(final double[][] columns, final double[] result) throws WrongArgumentException, NoSuchFunctionFound {
+        final int rows = result.length;
+        final int variables = expression.getVariables().size();
+        if (columns.length != variables) {
+            throw new WrongArgumentException("Expected " + variables + " columns " + expression.getVariables()
+                    + ", but got " + columns.length);
+        }
+        for (final double[] column : columns) {
+            if (column.length != rows) {
+                throw new WrongArgumentException("Expected " + rows + " values, but got " + column.length);
+            }
+        }
+        if (strategies == null) {
+            final Columns batch = expression.newColumns(rows);
+            for (int i = 0; i < columns.length; i++) {
+                batch.set(i, columns[i]);
+            }
+            expression.evaluateBatch(batch, result);
+            return;
+        }
+        final double[][] stack = new double[maxStack + temps][Math.min(CHUNK, rows)];
+        for (int from = 0; from < rows; from += CHUNK) {
+            final int length = Math.min(CHUNK, rows - from);
+            evaluate(columns, from, stack, length);
+            System.arraycopy(stack[0], 0, result, from, length);
+        }
+    }
+
+    private void evaluate(final double[][] columns, final int from, final double[][] stack, final int length) {
+        int top = 0;
+        for (int i = 0; i < kinds.length; i++) {
+            final int operand = operands[i];
+            switch (kinds[i]) {
+                case CONSTANT:
+                    Arrays.fill(stack[top++], 0, length, constants[i]);
+                    break;
+                case VARIABLE:
+                    System.arraycopy(columns[operand], from, stack[top++], 0, length);
+                    break;
+                case STORE:
+                    System.arraycopy(stack[top - 1], 0, stack[maxStack + operand], 0, length);
+                    break;
+                case LOAD:
+                    System.arraycopy(stack[maxStack + operand], 0, stack[top++], 0, length);
+                    break;
+                case OPERATOR:
+                    top--;
+                    ((AbstractOperatorStrategy) strategies[i]).execute(stack[top - 1], stack[top], stack[top - 1], length);
+                    break;
+                case FUNCTION:
+                    final double[][] arguments = Arrays.copyOfRange(stack, top - operand, top);
+                    top -= operand;
+                    ((AbstractFunctionStrategy) strategies[i]).execute(arguments, stack[top++], length);
+                    break;
+                default:
+                    top--;
+                    lanewise(kinds[i], stack[top - 1], stack[top], length);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Calculates first = first (op) second. Each operation has its own loop, with constant operation,
+     * so C2 compiles it into vector instructions.
+     */
+    private static void lanewise(final byte kind, final double[] first, final double[] second, final int length) {
+        final int bound = SPECIES.loopBound(length);
+        final int step = SPECIES.length();
+        int i = 0;
+        switch (kind) {
+            case ADD:
+                for (; i < bound; i += step) {
+                    DoubleVector.fromArray(SPECIES, first, i).add(DoubleVector.fromArray(SPECIES, second, i)).intoArray(first, i);
+                }
+                for (; i < length; i++) {
+                    first[i] = first[i] + second[i];
+                }
+                break;
+            case SUBTRACT:
+                for (; i < bound; i += step) {
+                    DoubleVector.fromArray(SPECIES, first, i).sub(DoubleVector.fromArray(SPECIES, second, i)).intoArray(first, i);
+                }
+                for (; i < length; i++) {
+                    first[i] = first[i] - second[i];
+                }
+                break;
+            case MULTIPLY:
+                for (; i < bound; i += step) {
+                    DoubleVector.fromArray(SPECIES, first, i).mul(DoubleVector.fromArray(SPECIES, second, i)).intoArray(first, i);
+                }
+                for (; i < length; i++) {
+                    first[i] = first[i] * second[i];
+                }
+                break;
+            case DIVIDE:
+                for (; i < bound; i += step) {
+                    DoubleVector.fromArray(SPECIES, first, i).div(DoubleVector.fromArray(SPECIES, second, i)).intoArray(first, i);
+                }
+                for (; i < length; i++) {
+                    first[i] = first[i] / second[i];
+                }
+                break;
+            case MIN:
+                for (; i < bound; i += step) {
+                    DoubleVector.fromArray(SPECIES, first, i).min(DoubleVector.fromArray(SPECIES, second, i)).intoArray(first, i);
+                }
+                for (; i < length; i++) {
+                    first[i] = Math.min(first[i], second[i]);
+                }
+                break;
+            default:
+                for (; i < bound; i += step) {
+                    DoubleVector.fromArray(SPECIES, first, i).max(DoubleVector.fromArray(SPECIES, second, i)).intoArray(first, i);
+                }
+                for (; i < length; i++) {
+                    first[i] = Math.max(first[i], second[i]);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Converts instructions of the expression. Built-in operations, that have exact vector counterparts,
+     * become vector instructions; others keep their strategies.
+     */
+    private static final class Lowering implements InstructionVisitor {
+
+        private final List<Byte> kinds = new ArrayList<>();
+        private final List<Integer> operands = new ArrayList<>();
+        private final List<Double> constants = new ArrayList<>();
+        private final List<Object> strategies = new ArrayList<>();
+        private boolean supported = true;
+        private int top;
+        private int maxStack;
+        private int temps;
+
+        private void add(final byte kind, final int operand, final double constant, final Object strategy, final int pushed) {
+            kinds.add(kind);
+            operands.add(operand);
+            constants.add(constant);
+            strategies.add(strategy);
+            top += pushed;
+            maxStack = Math.max(maxStack, top);
+        }
+
+        @Override
+        public void constant(final BigDecimal value, final double doubleValue) {
+            add(CONSTANT, 0, doubleValue, null, 1);
+        }
+
+        @Override
+        public void variable(final int slot) {
+            add(VARIABLE, slot, 0, null, 1);
+        }
+
+        @Override
+        public void operator(final String symbol, final AbstractOperatorStrategy strategy, final boolean builtIn) {
+            supported &= strategy != null;
+            add(builtIn ? vectorOperator(symbol) : OPERATOR, 0, 0, strategy, -1);
+        }
+
+        @Override
+        public void function(final String name, final int arity, final AbstractFunctionStrategy strategy, final boolean builtIn) {
+            supported &= strategy != null;
+            byte kind = FUNCTION;
+            if (builtIn && arity == 2 && "min".equals(name)) {
+                kind = MIN;
+            } else if (builtIn && arity == 2 && "max".equals(name)) {
+                kind = MAX;
+            }
+            add(kind, arity, 0, strategy, 1 - arity);
+        }
+
+        @Override
+        public void store(final int temp) {
+            add(STORE, temp, 0, null, 0);
+            temps = Math.max(temps, temp + 1);
+        }
+
+        @Override
+        public void load(final int temp) {
+            add(LOAD, temp, 0, null, 1);
+        }
+
+        private static byte vectorOperator(final String symbol) {
+            switch (symbol) {
+                case "+":
+                    return ADD;
+                case "-":
+                    return SUBTRACT;
+                case "*":
+                    return MULTIPLY;
+                case "/":
+                    return DIVIDE;
+                default:
+                    return OPERATOR;
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.bgora.rpnlibrary.simd;
+
+import com.github.bgora.rpnlibrary.Calculator;
+import com.github.bgora.rpnlibrary.Columns;
+import com.github.bgora.rpnlibrary.CompiledExpression;
+import com.github.bgora.rpnlibrary.RPNCheckerFactory;
+import com.github.bgora.rpnlibrary.RPNExecutioner;
+import com.github.bgora.rpnlibrary.RPNExecutionerFactory;
+import com.github.bgora.rpnlibrary.exceptions.RPNException;
+import com.github.bgora.rpnlibrary.exceptions.WrongArgumentException;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+public class VectorBatchEvaluatorTest {
+
+    private static final int ROWS = 2053;
+
+    private static double[] column(double start, double step) {
+        double[] values = new double[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            values[i] = start + i * step;
+        }
+        return values;
+    }
+
+    private static double[][] columns(CompiledExpression expression) throws RPNException {
+        double[][] columns = new double[expression.getVariables().size()][];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = column(-2.5 + i, 0.01 * (i + 1));
+        }
+        return columns;
+    }
+
+    private static void assertSameAsBatch(CompiledExpression expression, VectorBatchEvaluator evaluator) throws RPNException {
+        double[][] columns = columns(expression);
+        double[] result = new double[ROWS];
+        evaluator.evaluate(columns, result);
+        Columns batch = expression.newColumns(ROWS);
+        for (int i = 0; i < columns.length; i++) {
+            batch.set(i, columns[i]);
+        }
+        double[] expected = new double[ROWS];
+        expression.evaluateBatch(batch, expected);
+        Assertions.assertThat(result).as(expression.toString()).containsExactly(expected);
+    }
+
+    @Test
+    public void shouldReturnSameValuesAsBatchEvaluation() throws RPNException {
+        Calculator calc = Calculator.createCalculator();
+        for (String input : new String[]{"x*y+z", "(x-y)/(z+1)", "max(x, y)*min(y, 0.5)-x", "sin(x)*y + sin(x)/y",
+                "x^2+y", "2*3-x", "fib(5)+x"}) {
+            CompiledExpression expression = calc.compile(input);
+            assertSameAsBatch(expression, VectorBatchEvaluator.create(expression));
+        }
+    }
+
+    @Test
+    public void shouldVectorizeBuiltInArithmetic() throws RPNException {
+        Calculator calc = Calculator.createCalculator();
+        Assertions.assertThat(VectorBatchEvaluator.create(calc.compile("x*y+z")).isVectorized()).isTrue();
+        Assertions.assertThat(VectorBatchEvaluator.create(calc.compile("max(x, y)")).isVectorized()).isTrue();
+        Assertions.assertThat(VectorBatchEvaluator.create(calc.compile("sin(x)^y")).isVectorized()).isFalse();
+    }
+
+    @Test
+    public void shouldFallBackForCustomExecutioner() throws RPNException {
+        RPNExecutioner defaults = RPNExecutionerFactory.createRPNExecutioner();
+        RPNExecutioner custom = new RPNExecutioner() {
+            @Override
+            public BigDecimal executeOperator(String operator, MathContext mathContext, String var1, String var2) {
+                return defaults.executeOperator(operator, mathContext, var1, var2);
+            }
+
+            @Override
+            public BigDecimal executeFunction(String functionName, MathContext mathContext, String... arguments) {
+                return defaults.executeFunction(functionName, mathContext, arguments);
+            }
+        };
+        Calculator calc = Calculator.createCalculator(RPNCheckerFactory.createRPNChecker(), custom, MathContext.DECIMAL64, 2);
+        CompiledExpression expression = calc.compile("x*y+z");
+        VectorBatchEvaluator evaluator = VectorBatchEvaluator.create(expression);
+        Assertions.assertThat(evaluator.isVectorized()).isFalse();
+        assertSameAsBatch(expression, evaluator);
+    }
+
+    @Test(expected = WrongArgumentException.class)
+    public void shouldThrowForWrongColumnLength() throws RPNException {
+        CompiledExpression expression = Calculator.createCalculator().compile("x+y");
+        VectorBatchEvaluator.create(expression).evaluate(new double[][]{new double[3], new double[2]}, new double[3]);
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+
+package com.github.bgora.rpnlibrary;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Asynchronous evaluation, for callers that cannot block, like event loop threads.
+ * <p>
+ * Each call returns a {@link CompletableFuture}, completed by the executor. The default executor starts
+ * a virtual thread for each evaluation, when running on Java 21, or newer, and uses a pool of daemon threads
+ * on older versions. At most maxConcurrency evaluations run at the same time; other ones wait for a permit on their
+ * executor threads.
+ * <p>
+ * {@code cancel(true)} on a returned future interrupts the thread, that evaluates it. Evaluation checks the interrupt
+ * before each operator, and function, so a cancelled long expression stops after the current operation.
+ * Long calculations of built-in fib, sin, cos, tg, ctg, and ^ with an integer exponent check it too, so they stop
+ * in the middle; other strategies, like ^ with a fractional exponent, stop when they return.
+ * <pre>
+ *     try (AsyncCalculator async = AsyncCalculator.create(calc)) {
+ *         CompletableFuture&lt;BigDecimal&gt; result = async.calculateAsync("fib(90) / 3");
+ *         result.thenAccept(this::respond);
+ *     }
+ * </pre>
+ * Evaluations are interpreted, regardless of the {@link EvaluationBackend} of given expressions.
+ * Instances can be shared between threads.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
+public final class AsyncCalculator implements AutoCloseable {
+
+    private final Calculator calculator;
+    private final Executor executor;
+    private final Semaphore permits;
+    private final boolean ownsExecutor;
+
+    private AsyncCalculator(final Calculator calculator, final Executor executor, final int maxConcurrency,
+                            final boolean ownsExecutor) {
+        this.calculator = calculator;
+        this.executor = executor;
+        this.permits = new Semaphore(maxConcurrency);
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * Creates AsyncCalculator with its own executor (virtual threads on Java 21, or newer), and concurrency limited
+     * to the number of available processors. Close it to stop the executor.
+     *
+     * @param calculator Calculator used for evaluation
+     * @return AsyncCalculator
+     */
+    public static AsyncCalculator create(final Calculator calculator) {
+        return new AsyncCalculator(Objects.requireNonNull(calculator, "calculator"), defaultExecutor(),
+                Runtime.getRuntime().availableProcessors(), true);
+    }
+
+    /**
+     * Creates AsyncCalculator with given executor. The executor is not shut down by {@link #close()}.
+     *
+     * @param calculator     Calculator used for evaluation
+     * @param executor       executor, that runs evaluations
+     * @param maxConcurrency maximum number of evaluations running at the same time
+     * @return AsyncCalculator
+     * @throws IllegalArgumentException if maxConcurrency is not positive
+     */
+    public static AsyncCalculator create(final Calculator calculator, final Executor executor, final int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Max concurrency must be positive: " + maxConcurrency);
+        }
+        return new AsyncCalculator(Objects.requireNonNull(calculator, "calculator"),
+                Objects.requireNonNull(executor, "executor"), maxConcurrency, false);
+    }
+
+    /**
+     * Calculates the input asynchronously, like {@link Calculator#calculate(String)}, with the cache of the Calculator.
+     * <p>
+     * Cancelling also stops simplifying constant parts of the expression, when it is compiled for the cache.
+     *
+     * @param input Input String in "Natural" format.
+     * @return future completed with the value, or with RPNException, if the input is incorrect
+     */
+    public CompletableFuture<BigDecimal> calculateAsync(final String input) {
+        return submit(() -> calculator.expression(input).evaluateInterruptibly(new BigDecimal[0]));
+    }
+
+    /**
+     * Evaluates the expression asynchronously, like {@link CompiledExpression#evaluate(BigDecimal...)}.
+     *
+     * @param expression CompiledExpression
+     * @param values     variable values, indexed by slot
+     * @return future completed with the value, or with RPNException, if the values are incorrect
+     */
+    public CompletableFuture<BigDecimal> evaluateAsync(final CompiledExpression expression, final BigDecimal... values) {
+        final BigDecimal[] copy = values.clone();
+        return submit(() -> expression.evaluateInterruptibly(copy));
+    }
+
+    /**
+     * Evaluates the expression asynchronously, like {@link CompiledExpression#evaluate(double...)}.
+     *
+     * @param expression CompiledExpression
+     * @param values     variable values, indexed by slot
+     * @return future completed with the value, or with RPNException, if the values are incorrect
+     */
+    public CompletableFuture<BigDecimal> evaluateAsync(final CompiledExpression expression, final double... values) {
+        final double[] copy = values.clone();
+        return submit(() -> expression.evaluateInterruptibly(copy));
+    }
+
+    /**
+     * Shuts down the default executor. Evaluations already started are finished. Given executors are not shut down.
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+
+    private CompletableFuture<BigDecimal> submit(final Evaluation evaluation) {
+        final EvaluationFuture future = new EvaluationFuture();
+        executor.execute(() -> future.run(evaluation, permits));
+        return future;
+    }
+
+    /**
+     * Returns executor creating virtual threads, looked up by reflection, so this class still runs on Java 17.
+     */
+    private static ExecutorService defaultExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                final Thread thread = new Thread(runnable, "rpn-async");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @FunctionalInterface
+    private interface Evaluation {
+        BigDecimal evaluate();
+    }
+
+    /**
+     * Future, that interrupts its evaluating thread, when cancelled.
+     * The thread is set only while the evaluation runs, under the future lock, so a late cancel cannot interrupt
+     * the next task of the same thread.
+     */
+    private static final class EvaluationFuture extends CompletableFuture<BigDecimal> {
+
+        private Thread runner;
+
+        void run(final Evaluation evaluation, final Semaphore permits) {
+            synchronized (this) {
+                if (isDone()) {
+                    return;
+                }
+                runner = Thread.currentThread();
+            }
+            try {
+                permits.acquire();
+                try {
+                    complete(evaluation.evaluate());
+                } finally {
+                    permits.release();
+                }
+            } catch (InterruptedException e) {
+                cancel(false);
+            } catch (RuntimeException | Error e) {
+                completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                }
+                if (isCancelled()) {
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            final boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && mayInterruptIfRunning) {
+                synchronized (this) {
+                    if (runner != null) {
+                        runner.interrupt();
+                    }
+                }
+            }
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.exceptions.NoSuchFunctionFound;
+import com.github.bgora.rpnlibrary.exceptions.WrongArgumentException;
+import com.github.bgora.rpnlibrary.functions.AbstractFunctionStrategy;
+import com.github.bgora.rpnlibrary.operators.AbstractOperatorStrategy;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+
+/**
+ * Evaluates RPNProgram for many rows at once, one instruction at a time.
+ * <p>
+ * Each stack slot is a column of values, so each instruction is a single call to the executioner, that loops
+ * over the rows. Built-in strategies implement those loops with {@code java.lang.Math}, so the JIT can
+ * unroll, and vectorize them. Rows are evaluated in chunks of {@link #CHUNK}, so the columns stay in the CPU cache.
+ * With {@link DefaultRPNExecutioner} strategies are resolved once, when the evaluator is created.
+ * <p>
+ * Stacks are kept by each thread, and reused by following evaluations, so batches evaluated by worker threads
+ * of {@link ParallelEvaluator} don't allocate them again. Only stacks up to {@link #MAX_CACHED_SLOTS} columns are
+ * kept, so a thread holds at most 128 KiB of doubles, and 64 KiB of BigDecimal references; stacks of bigger
+ * expressions are dropped after use. Instances are immutable, and can be shared between threads.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ * @see CompiledExpression#evaluateBatch(Columns, double[])
+ */
+final class BatchEvaluator {
+
+    static final int CHUNK = 1024;
+    static final int MAX_CACHED_SLOTS = 16;
+
+    private static final ThreadLocal<double[][]> DOUBLE_STACKS = new ThreadLocal<>();
+    private static final ThreadLocal<BigDecimal[][]> BIG_DECIMAL_STACKS = new ThreadLocal<>();
+
+    private final RPNProgram program;
+    private final RPNExecutioner executioner;
+    private final MathContext mathContext;
+    private final Object[] strategies;
+
+    BatchEvaluator(final RPNProgram program, final RPNExecutioner executioner, final MathContext mathContext) {
+        this(program, executioner, mathContext, executioner instanceof DefaultRPNExecutioner
+                ? ((DefaultRPNExecutioner) executioner).resolveStrategies(program) : null);
+    }
+
+    /**
+     * Constructor with strategies already resolved for the program, or null, if the executioner is called by name.
+     */
+    BatchEvaluator(final RPNProgram program, final RPNExecutioner executioner, final MathContext mathContext,
+                   final Object[] strategies) {
+        this.program = program;
+        this.executioner = executioner;
+        this.mathContext = mathContext;
+        this.strategies = strategies;
+    }
+
+    /**
+     * Evaluates rows from (inclusive) to (exclusive), and writes the result of row r into result[r - from + offset].
+     */
+    void evaluateDouble(final Columns columns, final int from, final int to, final double[] result, final int offset)
+            throws WrongArgumentException, NoSuchFunctionFound {
+        final int slots = program.maxStack + program.temps;
+        final double[][] stack = takeDoubles(slots);
+        final byte[] kinds = program.kinds;
+        final int[] operands = program.operands;
+        for (int start = from; start < to; start += CHUNK) {
+            final int length = Math.min(CHUNK, to - start);
+            int top = 0;
+            for (int i = 0; i < kinds.length; i++) {
+                final int operand = operands[i];
+                switch (kinds[i]) {
+                    case RPNProgram.CONSTANT:
+                        Arrays.fill(stack[top++], 0, length, program.doubleConstants[operand]);
+                        break;
+                    case RPNProgram.VARIABLE:
+                        columns.copyDoubles(operand, start, stack[top++], length);
+                        break;
+                    case RPNProgram.STORE:
+                        System.arraycopy(stack[top - 1], 0, stack[program.maxStack + operand], 0, length);
+                        break;
+                    case RPNProgram.LOAD:
+                        System.arraycopy(stack[program.maxStack + operand], 0, stack[top++], 0, length);
+                        break;
+                    case RPNProgram.OPERATOR:
+                        top--;
+                        if (strategies != null) {
+                            ((AbstractOperatorStrategy) strategies[operand]).execute(stack[top - 1], stack[top],
+                                    stack[top - 1], length);
+                        } else {
+                            executioner.executeOperator(program.symbols[operand], stack[top - 1], stack[top],
+                                    stack[top - 1], length);
+                        }
+                        break;
+                    default:
+                        final int arity = program.arities[operand];
+                        final double[][] arguments = Arrays.copyOfRange(stack, top - arity, top);
+                        top -= arity;
+                        if (strategies != null) {
+                            ((AbstractFunctionStrategy) strategies[operand]).execute(arguments, stack[top++], length);
+                        } else {
+                            executioner.executeFunction(program.symbols[operand], arguments, stack[top++], length);
+                        }
+                        break;
+                }
+            }
+            System.arraycopy(stack[0], 0, result, start - from + offset, length);
+        }
+        if (stack.length <= MAX_CACHED_SLOTS) {
+            DOUBLE_STACKS.set(stack);
+        }
+    }
+
+    /**
+     * Evaluates rows from (inclusive) to (exclusive), and writes the result of row r into result[r].
+     */
+    void evaluate(final Columns columns, final int from, final int to, final BigDecimal[] result)
+            throws WrongArgumentException, NoSuchFunctionFound {
+        final int slots = program.maxStack + program.temps;
+        final BigDecimal[][] stack = takeBigDecimals(slots);
+        final byte[] kinds = program.kinds;
+        final int[] operands = program.operands;
+        try {
+            for (int start = from; start < to; start += CHUNK) {
+                final int length = Math.min(CHUNK, to - start);
+                int top = 0;
+                for (int i = 0; i < kinds.length; i++) {
+                    final int operand = operands[i];
+                    switch (kinds[i]) {
+                        case RPNProgram.CONSTANT:
+                            Arrays.fill(stack[top++], 0, length, program.constants[operand]);
+                            break;
+                        case RPNProgram.VARIABLE:
+                            columns.copyBigDecimals(operand, start, stack[top++], length);
+                            break;
+                        case RPNProgram.STORE:
+                            System.arraycopy(stack[top - 1], 0, stack[program.maxStack + operand], 0, length);
+                            break;
+                        case RPNProgram.LOAD:
+                            System.arraycopy(stack[program.maxStack + operand], 0, stack[top++], 0, length);
+                            break;
+                        case RPNProgram.OPERATOR:
+                            top--;
+                            if (strategies != null) {
+                                ((AbstractOperatorStrategy) strategies[operand]).execute(stack[top - 1], stack[top],
+                                        stack[top - 1], length, mathContext);
+                            } else {
+                                executioner.executeOperator(program.symbols[operand], mathContext, stack[top - 1],
+                                        stack[top], stack[top - 1], length);
+                            }
+                            break;
+                        default:
+                            final int arity = program.arities[operand];
+                            final BigDecimal[][] arguments = Arrays.copyOfRange(stack, top - arity, top);
+                            top -= arity;
+                            if (strategies != null) {
+                                ((AbstractFunctionStrategy) strategies[operand]).execute(mathContext, arguments,
+                                        stack[top++], length);
+                            } else {
+                                executioner.executeFunction(program.symbols[operand], mathContext, arguments,
+                                        stack[top++], length);
+                            }
+                            break;
+                    }
+                }
+                System.arraycopy(stack[0], 0, result, start, length);
+            }
+        } finally {
+            for (final BigDecimal[] column : stack) {
+                Arrays.fill(column, null);
+            }
+        }
+        if (stack.length <= MAX_CACHED_SLOTS) {
+            BIG_DECIMAL_STACKS.set(stack);
+        }
+    }
+
+    /**
+     * Takes the stack of the current thread, so nested evaluations on the same thread get their own stacks.
+     * Stack is given back after successful evaluation, if it has at most {@link #MAX_CACHED_SLOTS} columns.
+     */
+    private static double[][] takeDoubles(final int slots) {
+        final double[][] stack = DOUBLE_STACKS.get();
+        if (stack == null || stack.length < slots) {
+            return new double[slots][CHUNK];
+        }
+        DOUBLE_STACKS.remove();
+        return stack;
+    }
+
+    private static BigDecimal[][] takeBigDecimals(final int slots) {
+        final BigDecimal[][] stack = BIG_DECIMAL_STACKS.get();
+        if (stack == null || stack.length < slots) {
+            return new BigDecimal[slots][CHUNK];
+        }
+        BIG_DECIMAL_STACKS.remove();
+        return stack;
+    }
+}
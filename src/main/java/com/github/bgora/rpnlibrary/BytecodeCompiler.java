@@ -0,0 +1,369 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.operators.AbstractOperatorStrategy;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.MathContext;
+
+/**
+ * Compiles RPNProgram into a hidden class implementing ProgramEvaluator.
+ * <p>
+ * RPN is turned back into a tree, and each evaluate method is straight-line code, that calls strategies
+ * kept in final fields. Every call site sees one strategy class, so the JIT can inline the arithmetic.
+ * Constants are fields (BigDecimal), or constant pool entries (double).
+ * <p>
+ * Hidden classes are not registered in the class loader, so they are unloaded with the expression.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ * @see EvaluationBackend#BYTECODE
+ */
+final class BytecodeCompiler {
+
+    /**
+     * Longer programs would exceed method size limit, or recursion depth of the generator.
+     */
+    static final int MAX_PROGRAM_LENGTH = 4096;
+
+    /**
+     * Temporary values are kept in local variables, addressed with one byte.
+     */
+    static final int MAX_TEMPS = 126;
+
+    private static final String CLASS_NAME = "com/github/bgora/rpnlibrary/GeneratedExpression";
+    private static final String OBJECT = "java/lang/Object";
+    private static final String BIG_DECIMAL = "java/math/BigDecimal";
+    private static final String BIG_DECIMAL_TYPE = "Ljava/math/BigDecimal;";
+    private static final String MATH_CONTEXT_TYPE = "Ljava/math/MathContext;";
+    private static final String OPERATOR = "com/github/bgora/rpnlibrary/operators/AbstractOperatorStrategy";
+    private static final String FUNCTION = "com/github/bgora/rpnlibrary/functions/AbstractFunctionStrategy";
+
+    private static final int ICONST_0 = 0x03;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC_W = 0x13;
+    private static final int LDC2_W = 0x14;
+    private static final int DLOAD = 0x18;
+    private static final int ALOAD = 0x19;
+    private static final int DSTORE = 0x39;
+    private static final int ASTORE = 0x3a;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ALOAD_2 = 0x2c;
+    private static final int DALOAD = 0x31;
+    private static final int AALOAD = 0x32;
+    private static final int DASTORE = 0x52;
+    private static final int AASTORE = 0x53;
+    private static final int DUP = 0x59;
+    private static final int DUP2 = 0x5c;
+    private static final int DRETURN = 0xaf;
+    private static final int ARETURN = 0xb0;
+    private static final int RETURN = 0xb1;
+    private static final int GETFIELD = 0xb4;
+    private static final int PUTFIELD = 0xb5;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int NEWARRAY = 0xbc;
+    private static final int ANEWARRAY = 0xbd;
+    private static final int CHECKCAST = 0xc0;
+    private static final int T_DOUBLE = 7;
+
+    private final RPNProgram program;
+    private final Object[] strategies;
+    private final int[] children;
+    private final int[] start;
+    private final ClassFileWriter writer = new ClassFileWriter();
+
+    private BytecodeCompiler(final RPNProgram program, final Object[] strategies) {
+        this.program = program;
+        this.strategies = strategies;
+        this.children = new int[program.length()];
+        this.start = new int[program.length()];
+        buildTree();
+    }
+
+    /**
+     * Compiles the program.
+     *
+     * @param program     typed RPN instructions
+     * @param executioner RPNExecutioner of the Calculator
+     * @param mathContext MathContext - Set Rounding Mode, and precision
+     * @return ProgramEvaluator, or null if the program cannot be compiled, and should be interpreted
+     */
+    static ProgramEvaluator compile(final RPNProgram program, final RPNExecutioner executioner,
+                                    final MathContext mathContext) {
+        if (!(executioner instanceof DefaultRPNExecutioner) || program.length() > MAX_PROGRAM_LENGTH
+                || program.temps > MAX_TEMPS) {
+            return null;
+        }
+        final Object[] strategies = ((DefaultRPNExecutioner) executioner).resolveStrategies(program);
+        if (strategies == null) {
+            return null;
+        }
+        return new BytecodeCompiler(program, strategies).define(mathContext);
+    }
+
+    /**
+     * Finds the first instruction of the subtree ending at each instruction.
+     * Operands of instruction i are consecutive subtrees, and the last one ends at i - 1.
+     */
+    private void buildTree() {
+        final int[] stack = new int[program.maxStack];
+        int top = 0;
+        for (int i = 0; i < program.length(); i++) {
+            final int count = arity(i);
+            children[i] = count;
+            top -= count;
+            start[i] = count > 0 ? start[stack[top]] : i;
+            stack[top++] = i;
+        }
+    }
+
+    private int arity(final int instruction) {
+        switch (program.kinds[instruction]) {
+            case RPNProgram.CONSTANT:
+            case RPNProgram.VARIABLE:
+            case RPNProgram.LOAD:
+                return 0;
+            case RPNProgram.STORE:
+                return 1;
+            case RPNProgram.OPERATOR:
+                return 2;
+            default:
+                return program.arities[program.operands[instruction]];
+        }
+    }
+
+    /**
+     * Returns instructions, that compute operands of the given instruction, in order.
+     */
+    private int[] operands(final int instruction) {
+        final int[] result = new int[children[instruction]];
+        int end = instruction - 1;
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = end;
+            end = start[end] - 1;
+        }
+        return result;
+    }
+
+    private ProgramEvaluator define(final MathContext mathContext) {
+        final Object[] fieldValues = new Object[program.constants.length + strategies.length];
+        writer.addField(ClassFileWriter.ACC_PRIVATE | ClassFileWriter.ACC_FINAL, "mathContext", MATH_CONTEXT_TYPE);
+        for (int i = 0; i < program.constants.length; i++) {
+            writer.addField(ClassFileWriter.ACC_PRIVATE | ClassFileWriter.ACC_FINAL, "c" + i, BIG_DECIMAL_TYPE);
+            fieldValues[i] = program.constants[i];
+        }
+        for (int i = 0; i < strategies.length; i++) {
+            if (strategies[i] != null) {
+                writer.addField(ClassFileWriter.ACC_PRIVATE | ClassFileWriter.ACC_FINAL, "s" + i, strategyType(i));
+                fieldValues[program.constants.length + i] = strategies[i];
+            }
+        }
+        writer.addMethod(ClassFileWriter.ACC_PUBLIC, "<init>", "(" + MATH_CONTEXT_TYPE + "[Ljava/lang/Object;)V",
+                constructor());
+        writer.addMethod(ClassFileWriter.ACC_PUBLIC, "evaluate", "([" + BIG_DECIMAL_TYPE + ")" + BIG_DECIMAL_TYPE,
+                evaluate(false));
+        writer.addMethod(ClassFileWriter.ACC_PUBLIC, "evaluateDouble", "([D)D", evaluate(true));
+        final byte[] bytes = writer.toByteArray(ClassFileWriter.ACC_FINAL | ClassFileWriter.ACC_SUPER, CLASS_NAME,
+                OBJECT, "com/github/bgora/rpnlibrary/ProgramEvaluator");
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return (ProgramEvaluator) lookup.findConstructor(lookup.lookupClass(),
+                    MethodType.methodType(void.class, MathContext.class, Object[].class))
+                    .invoke(mathContext, fieldValues);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot define class for " + program, e);
+        }
+    }
+
+    private ClassFileWriter.Code constructor() {
+        final ClassFileWriter.Code code = new ClassFileWriter.Code(3);
+        code.op(ALOAD_0, 1).op2(INVOKESPECIAL, writer.methodRef(OBJECT, "<init>", "()V"), -1);
+        code.op(ALOAD_0, 1).op(ALOAD_1, 1)
+                .op2(PUTFIELD, writer.fieldRef(CLASS_NAME, "mathContext", MATH_CONTEXT_TYPE), -2);
+        for (int i = 0; i < program.constants.length; i++) {
+            code.op(ALOAD_0, 1).op(ALOAD_2, 1);
+            pushInt(code, i);
+            code.op(AALOAD, -1)
+                    .op2(CHECKCAST, writer.classRef(BIG_DECIMAL), 0)
+                    .op2(PUTFIELD, writer.fieldRef(CLASS_NAME, "c" + i, BIG_DECIMAL_TYPE), -2);
+        }
+        for (int i = 0; i < strategies.length; i++) {
+            if (strategies[i] != null) {
+                code.op(ALOAD_0, 1).op(ALOAD_2, 1);
+                pushInt(code, program.constants.length + i);
+                code.op(AALOAD, -1)
+                        .op2(CHECKCAST, writer.classRef(strategyClass(i)), 0)
+                        .op2(PUTFIELD, writer.fieldRef(CLASS_NAME, "s" + i, strategyType(i)), -2);
+            }
+        }
+        return code.op(RETURN, 0);
+    }
+
+    private ClassFileWriter.Code evaluate(final boolean doubles) {
+        final ClassFileWriter.Code code = new ClassFileWriter.Code(2 + program.temps * (doubles ? 2 : 1));
+        if (doubles) {
+            emitDouble(code, program.length() - 1);
+            return code.op(DRETURN, -2);
+        }
+        emit(code, program.length() - 1);
+        return code.op(ARETURN, -1);
+    }
+
+    /**
+     * Emits BigDecimal code for the subtree ending at instruction.
+     */
+    private void emit(final ClassFileWriter.Code code, final int instruction) {
+        final int operand = program.operands[instruction];
+        switch (program.kinds[instruction]) {
+            case RPNProgram.CONSTANT:
+                code.op(ALOAD_0, 1).op2(GETFIELD, writer.fieldRef(CLASS_NAME, "c" + operand, BIG_DECIMAL_TYPE), 0);
+                return;
+            case RPNProgram.VARIABLE:
+                code.op(ALOAD_1, 1);
+                pushInt(code, operand);
+                code.op(AALOAD, -1);
+                return;
+            case RPNProgram.STORE:
+                emit(code, instruction - 1);
+                code.op(DUP, 1).op1(ASTORE, 2 + operand, -1);
+                return;
+            case RPNProgram.LOAD:
+                code.op1(ALOAD, 2 + operand, 1);
+                return;
+            case RPNProgram.OPERATOR:
+                loadStrategy(code, operand);
+                for (int child : operands(instruction)) {
+                    emit(code, child);
+                }
+                loadMathContext(code);
+                code.op2(INVOKEVIRTUAL, writer.methodRef(OPERATOR, "execute",
+                        "(" + BIG_DECIMAL_TYPE + BIG_DECIMAL_TYPE + MATH_CONTEXT_TYPE + ")" + BIG_DECIMAL_TYPE), -3);
+                return;
+            default:
+                final int[] arguments = operands(instruction);
+                loadStrategy(code, operand);
+                loadMathContext(code);
+                if (arguments.length == 1 || arguments.length == 2) {
+                    for (int child : arguments) {
+                        emit(code, child);
+                    }
+                    final String parameters = arguments.length == 1 ? BIG_DECIMAL_TYPE : BIG_DECIMAL_TYPE + BIG_DECIMAL_TYPE;
+                    code.op2(INVOKEVIRTUAL, writer.methodRef(FUNCTION, "execute",
+                            "(" + MATH_CONTEXT_TYPE + parameters + ")" + BIG_DECIMAL_TYPE), -1 - arguments.length);
+                } else {
+                    pushInt(code, arguments.length);
+                    code.op2(ANEWARRAY, writer.classRef(BIG_DECIMAL), 0);
+                    for (int i = 0; i < arguments.length; i++) {
+                        code.op(DUP, 1);
+                        pushInt(code, i);
+                        emit(code, arguments[i]);
+                        code.op(AASTORE, -3);
+                    }
+                    code.op2(INVOKEVIRTUAL, writer.methodRef(FUNCTION, "execute",
+                            "(" + MATH_CONTEXT_TYPE + "[" + BIG_DECIMAL_TYPE + ")" + BIG_DECIMAL_TYPE), -2);
+                }
+        }
+    }
+
+    /**
+     * Emits double code for the subtree ending at instruction.
+     */
+    private void emitDouble(final ClassFileWriter.Code code, final int instruction) {
+        final int operand = program.operands[instruction];
+        switch (program.kinds[instruction]) {
+            case RPNProgram.CONSTANT:
+                code.op2(LDC2_W, writer.doubleConstant(program.doubleConstants[operand]), 2);
+                return;
+            case RPNProgram.VARIABLE:
+                code.op(ALOAD_1, 1);
+                pushInt(code, operand);
+                code.op(DALOAD, 0);
+                return;
+            case RPNProgram.STORE:
+                emitDouble(code, instruction - 1);
+                code.op(DUP2, 2).op1(DSTORE, 2 + 2 * operand, -2);
+                return;
+            case RPNProgram.LOAD:
+                code.op1(DLOAD, 2 + 2 * operand, 2);
+                return;
+            case RPNProgram.OPERATOR:
+                loadStrategy(code, operand);
+                for (int child : operands(instruction)) {
+                    emitDouble(code, child);
+                }
+                code.op2(INVOKEVIRTUAL, writer.methodRef(OPERATOR, "execute", "(DD)D"), -3);
+                return;
+            default:
+                final int[] arguments = operands(instruction);
+                loadStrategy(code, operand);
+                if (arguments.length == 1 || arguments.length == 2) {
+                    for (int child : arguments) {
+                        emitDouble(code, child);
+                    }
+                    code.op2(INVOKEVIRTUAL, writer.methodRef(FUNCTION, "execute",
+                            arguments.length == 1 ? "(D)D" : "(DD)D"), 1 - 2 * arguments.length);
+                } else {
+                    pushInt(code, arguments.length);
+                    code.op1(NEWARRAY, T_DOUBLE, 0);
+                    for (int i = 0; i < arguments.length; i++) {
+                        code.op(DUP, 1);
+                        pushInt(code, i);
+                        emitDouble(code, arguments[i]);
+                        code.op(DASTORE, -4);
+                    }
+                    code.op2(INVOKEVIRTUAL, writer.methodRef(FUNCTION, "execute", "([D)D"), 0);
+                }
+        }
+    }
+
+    private void loadStrategy(final ClassFileWriter.Code code, final int symbol) {
+        code.op(ALOAD_0, 1).op2(GETFIELD, writer.fieldRef(CLASS_NAME, "s" + symbol, strategyType(symbol)), 0);
+    }
+
+    private void loadMathContext(final ClassFileWriter.Code code) {
+        code.op(ALOAD_0, 1).op2(GETFIELD, writer.fieldRef(CLASS_NAME, "mathContext", MATH_CONTEXT_TYPE), 0);
+    }
+
+    private void pushInt(final ClassFileWriter.Code code, final int value) {
+        if (value <= 5) {
+            code.op(ICONST_0 + value, 1);
+        } else if (value <= Byte.MAX_VALUE) {
+            code.op1(BIPUSH, value, 1);
+        } else if (value <= Short.MAX_VALUE) {
+            code.op2(SIPUSH, value, 1);
+        } else {
+            code.op2(LDC_W, writer.integerConstant(value), 1);
+        }
+    }
+
+    private String strategyClass(final int symbol) {
+        return strategies[symbol] instanceof AbstractOperatorStrategy ? OPERATOR : FUNCTION;
+    }
+
+    private String strategyType(final int symbol) {
+        return "L" + strategyClass(symbol) + ";";
+    }
+}
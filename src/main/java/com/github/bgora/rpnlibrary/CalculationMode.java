@@ -0,0 +1,43 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+package com.github.bgora.rpnlibrary;
+
+/**
+ * Number type used by {@link Calculator} for evaluation.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ * @see Calculator#createCalculator(RPNChecker, RPNExecutioner, java.math.MathContext, CalculationMode, int)
+ */
+public enum CalculationMode {
+
+    /**
+     * Values are kept as {@code java.math.BigDecimal}, and rounded with the Calculator MathContext.
+     * This is the default mode.
+     */
+    BIG_DECIMAL,
+
+    /**
+     * Values are kept as primitive {@code double}, and functions are calculated with {@code java.lang.Math}.
+     * It is much faster, but has IEEE 754 double precision only, and MathContext is used only for the final rounding.
+     * Division by zero gives Infinity, or NaN during evaluation, and {@code ArithmeticException} when the result
+     * is converted to BigDecimal.
+     */
+    DOUBLE
+}
@@ -21,20 +21,22 @@ package com.github.bgora.rpnlibrary;
 
 import com.github.bgora.rpnlibrary.exceptions.NoSuchFunctionFound;
 import com.github.bgora.rpnlibrary.exceptions.WrongArgumentException;
-import com.github.bgora.rpnlibrary.functions.DefaultFunctionProvider;
-import com.github.bgora.rpnlibrary.functions.FunctionProvider;
-import com.github.bgora.rpnlibrary.operators.DefaultOperatorsProvider;
-import com.github.bgora.rpnlibrary.operators.OperatorsProvider;
 
 import java.math.BigDecimal;
 import java.math.MathContext;
-import java.util.Deque;
-import java.util.LinkedList;
 
 
 /**
  * RPN Calculator Implementation with functions.
  * This Implementation uses Dijkstra Algorithm to create Reverse Polish Notation.
+ * Input is tokenized, and converted in a single pass over its characters, see {@link #compile(String)}.
+ * <p>
+ * Calculator has no mutable state, except the optional expression cache, which is thread safe, so one instance
+ * can be shared between threads, as long as its executioner, and strategies are thread safe (built-in ones are).
+ * Checkers, and executioners created by {@link RPNCheckerFactory}, and {@link RPNExecutionerFactory} copy given maps,
+ * and default providers return immutable maps, so nothing can change a Calculator after it is created; there is
+ * no need to keep instances per thread, or in a pool.
+ * {@link ParallelEvaluator} evaluates many inputs on worker threads with a shared Calculator.
  *
  * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
  */
@@ -48,6 +50,8 @@ public class Calculator {
     protected final RPNExecutioner executioner;
     private final int SCALE;
     private final MathContext mathContext;
+    private final CalculationMode mode;
+    private final ExpressionCache cache;
 
 
     /**
@@ -56,13 +60,18 @@ public class Calculator {
      * @param checker     Object implementing RPNChecker - Used for checking operations in input.
      * @param executioner Object implementing RPNExecutioner - used for executing operations on input.
      * @param mathContext
+     * @param mode        number type used for evaluation
      * @param scale
+     * @param cacheSize   maximum number of cached expressions, 0 disables the cache
      */
-    private Calculator(RPNChecker checker, RPNExecutioner executioner, final MathContext mathContext, final int scale) {
+    private Calculator(RPNChecker checker, RPNExecutioner executioner, final MathContext mathContext,
+                       final CalculationMode mode, final int scale, final int cacheSize) {
         this.checker = checker;
         this.executioner = executioner;
         this.mathContext = mathContext;
+        this.mode = mode;
         this.SCALE = scale;
+        this.cache = cacheSize > 0 ? new ExpressionCache(cacheSize) : null;
     }
 
     /**
@@ -78,11 +87,36 @@ public class Calculator {
      */
     public static Calculator createCalculator() {
         final MathContext mathContext = MathContext.DECIMAL64;
-        final FunctionProvider functionProvider = new DefaultFunctionProvider();
-        final OperatorsProvider operatorsProvider = new DefaultOperatorsProvider();
-        return new Calculator(RPNCheckerFactory.createRPNChecker(),
-                RPNExecutionerFactory.createRPNExecutioner(operatorsProvider.getOperators(), functionProvider.getFunctions()), mathContext,
-                2);
+        return new Calculator(RPNCheckerFactory.createRPNChecker(), RPNExecutionerFactory.createRPNExecutioner(), mathContext,
+                CalculationMode.BIG_DECIMAL, 2, 0);
+    }
+
+    /**
+     * Factory method for RPN Calculator object with default functions, and operations,
+     * which keeps up to cacheSize compiled expressions.
+     * <p>
+     * Repeated inputs are not parsed again, and the Calculator can be shared between threads.
+     *
+     * @param cacheSize maximum number of cached expressions, 0 disables the cache
+     * @return new Instance of {@code pl.bgora.Calculator}
+     * @see #getCacheStats()
+     */
+    public static Calculator createCalculator(final int cacheSize) {
+        return createCalculator(RPNCheckerFactory.createRPNChecker(), RPNExecutionerFactory.createRPNExecutioner(),
+                MathContext.DECIMAL64, 2, cacheSize);
+    }
+
+    /**
+     * Factory method for RPN Calculator object with default functions, and operations,
+     * which evaluates with given number type.
+     *
+     * @param mode number type used for evaluation
+     * @return new Instance of {@code pl.bgora.Calculator}
+     * @see CalculationMode
+     */
+    public static Calculator createCalculator(final CalculationMode mode) {
+        return createCalculator(RPNCheckerFactory.createRPNChecker(), RPNExecutionerFactory.createRPNExecutioner(),
+                MathContext.DECIMAL64, mode, 2);
     }
 
     /**
@@ -103,7 +137,72 @@ public class Calculator {
 
     public static Calculator createCalculator(
             final RPNChecker checker, final RPNExecutioner executioner, final MathContext mathContext, final int scale) {
-        return new Calculator(checker, executioner, mathContext, scale);
+        return new Calculator(checker, executioner, mathContext, CalculationMode.BIG_DECIMAL, scale, 0);
+    }
+
+    /**
+     * Factory method for RPN Calculator object with custom functions, and
+     * operations, which keeps up to cacheSize compiled expressions.
+     * <p>
+     * Repeated inputs are not parsed again, and the Calculator can be shared between threads.
+     *
+     * @param checker     Object implementing RPNChecker - Used for checking operations in input.
+     * @param executioner Object implementing RPNExecutioner - used for executing operations on input.
+     * @param mathContext MathContext - Set Rounding Mode, and precision
+     * @param scale       scale number of digits after .
+     * @param cacheSize   maximum number of cached expressions, 0 disables the cache
+     * @return new Instance of {@code pl.bgora.Calculator}
+     * @see #getCacheStats()
+     */
+    public static Calculator createCalculator(final RPNChecker checker, final RPNExecutioner executioner,
+                                              final MathContext mathContext, final int scale, final int cacheSize) {
+        return createCalculator(checker, executioner, mathContext, CalculationMode.BIG_DECIMAL, scale, cacheSize);
+    }
+
+    /**
+     * Factory method for RPN Calculator object with custom functions, and
+     * operations, which evaluates with given number type.
+     * <p>
+     * With {@link CalculationMode#DOUBLE} operators, and functions are called through their double methods,
+     * and mathContext is used only for rounding the result to scale.
+     *
+     * @param checker     Object implementing RPNChecker - Used for checking operations in input.
+     * @param executioner Object implementing RPNExecutioner - used for executing operations on input.
+     * @param mathContext MathContext - Set Rounding Mode, and precision
+     * @param mode        number type used for evaluation
+     * @param scale       scale number of digits after .
+     * @return new Instance of {@code pl.bgora.Calculator}
+     * @see CalculationMode
+     */
+    public static Calculator createCalculator(final RPNChecker checker, final RPNExecutioner executioner,
+                                              final MathContext mathContext, final CalculationMode mode, final int scale) {
+        return createCalculator(checker, executioner, mathContext, mode, scale, 0);
+    }
+
+    /**
+     * Factory method for RPN Calculator object with custom functions, and
+     * operations, which evaluates with given number type, and keeps up to cacheSize compiled expressions.
+     *
+     * @param checker     Object implementing RPNChecker - Used for checking operations in input.
+     * @param executioner Object implementing RPNExecutioner - used for executing operations on input.
+     * @param mathContext MathContext - Set Rounding Mode, and precision
+     * @param mode        number type used for evaluation
+     * @param scale       scale number of digits after .
+     * @param cacheSize   maximum number of cached expressions, 0 disables the cache
+     * @return new Instance of {@code pl.bgora.Calculator}
+     * @see CalculationMode
+     * @see #getCacheStats()
+     */
+    public static Calculator createCalculator(final RPNChecker checker, final RPNExecutioner executioner,
+                                              final MathContext mathContext, final CalculationMode mode,
+                                              final int scale, final int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("Cache size cannot be negative, but was " + cacheSize);
+        }
+        if (mode == null) {
+            throw new IllegalArgumentException("Calculation mode cannot be null");
+        }
+        return new Calculator(checker, executioner, mathContext, mode, scale, cacheSize);
     }
 
     /**
@@ -122,196 +221,135 @@ public class Calculator {
      */
     public static Calculator createCalculatorWithDefaultMathContext(
             final RPNChecker checker, final RPNExecutioner executioner, final MathContext mathContext, final int scale) {
-        return new Calculator(checker, executioner, mathContext, scale);
+        return new Calculator(checker, executioner, mathContext, CalculationMode.BIG_DECIMAL, scale, 0);
     }
 
+    /**
+     * Calculates value of the given input.
+     * <p>
+     * Without the cache the input is evaluated once, so it is not simplified; use {@link #compile(String)} for
+     * inputs evaluated many times.
+     *
+     * @param input Input String in "Natural" format.
+     * @return value as {@code java.math.BigDecimal}
+     * @throws WrongArgumentException Thrown if the input is incorrect (Incorrect format, or
+     *                                unsupported operations)
+     * @throws NoSuchFunctionFound    Thrown if the executioner cannot find a function
+     */
     public BigDecimal calculate(final String input) throws WrongArgumentException, NoSuchFunctionFound {
-        final String temp = prepareInput(input);
-        final String result = createRPN(temp);
-        return getResult(result);
+        return expression(input).evaluate();
     }
 
+    /**
+     * Calculates value of the given input, like {@link #calculate(String)}, with stacks of the current thread.
+     */
+    BigDecimal calculate(final String input, final EvaluationStacks stacks) throws WrongArgumentException, NoSuchFunctionFound {
+        return expression(input).evaluate(stacks);
+    }
 
     /**
-     * Format input for further processing.
+     * Calculates value of the given input with primitive doubles, regardless of the {@link CalculationMode}.
      *
-     * @param input Input string.
-     * @return Formatted String.
+     * @param input Input String in "Natural" format.
+     * @return value as double, not rounded
      * @throws WrongArgumentException Thrown if the input is incorrect (Incorrect format, or
      *                                unsupported operations)
+     * @throws NoSuchFunctionFound    Thrown if the executioner cannot find a function
+     * @see CompiledExpression#evaluateDouble(double...)
      */
-    private String prepareInput(String input) throws WrongArgumentException {
-        StringBuilder result = new StringBuilder();
-        String inputValue = input.trim();
-        int length = inputValue.length();
-        char c = 0;
-        boolean lastWasDigit = false;
-        boolean lastWasOperator = false;
-        boolean lastWasWhiteSpace = false;
-        boolean lastWasLetter = false;
-        // Iteration thought input String.
-        for (int i = 0; i < length; i++) {
-            c = inputValue.charAt(i);
-            if (isDigitOrSeparator(c) && (lastWasDigit || !lastWasOperator)) {
-                lastWasDigit = true;
-                result.append(c);
-                lastWasWhiteSpace = false;
-                lastWasLetter = false;
-            } else if (Character.isDigit(c)) {
-                lastWasDigit = true;
-                lastWasLetter = false;
-                lastWasOperator = false;
-                if (!lastWasWhiteSpace) {
-                    result.append(EMPTY_SPACE);
-                }
-                result.append(c);
-                lastWasWhiteSpace = false;
-            } else if (checker.isOperatorOrBracket(String.valueOf(c))) {
-                lastWasDigit = false;
-                lastWasLetter = false;
-                lastWasOperator = true;
-                if (!lastWasWhiteSpace) {
-                    result.append(EMPTY_SPACE);
-                }
-                result.append(c);
-                lastWasWhiteSpace = false;
-            } else if (Character.isWhitespace(c)) {
-                if (!lastWasWhiteSpace && !lastWasDigit) {
-                    result.append(EMPTY_SPACE);
-                    lastWasWhiteSpace = true;
-                }
-                lastWasDigit = false;
-                lastWasOperator = false;
-            } else if (Character.isLetter(c)) {
-                lastWasDigit = false;
-                lastWasOperator = false;
-                if (!lastWasLetter && !lastWasWhiteSpace) {
-                    result.append(EMPTY_SPACE).append(c);
-                } else {
-                    result.append(c);
-                }
-                lastWasWhiteSpace = false;
-                lastWasLetter = true;
-            } else {
-                throw new WrongArgumentException("Element \"" + c + "\" is not recognized by the Checker");
-            }
-        }
-
-        return result.toString().trim();
+    public double calculateDouble(final String input) throws WrongArgumentException, NoSuchFunctionFound {
+        return expression(input).evaluateDouble();
     }
 
-    private boolean isDigitOrSeparator(char c) {
-        return Character.isDigit(c) || c == '.' || c == ',';
+    /**
+     * Parses the input, and converts it into Reverse Polish Notation once.
+     * <p>
+     * Returned expression can be evaluated many times, without parsing the input again.
+     * Constant parts of the expression are calculated once, here.
+     * If the cache is enabled, expressions are taken from the cache.
+     *
+     * @param input Input String in "Natural" format.
+     * @return CompiledExpression, that can be evaluated by {@link CompiledExpression#evaluate()}
+     * @throws WrongArgumentException Thrown if the input is incorrect (Incorrect format, or
+     *                                unsupported operations)
+     */
+    public CompiledExpression compile(final String input) throws WrongArgumentException {
+        if (cache != null) {
+            return cache.get(input, this::parse);
+        }
+        return parse(input);
     }
 
     /**
-     * Creates String in Reverse Polish Notation.
+     * Parses the input, and compiles it for the given evaluation backend.
+     * <p>
+     * Expressions compiled with other backend than {@link EvaluationBackend#INTERPRETER} are not cached,
+     * keep the returned expression, and evaluate it many times.
      *
-     * @param input Input String in "Natural" format.
-     * @return String formatted into RPN.
+     * @param input   Input String in "Natural" format.
+     * @param backend the way the expression is evaluated
+     * @return CompiledExpression, that can be evaluated by {@link CompiledExpression#evaluate()}
      * @throws WrongArgumentException Thrown if the input is incorrect (Incorrect format, or
-     *                                unsupported opertians)
+     *                                unsupported operations)
+     * @see CompiledExpression#getBackend()
      */
-    private String createRPN(String input) throws WrongArgumentException {
-        String trimmed = input.trim();
-        StringBuilder result = new StringBuilder();
-        Deque<String> stack = new LinkedList<String>();
-        String[] factors = trimmed.split(EMPTY_SPACE);
-        int length = factors.length;
-        String temp;
-        String stackOperator;
-        for (int i = 0; i < length; i++) {
-            temp = factors[i];
-            if (checker.isDigit(temp)) {
-                result.append(EMPTY_SPACE).append(temp);
-            } else if (checker.isFunction(temp)) {
-                stack.push(temp);
-            } else if (COMMA.equals(temp)) {
-                do {
-                    stackOperator = stack.pop();
-                    if (!checker.isLeftBracket(stackOperator)) {
-                        result.append(EMPTY_SPACE).append(stackOperator);
-                    }
-                } while (!stack.isEmpty() && !checker.isLeftBracket(stackOperator));
-            } else if (checker.isOperator(temp)) {
-                while (!stack.isEmpty() && checker.isOperator(stack.peek())) {
-                    stackOperator = stack.peek();
-                    if (checker.isLeftAssociativity(stackOperator) && (checker.compareOperators(stackOperator, temp) >= 0)) {
-                        stack.pop();
-                        result.append(EMPTY_SPACE).append(stackOperator);
-                    } else if (checker.isRightAssociativity(stackOperator) && (checker.compareOperators(stackOperator, temp) > 0)) {
-                        stack.pop();
-                        result.append(EMPTY_SPACE).append(stackOperator);
-                    } else {
-                        break;
-                    }
-                }
-
-                stack.push(temp);
-            } else if (checker.isLeftBracket(temp)) {
-                stack.push(temp);
-            } else if (checker.isRightBracket(temp)) {
-                do {
-                    temp = stack.pop();
-                    if (!checker.isLeftBracket(temp)) {
-                        result.append(EMPTY_SPACE).append(temp);
-                    }
-                } while (!checker.isLeftBracket(temp));
-                if (!stack.isEmpty() && checker.isFunction(stack.peek())) {
-                    result.append(EMPTY_SPACE).append(stack.pop());
-                }
-            } else {
-                throw new WrongArgumentException("Element \"" + temp + "\" is not recognized by the Checker");
-            }
+    public CompiledExpression compile(final String input, final EvaluationBackend backend) throws WrongArgumentException {
+        if (backend == EvaluationBackend.INTERPRETER) {
+            return compile(input);
         }
-        while (!stack.isEmpty()) {
-            result.append(EMPTY_SPACE).append(stack.pop());
+        final RPNProgram program = program(input);
+        final ProgramEvaluator evaluator = backend == EvaluationBackend.BYTECODE
+                ? BytecodeCompiler.compile(program, executioner, mathContext)
+                : MethodHandleCompiler.compile(program, executioner, mathContext);
+        if (evaluator == null) {
+            return interpret(program);
         }
-
-        return result.toString().trim();
+        return new CompiledExpression(program, evaluator, executioner, backend, mathContext, SCALE, mode);
     }
 
     /**
-     * Calculates RPN String into BigDecimal.
+     * Returns expression cache counters.
      *
-     * @param result Input RPN String
-     * @return value as {@code java.math.BigDecimal}
-     * @throws WrongArgumentException
-     * @throws NoSuchFunctionFound
+     * @return CacheStats snapshot, with all counters set to 0 if the cache is disabled
      */
-    private BigDecimal getResult(String result) throws WrongArgumentException, NoSuchFunctionFound {
-        String[] factors = result.trim().split(EMPTY_SPACE);
-        Deque<String> stack = new LinkedList<String>();
-        String temp;
-        String variable1;
-        String variable2;
-        BigDecimal value;
-        for (int i = 0; i < factors.length; i++) {
-            temp = factors[i];
-            if (checker.isDigit(temp)) {
-                stack.push(temp);
-            } else if (checker.isOperator(temp)) {
-                variable1 = stack.pop();
-                if (!stack.isEmpty()) {
-                    variable2 = stack.pop();
-                } else {
-                    variable2 = ZERO;
-                }
-                value = executioner.executeOperator(temp, mathContext, variable2, variable1);
-                stack.push(value.toPlainString());
-            } else if (checker.isFunction(temp)) {
-                int count = checker.getFunctionParamsCount(temp);
-                String[] table = new String[count];
-                String params = stack.pop();
-                String[] paramsTable = params.split(COMMA);
-                for (int j = 0; j < count; j++) {
-                    table[j] = paramsTable[j];
-                }
-                value = executioner.executeFunction(temp, mathContext, table);
-                stack.push(value.toPlainString());
-            }
-        }
-        return new BigDecimal(stack.pop()).setScale(SCALE, mathContext.getRoundingMode());
+    public CacheStats getCacheStats() {
+        return cache != null ? cache.stats() : CacheStats.EMPTY;
+    }
+
+    /**
+     * Converts the input into RPN, without simplifying it, for expressions evaluated only once: simplifying
+     * costs more than it saves, and constant parts are calculated during evaluation, not here.
+     */
+    CompiledExpression compileOnce(final String input) throws WrongArgumentException {
+        return interpret(ExpressionCompiler.compile(checker, input));
+    }
+
+    /**
+     * Returns the expression calculated by {@link #calculate(String)}: from the cache, if it is enabled,
+     * or converted once, without simplifying.
+     */
+    CompiledExpression expression(final String input) throws WrongArgumentException {
+        return cache != null ? compile(input) : compileOnce(input);
+    }
+
+    private CompiledExpression parse(final String input) throws WrongArgumentException {
+        return interpret(program(input));
+    }
+
+    /**
+     * Converts the input into RPN, and simplifies it, see {@link ProgramOptimizer}.
+     */
+    private RPNProgram program(final String input) throws WrongArgumentException {
+        return ProgramOptimizer.optimize(ExpressionCompiler.compile(checker, input), executioner, mathContext);
+    }
+
+    private CompiledExpression interpret(final RPNProgram program) {
+        return new CompiledExpression(program, new ProgramInterpreter(program, executioner, mathContext, false),
+                executioner, EvaluationBackend.INTERPRETER, mathContext, SCALE, mode);
+    }
+
+    public CalculationMode getCalculationMode() {
+        return mode;
     }
 
     public MathContext getMathContext() {
@@ -0,0 +1,233 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+package com.github.bgora.rpnlibrary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Minimal class file writer, used by {@link BytecodeCompiler}.
+ * <p>
+ * It supports only what generated expressions need: constant pool, fields, and methods without branches,
+ * so no stack map frames are written.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
+final class ClassFileWriter {
+
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_PRIVATE = 0x0002;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    private static final int CLASS_FILE_VERSION = 61;
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> poolIndexes = new HashMap<>();
+    private int poolCount = 1;
+
+    private final ByteArrayOutputStream fieldsBytes = new ByteArrayOutputStream();
+    private final DataOutputStream fields = new DataOutputStream(fieldsBytes);
+    private int fieldsCount;
+    private final ByteArrayOutputStream methodsBytes = new ByteArrayOutputStream();
+    private final DataOutputStream methods = new DataOutputStream(methodsBytes);
+    private int methodsCount;
+
+    int utf8(final String value) {
+        return entry("U" + value, 1, 1, out -> out.writeUTF(value));
+    }
+
+    int classRef(final String internalName) {
+        final int name = utf8(internalName);
+        return entry("C" + internalName, 7, 1, out -> out.writeShort(name));
+    }
+
+    int doubleConstant(final double value) {
+        return entry("D" + Double.doubleToRawLongBits(value), 6, 2, out -> out.writeDouble(value));
+    }
+
+    int integerConstant(final int value) {
+        return entry("I" + value, 3, 1, out -> out.writeInt(value));
+    }
+
+    int fieldRef(final String owner, final String name, final String descriptor) {
+        return memberRef(9, owner, name, descriptor);
+    }
+
+    int methodRef(final String owner, final String name, final String descriptor) {
+        return memberRef(10, owner, name, descriptor);
+    }
+
+    void addField(final int access, final String name, final String descriptor) {
+        final int nameIndex = utf8(name);
+        final int descriptorIndex = utf8(descriptor);
+        write(fields, out -> {
+            out.writeShort(access);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+            out.writeShort(0);
+        });
+        fieldsCount++;
+    }
+
+    void addMethod(final int access, final String name, final String descriptor, final Code code) {
+        final int nameIndex = utf8(name);
+        final int descriptorIndex = utf8(descriptor);
+        final int codeIndex = utf8("Code");
+        final byte[] bytes = code.bytes.toByteArray();
+        if (bytes.length > 65535) {
+            throw new IllegalStateException("Method " + name + " is too large");
+        }
+        write(methods, out -> {
+            out.writeShort(access);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+            out.writeShort(1);
+            out.writeShort(codeIndex);
+            out.writeInt(12 + bytes.length);
+            out.writeShort(code.maxStack);
+            out.writeShort(code.maxLocals);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.writeShort(0);
+            out.writeShort(0);
+        });
+        methodsCount++;
+    }
+
+    byte[] toByteArray(final int access, final String name, final String superName, final String... interfaces) {
+        final int thisIndex = classRef(name);
+        final int superIndex = classRef(superName);
+        final int[] interfaceIndexes = new int[interfaces.length];
+        for (int i = 0; i < interfaces.length; i++) {
+            interfaceIndexes[i] = classRef(interfaces[i]);
+        }
+        if (poolCount > 65535) {
+            throw new IllegalStateException("Constant pool is too large");
+        }
+        final ByteArrayOutputStream result = new ByteArrayOutputStream();
+        write(new DataOutputStream(result), out -> {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(CLASS_FILE_VERSION);
+            out.writeShort(poolCount);
+            out.write(poolBytes.toByteArray());
+            out.writeShort(access);
+            out.writeShort(thisIndex);
+            out.writeShort(superIndex);
+            out.writeShort(interfaceIndexes.length);
+            for (int index : interfaceIndexes) {
+                out.writeShort(index);
+            }
+            out.writeShort(fieldsCount);
+            out.write(fieldsBytes.toByteArray());
+            out.writeShort(methodsCount);
+            out.write(methodsBytes.toByteArray());
+            out.writeShort(0);
+        });
+        return result.toByteArray();
+    }
+
+    private int memberRef(final int tag, final String owner, final String name, final String descriptor) {
+        final int ownerIndex = classRef(owner);
+        final int nameIndex = utf8(name);
+        final int descriptorIndex = utf8(descriptor);
+        final int nameAndType = entry("N" + name + ' ' + descriptor, 12, 1, out -> {
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+        });
+        return entry(tag + owner + '.' + name + descriptor, tag, 1, out -> {
+            out.writeShort(ownerIndex);
+            out.writeShort(nameAndType);
+        });
+    }
+
+    private int entry(final String key, final int tag, final int size, final Writer body) {
+        final Integer existing = poolIndexes.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        final int index = poolCount;
+        write(pool, out -> {
+            out.writeByte(tag);
+            body.write(out);
+        });
+        poolCount += size;
+        poolIndexes.put(key, index);
+        return index;
+    }
+
+    private static void write(final DataOutputStream out, final Writer writer) {
+        try {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Bytecode of one method, with operand stack depth tracking.
+     * Every instruction is added with its effect on the operand stack, in slots.
+     */
+    static final class Code {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final int maxLocals;
+        private int depth;
+        private int maxStack;
+
+        Code(final int maxLocals) {
+            this.maxLocals = maxLocals;
+        }
+
+        Code op(final int opcode, final int stackChange) {
+            bytes.write(opcode);
+            return stack(stackChange);
+        }
+
+        Code op1(final int opcode, final int operand, final int stackChange) {
+            bytes.write(opcode);
+            bytes.write(operand);
+            return stack(stackChange);
+        }
+
+        Code op2(final int opcode, final int operand, final int stackChange) {
+            bytes.write(opcode);
+            bytes.write(operand >>> 8);
+            bytes.write(operand);
+            return stack(stackChange);
+        }
+
+        private Code stack(final int change) {
+            depth += change;
+            maxStack = Math.max(maxStack, depth);
+            return this;
+        }
+    }
+}
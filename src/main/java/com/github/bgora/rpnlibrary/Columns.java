@@ -0,0 +1,206 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.exceptions.WrongArgumentException;
+
+import java.math.BigDecimal;
+
+/**
+ * Variable values for {@link CompiledExpression#evaluateBatch(Columns, double[])}, one column for each variable.
+ * <p>
+ * Instances are created by {@link CompiledExpression#newColumns(int)}, for the given number of rows.
+ * Each column is an array with one value for each row, and can be passed as {@code double[]}, {@code long[]},
+ * or {@code BigDecimal[]}:
+ * <pre>
+ *     CompiledExpression expression = calc.compile("price * qty");
+ *     double[] result = new double[prices.length];
+ *     expression.evaluateBatch(expression.newColumns(prices.length)
+ *             .set("price", prices)
+ *             .set("qty", quantities), result);
+ * </pre>
+ * Arrays are not copied, they are read during evaluation, so they shouldn't be modified at that time.
+ * Instances are not thread safe.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
+public final class Columns {
+
+    private final CompiledExpression expression;
+    private final int rows;
+    private final Object[] columns;
+
+    Columns(final CompiledExpression expression, final int variables, final int rows) {
+        this.expression = expression;
+        this.rows = rows;
+        this.columns = new Object[variables];
+    }
+
+    /**
+     * Returns number of rows.
+     *
+     * @return number of values in each column
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Sets values of the variable.
+     *
+     * @param name   variable name
+     * @param values one value for each row
+     * @return this
+     * @throws WrongArgumentException if the expression doesn't use the variable, or number of values is wrong.
+     */
+    public Columns set(final String name, final double[] values) throws WrongArgumentException {
+        return set(expression.getVariableIndex(name), values);
+    }
+
+    /**
+     * Sets values of the variable.
+     *
+     * @param name   variable name
+     * @param values one value for each row
+     * @return this
+     * @throws WrongArgumentException if the expression doesn't use the variable, or number of values is wrong.
+     */
+    public Columns set(final String name, final long[] values) throws WrongArgumentException {
+        return set(expression.getVariableIndex(name), values);
+    }
+
+    /**
+     * Sets values of the variable.
+     *
+     * @param name   variable name
+     * @param values one value for each row
+     * @return this
+     * @throws WrongArgumentException if the expression doesn't use the variable, or number of values is wrong.
+     */
+    public Columns set(final String name, final BigDecimal[] values) throws WrongArgumentException {
+        return set(expression.getVariableIndex(name), values);
+    }
+
+    /**
+     * Sets values of the variable.
+     *
+     * @param slot   variable slot index
+     * @param values one value for each row
+     * @return this
+     * @throws WrongArgumentException if the slot is wrong, or number of values is wrong.
+     * @see CompiledExpression#getVariableIndex(String)
+     */
+    public Columns set(final int slot, final double[] values) throws WrongArgumentException {
+        return put(slot, values, values.length);
+    }
+
+    /**
+     * Sets values of the variable.
+     *
+     * @param slot   variable slot index
+     * @param values one value for each row
+     * @return this
+     * @throws WrongArgumentException if the slot is wrong, or number of values is wrong.
+     * @see CompiledExpression#getVariableIndex(String)
+     */
+    public Columns set(final int slot, final long[] values) throws WrongArgumentException {
+        return put(slot, values, values.length);
+    }
+
+    /**
+     * Sets values of the variable.
+     *
+     * @param slot   variable slot index
+     * @param values one value for each row
+     * @return this
+     * @throws WrongArgumentException if the slot is wrong, or number of values is wrong.
+     * @see CompiledExpression#getVariableIndex(String)
+     */
+    public Columns set(final int slot, final BigDecimal[] values) throws WrongArgumentException {
+        return put(slot, values, values.length);
+    }
+
+    private Columns put(final int slot, final Object values, final int length) throws WrongArgumentException {
+        if (slot < 0 || slot >= columns.length) {
+            throw new WrongArgumentException("Wrong variable slot: " + slot);
+        }
+        if (length != rows) {
+            throw new WrongArgumentException("Expected " + rows + " values, but got " + length);
+        }
+        columns[slot] = values;
+        return this;
+    }
+
+    /**
+     * Checks, that the columns belong to the expression, and all variables are set.
+     */
+    void check(final CompiledExpression owner) throws WrongArgumentException {
+        if (owner != expression) {
+            throw new WrongArgumentException("Columns were created by other expression");
+        }
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] == null) {
+                throw new WrongArgumentException("Values of variable \"" + expression.getVariables().get(i)
+                        + "\" are not set");
+            }
+        }
+    }
+
+    /**
+     * Copies length values of the variable, starting at row from, into target.
+     */
+    void copyDoubles(final int slot, final int from, final double[] target, final int length) {
+        final Object column = columns[slot];
+        if (column instanceof double[]) {
+            System.arraycopy(column, from, target, 0, length);
+        } else if (column instanceof long[]) {
+            final long[] values = (long[]) column;
+            for (int i = 0; i < length; i++) {
+                target[i] = values[from + i];
+            }
+        } else {
+            final BigDecimal[] values = (BigDecimal[]) column;
+            for (int i = 0; i < length; i++) {
+                target[i] = values[from + i].doubleValue();
+            }
+        }
+    }
+
+    /**
+     * Copies length values of the variable, starting at row from, into target.
+     */
+    void copyBigDecimals(final int slot, final int from, final BigDecimal[] target, final int length) {
+        final Object column = columns[slot];
+        if (column instanceof BigDecimal[]) {
+            System.arraycopy(column, from, target, 0, length);
+        } else if (column instanceof long[]) {
+            final long[] values = (long[]) column;
+            for (int i = 0; i < length; i++) {
+                target[i] = BigDecimal.valueOf(values[from + i]);
+            }
+        } else {
+            final double[] values = (double[]) column;
+            for (int i = 0; i < length; i++) {
+                target[i] = BigDecimal.valueOf(values[from + i]);
+            }
+        }
+    }
+}
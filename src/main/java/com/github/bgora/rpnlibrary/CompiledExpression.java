@@ -0,0 +1,419 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.exceptions.NoSuchFunctionFound;
+import com.github.bgora.rpnlibrary.exceptions.WrongArgumentException;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.List;
+
+/**
+ * Expression already converted into Reverse Polish Notation.
+ * <p>
+ * Instances are created by {@link Calculator#compile(String)}. Parsing, and RPN conversion are done once,
+ * so {@link #evaluate()} runs only the evaluation loop.
+ * <p>
+ * Names, that are neither numbers nor functions are variables. Each variable gets a fixed slot index,
+ * in order of the first occurrence in the input, and values are passed to {@link #evaluate(BigDecimal...)},
+ * or {@link #evaluate(double...)} as an array indexed by those slots:
+ * <pre>
+ *     CompiledExpression expression = calc.compile("price * qty");
+ *     int price = expression.getVariableIndex("price");
+ *     int qty = expression.getVariableIndex("qty");
+ *     BigDecimal[] values = new BigDecimal[2];
+ *     values[price] = new BigDecimal("12.50");
+ *     values[qty] = BigDecimal.TEN;
+ *     BigDecimal result = expression.evaluate(values);
+ * </pre>
+ * Many rows of values can be evaluated at once with {@link #evaluateBatch(Columns, double[])}.
+ * <p>
+ * If the Calculator uses {@link CalculationMode#DOUBLE}, evaluate methods calculate with primitive doubles,
+ * and convert only the result. {@link #evaluateDouble(double...)} always calculates with doubles.
+ * <p>
+ * Instances have only final fields, set when the expression is compiled, and keep no state between evaluations,
+ * so they can be shared between threads.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
+public final class CompiledExpression {
+
+    private static final BigDecimal[] NO_VALUES = new BigDecimal[0];
+    private static final double[] NO_DOUBLE_VALUES = new double[0];
+
+    private final RPNProgram program;
+    private final ProgramEvaluator evaluator;
+    private final RPNExecutioner executioner;
+    private final BatchEvaluator batchEvaluator;
+    private final EvaluationBackend backend;
+    private final MathContext mathContext;
+    private final int scale;
+    private final CalculationMode mode;
+
+    /**
+     * Constructor.
+     *
+     * @param program     typed RPN instructions
+     * @param evaluator   ProgramEvaluator for the program
+     * @param executioner RPNExecutioner of the Calculator
+     * @param backend     backend of the evaluator
+     * @param mathContext MathContext - Set Rounding Mode, and precision
+     * @param scale       scale number of digits after .
+     * @param mode        number type used by evaluate methods
+     */
+    CompiledExpression(final RPNProgram program, final ProgramEvaluator evaluator, final RPNExecutioner executioner,
+                       final EvaluationBackend backend, final MathContext mathContext, final int scale,
+                       final CalculationMode mode) {
+        this.program = program;
+        this.evaluator = evaluator;
+        this.executioner = executioner;
+        this.batchEvaluator = evaluator instanceof ProgramInterpreter
+                ? ((ProgramInterpreter) evaluator).batchEvaluator() : new BatchEvaluator(program, executioner, mathContext);
+        this.backend = backend;
+        this.mathContext = mathContext;
+        this.scale = scale;
+        this.mode = mode;
+    }
+
+    /**
+     * Returns the backend, that evaluates this expression.
+     * It can be {@link EvaluationBackend#INTERPRETER}, even if other backend was requested, when the expression
+     * cannot be compiled with it.
+     *
+     * @return evaluation backend
+     */
+    public EvaluationBackend getBackend() {
+        return backend;
+    }
+
+    /**
+     * Returns variable names, in order of their slot indexes.
+     *
+     * @return unmodifiable list of variable names
+     */
+    public List<String> getVariables() {
+        return List.of(program.variables);
+    }
+
+    /**
+     * Returns slot index of the given variable.
+     * Resolve it once, and use it for filling arrays passed to evaluate methods.
+     *
+     * @param name variable name
+     * @return slot index
+     * @throws WrongArgumentException if the expression doesn't use the variable
+     */
+    public int getVariableIndex(final String name) throws WrongArgumentException {
+        final String[] variables = program.variables;
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new WrongArgumentException("Variable \"" + name + "\" is not used in the expression");
+    }
+
+    /**
+     * Evaluates the expression, that has no variables.
+     *
+     * @return value as {@code java.math.BigDecimal}, with the scale of the Calculator that compiled this expression.
+     * @throws WrongArgumentException if there is something wrong with the input, or the expression has variables.
+     * @throws NoSuchFunctionFound    if the executioner cannot find a function.
+     */
+    public BigDecimal evaluate() throws WrongArgumentException, NoSuchFunctionFound {
+        return evaluate(NO_VALUES);
+    }
+
+    /**
+     * Evaluates the expression with given variable values.
+     *
+     * @param values variable values, indexed by slot
+     * @return value as {@code java.math.BigDecimal}, with the scale of the Calculator that compiled this expression.
+     * @throws WrongArgumentException if there is something wrong with the input, or values don't match variables.
+     * @throws NoSuchFunctionFound    if the executioner cannot find a function.
+     * @see #getVariableIndex(String)
+     */
+    public BigDecimal evaluate(final BigDecimal... values) throws WrongArgumentException, NoSuchFunctionFound {
+        return evaluate(evaluator, values);
+    }
+
+    /**
+     * Evaluates the expression, that has no variables, with the given stacks, if it is interpreted.
+     */
+    BigDecimal evaluate(final EvaluationStacks stacks) throws WrongArgumentException, NoSuchFunctionFound {
+        if (!(evaluator instanceof ProgramInterpreter)) {
+            return evaluate();
+        }
+        checkValuesCount(0);
+        final ProgramInterpreter interpreter = (ProgramInterpreter) evaluator;
+        if (mode == CalculationMode.DOUBLE) {
+            return toBigDecimal(interpreter.evaluateDouble(NO_DOUBLE_VALUES, stacks.doubles(interpreter.stackSize())));
+        }
+        return toBigDecimal(interpreter.evaluate(NO_VALUES, stacks.decimals(interpreter.stackSize())));
+    }
+
+    /**
+     * Evaluates the expression with the interpreter, that checks between operations, if the current thread was
+     * interrupted, and throws {@link java.util.concurrent.CancellationException} if it was.
+     * Used by {@link AsyncCalculator}, so cancelled evaluations stop.
+     */
+    BigDecimal evaluateInterruptibly(final BigDecimal[] values) throws WrongArgumentException, NoSuchFunctionFound {
+        return evaluate(new ProgramInterpreter(program, executioner, mathContext, true), values);
+    }
+
+    /**
+     * See {@link #evaluateInterruptibly(BigDecimal[])}.
+     */
+    BigDecimal evaluateInterruptibly(final double[] values) throws WrongArgumentException, NoSuchFunctionFound {
+        return evaluate(new ProgramInterpreter(program, executioner, mathContext, true), values);
+    }
+
+    private BigDecimal evaluate(final ProgramEvaluator evaluator, final BigDecimal[] values)
+            throws WrongArgumentException, NoSuchFunctionFound {
+        checkValuesCount(values.length);
+        if (mode == CalculationMode.DOUBLE) {
+            final double[] bound = new double[values.length];
+            for (int i = 0; i < values.length; i++) {
+                bound[i] = values[i].doubleValue();
+            }
+            return toBigDecimal(evaluator.evaluateDouble(bound));
+        }
+        return toBigDecimal(evaluator.evaluate(values));
+    }
+
+    /**
+     * Evaluates the expression with given variable values.
+     *
+     * @param values variable values, indexed by slot
+     * @return value as {@code java.math.BigDecimal}, with the scale of the Calculator that compiled this expression.
+     * @throws WrongArgumentException if there is something wrong with the input, or values don't match variables.
+     * @throws NoSuchFunctionFound    if the executioner cannot find a function.
+     * @see #getVariableIndex(String)
+     */
+    public BigDecimal evaluate(final double... values) throws WrongArgumentException, NoSuchFunctionFound {
+        return evaluate(evaluator, values);
+    }
+
+    private BigDecimal evaluate(final ProgramEvaluator evaluator, final double[] values)
+            throws WrongArgumentException, NoSuchFunctionFound {
+        checkValuesCount(values.length);
+        if (mode == CalculationMode.DOUBLE) {
+            return toBigDecimal(evaluator.evaluateDouble(values));
+        }
+        final BigDecimal[] bound = new BigDecimal[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bound[i] = BigDecimal.valueOf(values[i]);
+        }
+        return toBigDecimal(evaluator.evaluate(bound));
+    }
+
+    /**
+     * Evaluates the expression, that has no variables, with primitive doubles.
+     *
+     * @return value as double, not rounded.
+     * @throws WrongArgumentException if there is something wrong with the input, or the expression has variables.
+     * @throws NoSuchFunctionFound    if the executioner cannot find a function.
+     */
+    public double evaluateDouble() throws WrongArgumentException, NoSuchFunctionFound {
+        return evaluateDouble(NO_DOUBLE_VALUES);
+    }
+
+    /**
+     * Evaluates the expression with given variable values, with primitive doubles.
+     * <p>
+     * Operators, and functions are called through their double methods, so the calculation has IEEE 754 double
+     * precision, regardless of the Calculator MathContext, and {@link CalculationMode}.
+     *
+     * @param values variable values, indexed by slot
+     * @return value as double, not rounded.
+     * @throws WrongArgumentException if there is something wrong with the input, or values don't match variables.
+     * @throws NoSuchFunctionFound    if the executioner cannot find a function.
+     * @see #getVariableIndex(String)
+     */
+    public double evaluateDouble(final double... values) throws WrongArgumentException, NoSuchFunctionFound {
+        checkValuesCount(values.length);
+        return evaluator.evaluateDouble(values);
+    }
+
+    /**
+     * Creates empty columns of variable values, for {@link #evaluateBatch(Columns, double[])}.
+     *
+     * @param rows number of rows
+     * @return Columns for this expression
+     * @throws WrongArgumentException if rows is negative
+     */
+    public Columns newColumns(final int rows) throws WrongArgumentException {
+        if (rows < 0) {
+            throw new WrongArgumentException("Number of rows cannot be negative: " + rows);
+        }
+        return new Columns(this, program.variables.length, rows);
+    }
+
+    /**
+     * Evaluates the expression for each row of columns, with primitive doubles.
+     * <p>
+     * The expression is evaluated column at a time: each operator, and function is called once for a chunk of rows,
+     * instead of once for each row, see {@link com.github.bgora.rpnlibrary.operators.AbstractOperatorStrategy#execute(double[], double[], double[], int)}.
+     * Results are the same as from {@link #evaluateDouble(double...)} called for each row.
+     *
+     * @param columns variable values, created by {@link #newColumns(int)}
+     * @param result  array for results, one for each row
+     * @throws WrongArgumentException if there is something wrong with the input, or columns are not set.
+     * @throws NoSuchFunctionFound    if the executioner cannot find a function.
+     */
+    public void evaluateBatch(final Columns columns, final double[] result) throws WrongArgumentException, NoSuchFunctionFound {
+        checkColumns(columns, result.length);
+        evaluateRows(columns, 0, columns.getRows(), result);
+    }
+
+    /**
+     * Evaluates the expression for each row of columns.
+     * <p>
+     * Results are the same as from {@link #evaluate(BigDecimal...)} called for each row, so they have the scale
+     * of the Calculator, and are calculated with doubles, if the Calculator uses {@link CalculationMode#DOUBLE}.
+     *
+     * @param columns variable values, created by {@link #newColumns(int)}
+     * @param result  array for results, one for each row
+     * @throws WrongArgumentException if there is something wrong with the input, or columns are not set.
+     * @throws NoSuchFunctionFound    if the executioner cannot find a function.
+     * @see #evaluateBatch(Columns, double[])
+     */
+    public void evaluateBatch(final Columns columns, final BigDecimal[] result) throws WrongArgumentException, NoSuchFunctionFound {
+        checkColumns(columns, result.length);
+        evaluateRows(columns, 0, columns.getRows(), result);
+    }
+
+    /**
+     * Evaluates the expression for the first rows of columns, so columns, and the result array can be reused
+     * for batches of any size up to {@link Columns#getRows()}.
+     *
+     * @param columns variable values, created by {@link #newColumns(int)}
+     * @param rows    number of rows to evaluate, from the first one
+     * @param result  array for results, at least rows long
+     * @throws WrongArgumentException if there is something wrong with the input, columns are not set, or rows is wrong.
+     * @throws NoSuchFunctionFound    if the executioner cannot find a function.
+     * @see #evaluateBatch(Columns, double[])
+     */
+    public void evaluateBatch(final Columns columns, final int rows, final double[] result)
+            throws WrongArgumentException, NoSuchFunctionFound {
+        checkRows(columns, rows, result.length);
+        evaluateRows(columns, 0, rows, result);
+    }
+
+    /**
+     * Evaluates the expression for the first rows of columns, like {@link #evaluateBatch(Columns, BigDecimal[])}.
+     *
+     * @param columns variable values, created by {@link #newColumns(int)}
+     * @param rows    number of rows to evaluate, from the first one
+     * @param result  array for results, at least rows long
+     * @throws WrongArgumentException if there is something wrong with the input, columns are not set, or rows is wrong.
+     * @throws NoSuchFunctionFound    if the executioner cannot find a function.
+     * @see #evaluateBatch(Columns, int, double[])
+     */
+    public void evaluateBatch(final Columns columns, final int rows, final BigDecimal[] result)
+            throws WrongArgumentException, NoSuchFunctionFound {
+        checkRows(columns, rows, result.length);
+        evaluateRows(columns, 0, rows, result);
+    }
+
+    /**
+     * Evaluates rows from (inclusive) to (exclusive) of checked columns.
+     */
+    void evaluateRows(final Columns columns, final int from, final int to, final double[] result)
+            throws WrongArgumentException, NoSuchFunctionFound {
+        batchEvaluator.evaluateDouble(columns, from, to, result, from);
+    }
+
+    /**
+     * Evaluates rows from (inclusive) to (exclusive) of checked columns.
+     */
+    void evaluateRows(final Columns columns, final int from, final int to, final BigDecimal[] result)
+            throws WrongArgumentException, NoSuchFunctionFound {
+        if (mode == CalculationMode.DOUBLE) {
+            final double[] values = new double[Math.min(BatchEvaluator.CHUNK, to - from)];
+            for (int start = from; start < to; start += values.length) {
+                final int end = Math.min(start + values.length, to);
+                batchEvaluator.evaluateDouble(columns, start, end, values, 0);
+                for (int i = start; i < end; i++) {
+                    result[i] = toBigDecimal(values[i - start]);
+                }
+            }
+        } else {
+            batchEvaluator.evaluate(columns, from, to, result);
+            for (int i = from; i < to; i++) {
+                result[i] = toBigDecimal(result[i]);
+            }
+        }
+    }
+
+    /**
+     * Passes instructions of the expression to the visitor, in Reverse Polish Notation order.
+     * Meant for evaluators outside of this library.
+     *
+     * @param visitor InstructionVisitor
+     */
+    public void accept(final InstructionVisitor visitor) {
+        program.accept(visitor, executioner instanceof DefaultRPNExecutioner
+                ? ((DefaultRPNExecutioner) executioner).resolveStrategies(program) : null);
+    }
+
+    void checkColumns(final Columns columns, final int length) throws WrongArgumentException {
+        checkRows(columns, columns.getRows(), length);
+    }
+
+    private void checkRows(final Columns columns, final int rows, final int length) throws WrongArgumentException {
+        columns.check(this);
+        if (rows < 0 || rows > columns.getRows()) {
+            throw new WrongArgumentException("Expected up to " + columns.getRows() + " rows, but got " + rows);
+        }
+        if (length < rows) {
+            throw new WrongArgumentException("Expected array for " + rows + " results, but got " + length);
+        }
+    }
+
+    private void checkValuesCount(final int count) throws WrongArgumentException {
+        if (count != program.variables.length) {
+            throw new WrongArgumentException("Expected " + program.variables.length + " variable values "
+                    + getVariables() + ", but got " + count);
+        }
+    }
+
+    private BigDecimal toBigDecimal(final BigDecimal value) {
+        return value.setScale(scale, mathContext.getRoundingMode());
+    }
+
+    private BigDecimal toBigDecimal(final double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new ArithmeticException("Result is not a finite number: " + value);
+        }
+        return BigDecimal.valueOf(value).setScale(scale, mathContext.getRoundingMode());
+    }
+
+    /**
+     * Returns the expression in Reverse Polish Notation.
+     *
+     * @return RPN tokens separated by space
+     */
+    @Override
+    public String toString() {
+        return program.toString();
+    }
+}
@@ -19,44 +19,32 @@
 
 package com.github.bgora.rpnlibrary;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
  * This implementation Extends DefaultChecker with arithmetic funstions.
  * <p>
  * Provided functions are: sin, cos, tg, ctg
+ * <p>
+ * Operators, and functions are looked up in {@link RPNRegistry}, which is immutable, and shared with
+ * the executioner, when both use defaults.
  *
  * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
  */
 class DefaultRPNChecker implements RPNChecker {
 
-    private final Map<String, Integer> operators;
-
-    private final Map<String, Integer> functions;
+    private final RPNRegistry registry;
 
     public DefaultRPNChecker() {
-        operators = new HashMap<String, Integer>();
-        operators.put("+", 1);
-        operators.put("-", 1);
-        operators.put("*", 2);
-        operators.put("/", 2);
-        operators.put("^", 3);
-
-        functions = new HashMap<String, Integer>();
-        functions.put("sin", 1);
-        functions.put("cos", 1);
-        functions.put("tg", 1);
-        functions.put("ctg", 1);
-        functions.put("min", 2);
-        functions.put("max", 2);
-        functions.put("fib", 1);
-
+        this(RPNRegistry.defaults());
     }
 
     DefaultRPNChecker(final Map<String, Integer> operators, final Map<String, Integer> functions) {
-        this.operators = operators;
-        this.functions = functions;
+        this(RPNRegistry.create(operators, functions, Map.of(), Map.of()));
+    }
+
+    DefaultRPNChecker(final RPNRegistry registry) {
+        this.registry = registry;
     }
 
     /**
@@ -82,7 +70,7 @@ class DefaultRPNChecker implements RPNChecker {
      */
     @Override
     public boolean isOperator(String input) {
-        return operators.containsKey(input);
+        return registry.operatorOpcode(input) >= 0;
     }
 
     /**
@@ -110,7 +98,8 @@ class DefaultRPNChecker implements RPNChecker {
      */
     @Override
     public boolean isLeftAssociativity(String c) {
-        return ("*".equals(c) || "+".equals(c) || "/".equals(c) || "-".equals(c));
+        final int opcode = registry.operatorOpcode(c);
+        return opcode >= 0 && registry.associativity(opcode) == RPNRegistry.LEFT;
     }
 
     /**
@@ -118,7 +107,8 @@ class DefaultRPNChecker implements RPNChecker {
      */
     @Override
     public boolean isRightAssociativity(String c) {
-        return "^".equals(c);
+        final int opcode = registry.operatorOpcode(c);
+        return opcode >= 0 && registry.associativity(opcode) == RPNRegistry.RIGHT;
     }
 
     /**
@@ -127,9 +117,8 @@ class DefaultRPNChecker implements RPNChecker {
      */
     @Override
     public int compareOperators(String operator1, String operator2) {
-        Integer i1 = operators.get(operator1);
-        Integer i2 = operators.get(operator2);
-        return i1 - i2;
+        return registry.precedence(registry.operatorOpcode(operator1))
+                - registry.precedence(registry.operatorOpcode(operator2));
     }
 
     /**
@@ -141,12 +130,31 @@ class DefaultRPNChecker implements RPNChecker {
      */
     @Override
     public boolean isFunction(String input) {
-        return functions.keySet().contains(input);
+        return registry.functionOpcode(input) >= 0;
     }
 
     @Override
     public int getFunctionParamsCount(String functionName) {
-        return functions.get(functionName);
+        return registry.arity(registry.functionOpcode(functionName));
+    }
+
+    /**
+     * Matches operators with the trie of {@link RPNRegistry}, without creating Strings.
+     *
+     * @see RPNChecker#matchOperator(CharSequence, int)
+     */
+    @Override
+    public String matchOperator(CharSequence input, int position) {
+        return registry.matchOperator(input, position);
     }
 
+    /**
+     * Matches function names with the trie of {@link RPNRegistry}, without creating Strings.
+     *
+     * @see RPNChecker#matchFunction(CharSequence, int, int)
+     */
+    @Override
+    public String matchFunction(CharSequence input, int start, int end) {
+        return registry.matchFunction(input, start, end);
+    }
 }
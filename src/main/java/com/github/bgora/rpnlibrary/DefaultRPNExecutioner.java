@@ -40,31 +40,124 @@ import java.util.Map;
  */
 class DefaultRPNExecutioner implements RPNExecutioner {
 
-    private final Map<String, AbstractOperatorStrategy> operators;
-    private final Map<String, AbstractFunctionStrategy> functions;
+    private final RPNRegistry registry;
 
     /**
      * Parametrized constructor.
      * <p>
      * Takes two maps with AbstractOperatorStrategy, and AbstractFunctionStrategy, to calculate.
+     * Maps are copied into new {@link RPNRegistry}.
      *
      * @param operators Map containing AbstractOperatorStrategy identified by it's operator
      * @param functions Map containing AbstractFunctionStrategy identified by it's name
      */
-     DefaultRPNExecutioner(final Map<String, AbstractOperatorStrategy> operators,final Map<String, AbstractFunctionStrategy> functions) {
-        this.operators = operators;
-        this.functions = functions;
+    DefaultRPNExecutioner(final Map<String, AbstractOperatorStrategy> operators, final Map<String, AbstractFunctionStrategy> functions) {
+        this(RPNRegistry.create(Map.of(), Map.of(), operators, functions));
     }
 
+    /**
+     * Creates executioner using strategies of the registry.
+     *
+     * @param registry RPNRegistry
+     */
+    DefaultRPNExecutioner(final RPNRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Returns strategies used by the program, indexed like program symbols.
+     * Used by compiling backends to call strategies directly.
+     *
+     * @param program typed RPN instructions
+     * @return AbstractOperatorStrategy, or AbstractFunctionStrategy for each symbol, or null if any is missing
+     */
+    Object[] resolveStrategies(final RPNProgram program) {
+        final Object[] strategies = new Object[program.symbols.length];
+        for (int i = 0; i < program.length(); i++) {
+            final int operand = program.operands[i];
+            if (program.kinds[i] == RPNProgram.OPERATOR) {
+                strategies[operand] = registry.operator(program.symbols[operand]);
+            } else if (program.kinds[i] == RPNProgram.FUNCTION) {
+                strategies[operand] = registry.function(program.symbols[operand]);
+            } else {
+                continue;
+            }
+            if (strategies[operand] == null) {
+                return null;
+            }
+        }
+        return strategies;
+    }
 
     @Override
     public BigDecimal executeOperator(String operator, MathContext mathContext, String var1, String var2) throws WrongArgumentException {
-        return operators.get(operator).execute(var1, var2, mathContext);
+        return registry.operator(operator).execute(var1, var2, mathContext);
     }
 
     @Override
     public BigDecimal executeFunction(String functionName, MathContext mathContext, String... arguments) throws NoSuchFunctionFound {
-        return functions.get(functionName).execute(mathContext, arguments);
+        return registry.function(functionName).execute(mathContext, arguments);
+    }
+
+    @Override
+    public BigDecimal executeOperator(String operator, MathContext mathContext, BigDecimal var1, BigDecimal var2) throws WrongArgumentException {
+        return registry.operator(operator).execute(var1, var2, mathContext);
+    }
+
+    @Override
+    public BigDecimal executeFunction(String functionName, MathContext mathContext, BigDecimal... arguments) throws NoSuchFunctionFound {
+        return registry.function(functionName).execute(mathContext, arguments);
+    }
+
+    @Override
+    public BigDecimal executeFunction(String functionName, MathContext mathContext, BigDecimal argument) throws NoSuchFunctionFound {
+        return registry.function(functionName).execute(mathContext, argument);
+    }
+
+    @Override
+    public BigDecimal executeFunction(String functionName, MathContext mathContext, BigDecimal first, BigDecimal second) throws NoSuchFunctionFound {
+        return registry.function(functionName).execute(mathContext, first, second);
+    }
+
+    @Override
+    public double executeOperator(String operator, double var1, double var2) throws WrongArgumentException {
+        return registry.operator(operator).execute(var1, var2);
+    }
+
+    @Override
+    public double executeFunction(String functionName, double... arguments) throws NoSuchFunctionFound {
+        return registry.function(functionName).execute(arguments);
+    }
+
+    @Override
+    public double executeFunction(String functionName, double argument) throws NoSuchFunctionFound {
+        return registry.function(functionName).execute(argument);
+    }
+
+    @Override
+    public double executeFunction(String functionName, double first, double second) throws NoSuchFunctionFound {
+        return registry.function(functionName).execute(first, second);
     }
 
+    @Override
+    public void executeOperator(String operator, double[] var1, double[] var2, double[] result, int length) throws WrongArgumentException {
+        registry.operator(operator).execute(var1, var2, result, length);
+    }
+
+    @Override
+    public void executeOperator(String operator, MathContext mathContext, BigDecimal[] var1, BigDecimal[] var2,
+                                BigDecimal[] result, int length) throws WrongArgumentException {
+        registry.operator(operator).execute(var1, var2, result, length, mathContext);
+    }
+
+    @Override
+    public void executeFunction(String functionName, double[][] arguments, double[] result, int length) throws NoSuchFunctionFound {
+        registry.function(functionName).execute(arguments, result, length);
+    }
+
+    @Override
+    public void executeFunction(String functionName, MathContext mathContext, BigDecimal[][] arguments,
+                                BigDecimal[] result, int length) throws NoSuchFunctionFound {
+        registry.function(functionName).execute(mathContext, arguments, result, length);
+    }
 }
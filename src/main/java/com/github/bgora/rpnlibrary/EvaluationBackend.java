@@ -0,0 +1,54 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+package com.github.bgora.rpnlibrary;
+
+/**
+ * The way compiled expression is evaluated.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ * @see Calculator#compile(String, EvaluationBackend)
+ */
+public enum EvaluationBackend {
+
+    /**
+     * Loop over RPN instructions, calling the executioner for every operator, and function.
+     * Works with every RPNExecutioner. This is the default backend.
+     */
+    INTERPRETER,
+
+    /**
+     * Expression is compiled into a hidden class, with straight-line evaluate methods calling operator,
+     * and function strategies directly, so the JIT can inline them.
+     * Generating the class costs much more than parsing, so use it for expressions evaluated many times.
+     * <p>
+     * Used only with executioners created by {@link RPNExecutionerFactory}, and expressions of reasonable size.
+     * Otherwise the expression falls back to {@link #INTERPRETER}, see {@link CompiledExpression#getBackend()}.
+     */
+    BYTECODE,
+
+    /**
+     * Expression is compiled into a tree of MethodHandles bound to operator, and function strategies.
+     * It is cheaper to create than {@link #BYTECODE}, and doesn't look up strategies during evaluation.
+     * <p>
+     * Used only with executioners created by {@link RPNExecutionerFactory}, and shorter expressions.
+     * Otherwise the expression falls back to {@link #INTERPRETER}, see {@link CompiledExpression#getBackend()}.
+     */
+    METHOD_HANDLES
+}
@@ -0,0 +1,61 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+package com.github.bgora.rpnlibrary;
+
+import java.math.BigDecimal;
+
+/**
+ * Stacks of one thread, reused by interpreted evaluations of many expressions, see
+ * {@link ParallelEvaluator#calculateAll(String...)}.
+ * <p>
+ * Stacks grow to the size of the largest expression, up to {@link #MAX_KEPT_SLOTS}; larger expressions get
+ * a new stack, that is not kept. Instances are not thread-safe.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
+final class EvaluationStacks {
+
+    static final int MAX_KEPT_SLOTS = 256;
+
+    private double[] doubles = new double[16];
+    private BigDecimal[] decimals = new BigDecimal[16];
+
+    double[] doubles(final int size) {
+        if (size <= doubles.length) {
+            return doubles;
+        }
+        final double[] stack = new double[size];
+        if (size <= MAX_KEPT_SLOTS) {
+            doubles = stack;
+        }
+        return stack;
+    }
+
+    BigDecimal[] decimals(final int size) {
+        if (size <= decimals.length) {
+            return decimals;
+        }
+        final BigDecimal[] stack = new BigDecimal[size];
+        if (size <= MAX_KEPT_SLOTS) {
+            decimals = stack;
+        }
+        return stack;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+package com.github.bgora.rpnlibrary;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Size bounded cache of compiled expressions, keyed by input String.
+ * <p>
+ * The cache is split into segments selected by key hash. Each segment is an access ordered LinkedHashMap,
+ * guarded by its own lock, and evicts its least recently used entry when full.
+ * Threads working on different segments don't block each other.
+ * Inputs are compiled outside of the lock, so two threads may compile the same input once each,
+ * but only one result is kept.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
+final class ExpressionCache {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates cache, that keeps at most maximumSize entries.
+     *
+     * @param maximumSize maximum number of entries
+     */
+    ExpressionCache(final int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive, but was " + maximumSize);
+        }
+        int count = 1;
+        while (count < MAX_SEGMENTS && count * 2 <= maximumSize) {
+            count <<= 1;
+        }
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(maximumSize / count + (i < maximumSize % count ? 1 : 0));
+        }
+        segmentMask = count - 1;
+    }
+
+    /**
+     * Returns cached expression, or compiles, and caches the input.
+     *
+     * @param input    input String
+     * @param compiler function compiling the input on a miss
+     * @return compiled expression
+     */
+    CompiledExpression get(final String input, final Function<String, CompiledExpression> compiler) {
+        final Segment segment = segmentFor(input);
+        CompiledExpression expression;
+        synchronized (segment) {
+            expression = segment.get(input);
+        }
+        if (expression != null) {
+            hits.increment();
+            return expression;
+        }
+        misses.increment();
+        final CompiledExpression compiled = compiler.apply(input);
+        synchronized (segment) {
+            expression = segment.putIfAbsent(input, compiled);
+        }
+        return expression != null ? expression : compiled;
+    }
+
+    /**
+     * Returns counters snapshot.
+     *
+     * @return CacheStats
+     */
+    CacheStats stats() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    private Segment segmentFor(final String input) {
+        final int hash = input.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & segmentMask];
+    }
+
+    private final class Segment extends LinkedHashMap<String, CompiledExpression> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        private Segment(final int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, CompiledExpression> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,426 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.exceptions.WrongArgumentException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single pass tokenizer, and Dijkstra's shunting-yard algorithm.
+ * <p>
+ * Works directly on the input characters, and emits typed RPN instructions into {@link RPNProgram}.
+ * Numbers may contain white spaces between digits (thousands separators, ex. "12 000").
+ * Comma separates function arguments. Characters are classified with a table for ASCII, operators are matched
+ * by the checker at the current position, so they may have more than one character (longest one wins).
+ * Leading "-", or "+" of an operand is treated as unary operator, which is executed as binary one with 0 as
+ * the first argument. It binds stronger than left associative operators, and weaker than right associative ones,
+ * so "-2^2" gives -4, and "2*-1" gives -2.
+ * <p>
+ * Instances keep parsing state, and are used for a single input only.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
+final class ExpressionCompiler {
+
+    private static final char COMMA = ',';
+    private static final String[] ASCII = new String[128];
+
+    private static final byte OTHER = 0;
+    private static final byte SPACE = 1;
+    private static final byte DIGIT = 2;
+    private static final byte LETTER = 3;
+    private static final byte[] CHAR_CLASSES = new byte[128];
+
+    private static final int BINARY = 0;
+    private static final int UNARY = 1;
+    private static final int BRACKET = 2;
+    private static final int CALL = 3;
+
+    static {
+        for (int i = 0; i < ASCII.length; i++) {
+            ASCII[i] = String.valueOf((char) i);
+            CHAR_CLASSES[i] = classify((char) i);
+        }
+    }
+
+    private final RPNChecker checker;
+    private final String input;
+
+    private byte[] kinds = new byte[16];
+    private int[] operands = new int[16];
+    private int size;
+    private final List<BigDecimal> constants = new ArrayList<>();
+    private final List<String> symbols = new ArrayList<>();
+    private final List<Integer> arities = new ArrayList<>();
+    private final List<String> variables = new ArrayList<>();
+    private final Map<BigDecimal, Integer> constantIndexes = new HashMap<>();
+    private final Map<String, Integer> symbolIndexes = new HashMap<>();
+    private final Map<String, Integer> variableSlots = new HashMap<>();
+
+    private int[] stackKinds = new int[8];
+    private int[] stackSymbols = new int[8];
+    private int[] stackArgs = new int[8];
+    private int top;
+
+    private ExpressionCompiler(final RPNChecker checker, final String input) {
+        this.checker = checker;
+        this.input = input;
+    }
+
+    /**
+     * Converts the input into RPN program.
+     *
+     * @param checker RPNChecker used to recognize operators, brackets, functions, and variables
+     * @param input   Input String in "Natural" format.
+     * @return RPNProgram
+     * @throws WrongArgumentException Thrown if the input is incorrect (Incorrect format, or
+     *                                unsupported operations)
+     */
+    static RPNProgram compile(final RPNChecker checker, final String input) throws WrongArgumentException {
+        return new ExpressionCompiler(checker, input).compile();
+    }
+
+    private RPNProgram compile() throws WrongArgumentException {
+        final int length = input.length();
+        boolean expectOperand = true;
+        boolean callOpened = false;
+        int pendingFunction = -1;
+        int i = 0;
+        while (i < length) {
+            final char c = input.charAt(i);
+            final int charClass = charClass(c);
+            if (charClass == SPACE) {
+                i++;
+                continue;
+            }
+            final boolean afterCallBracket = callOpened;
+            callOpened = false;
+            if (pendingFunction >= 0 && !checker.isLeftBracket(symbol(c))) {
+                throw new WrongArgumentException("Function \"" + symbols.get(pendingFunction)
+                        + "\" must be followed by bracket, at position " + i);
+            }
+            if (isNumberStart(c, i)) {
+                checkOperandExpected(expectOperand, i);
+                i = readNumber(i);
+                expectOperand = false;
+            } else if (charClass == LETTER) {
+                checkOperandExpected(expectOperand, i);
+                final int start = i;
+                while (i < length && charClass(input.charAt(i)) >= DIGIT) {
+                    i++;
+                }
+                final String function = checker.matchFunction(input, start, i);
+                if (function != null) {
+                    pendingFunction = symbolIndex(function, checker.getFunctionParamsCount(function));
+                } else {
+                    final String name = input.substring(start, i);
+                    if (!checker.isVariable(name)) {
+                        throw new WrongArgumentException("Element \"" + name + "\" is not recognized by the Checker");
+                    }
+                    emit(RPNProgram.VARIABLE, variableSlot(name));
+                    expectOperand = false;
+                }
+            } else {
+                final String symbol = symbol(c);
+                if (checker.isLeftBracket(symbol)) {
+                    checkOperandExpected(expectOperand, i);
+                    callOpened = pendingFunction >= 0;
+                    push(callOpened ? CALL : BRACKET, pendingFunction);
+                    pendingFunction = -1;
+                } else if (checker.isRightBracket(symbol)) {
+                    if (expectOperand && !afterCallBracket) {
+                        throw new WrongArgumentException("Missing operand before \")\", at position " + i);
+                    }
+                    closeBracket(afterCallBracket, i);
+                    expectOperand = false;
+                } else if (c == COMMA) {
+                    if (expectOperand) {
+                        throw new WrongArgumentException("Missing function argument, at position " + i);
+                    }
+                    separateArgument(i);
+                    expectOperand = true;
+                } else {
+                    final String operator = checker.matchOperator(input, i);
+                    if (operator == null) {
+                        throw new WrongArgumentException("Element \"" + c + "\" is not recognized by the Checker");
+                    }
+                    if (expectOperand) {
+                        pushUnaryOperator(operator, i);
+                    } else {
+                        pushOperator(operator);
+                        expectOperand = true;
+                    }
+                    i += operator.length() - 1;
+                }
+                i++;
+            }
+        }
+        if (pendingFunction >= 0) {
+            throw new WrongArgumentException("Function \"" + symbols.get(pendingFunction) + "\" must be followed by bracket");
+        }
+        if (size == 0 && top == 0) {
+            throw new WrongArgumentException("Expression is empty");
+        }
+        if (expectOperand) {
+            throw new WrongArgumentException("Unexpected end of expression");
+        }
+        while (top > 0) {
+            if (stackKinds[top - 1] >= BRACKET) {
+                throw new WrongArgumentException("Missing right bracket");
+            }
+            emit(RPNProgram.OPERATOR, stackSymbols[--top]);
+        }
+        return finish();
+    }
+
+    private void checkOperandExpected(final boolean expectOperand, final int position) throws WrongArgumentException {
+        if (!expectOperand) {
+            throw new WrongArgumentException("Missing operator, at position " + position);
+        }
+    }
+
+    private boolean isNumberStart(final char c, final int position) {
+        return charClass(c) == DIGIT
+                || (c == '.' && position + 1 < input.length() && charClass(input.charAt(position + 1)) == DIGIT);
+    }
+
+    /**
+     * Reads number starting at given position.
+     * White spaces followed by a digit are part of the number.
+     */
+    private int readNumber(final int start) throws WrongArgumentException {
+        final int length = input.length();
+        StringBuilder digits = null;
+        int i = start;
+        while (i < length) {
+            final char c = input.charAt(i);
+            final int charClass = charClass(c);
+            if (charClass == DIGIT || c == '.') {
+                if (digits != null) {
+                    digits.append(c);
+                }
+                i++;
+            } else if (charClass == SPACE) {
+                int next = i + 1;
+                while (next < length && charClass(input.charAt(next)) == SPACE) {
+                    next++;
+                }
+                if (next == length || charClass(input.charAt(next)) != DIGIT) {
+                    break;
+                }
+                if (digits == null) {
+                    digits = new StringBuilder().append(input, start, i);
+                }
+                i = next;
+            } else {
+                break;
+            }
+        }
+        final String text = digits != null ? digits.toString() : input.substring(start, i);
+        final BigDecimal value;
+        try {
+            value = new BigDecimal(text);
+        } catch (NumberFormatException e) {
+            throw new WrongArgumentException("Element \"" + text + "\" is not a number");
+        }
+        emit(RPNProgram.CONSTANT, constantIndex(value));
+        return i;
+    }
+
+    private void pushUnaryOperator(final String operator, final int position) throws WrongArgumentException {
+        if (!"-".equals(operator) && !"+".equals(operator)) {
+            throw new WrongArgumentException("Missing operand before \"" + operator + "\", at position " + position);
+        }
+        emit(RPNProgram.CONSTANT, constantIndex(BigDecimal.ZERO));
+        push(UNARY, symbolIndex(operator, 2));
+    }
+
+    private void pushOperator(final String operator) {
+        while (top > 0) {
+            final int kind = stackKinds[top - 1];
+            if (kind == UNARY) {
+                if (!checker.isLeftAssociativity(operator)) {
+                    break;
+                }
+            } else if (kind == BINARY) {
+                final String stackOperator = symbols.get(stackSymbols[top - 1]);
+                final boolean pop;
+                if (checker.isLeftAssociativity(stackOperator)) {
+                    pop = checker.compareOperators(stackOperator, operator) >= 0;
+                } else if (checker.isRightAssociativity(stackOperator)) {
+                    pop = checker.compareOperators(stackOperator, operator) > 0;
+                } else {
+                    pop = false;
+                }
+                if (!pop) {
+                    break;
+                }
+            } else {
+                break;
+            }
+            emit(RPNProgram.OPERATOR, stackSymbols[--top]);
+        }
+        push(BINARY, symbolIndex(operator, 2));
+    }
+
+    private void popOperators() {
+        while (top > 0 && stackKinds[top - 1] < BRACKET) {
+            emit(RPNProgram.OPERATOR, stackSymbols[--top]);
+        }
+    }
+
+    private void separateArgument(final int position) throws WrongArgumentException {
+        popOperators();
+        if (top == 0 || stackKinds[top - 1] != CALL) {
+            throw new WrongArgumentException("Element \"" + COMMA + "\" is used outside of function call, at position "
+                    + position);
+        }
+        stackArgs[top - 1]++;
+    }
+
+    private void closeBracket(final boolean noArguments, final int position) throws WrongArgumentException {
+        popOperators();
+        if (top == 0) {
+            throw new WrongArgumentException("Missing left bracket, for \")\" at position " + position);
+        }
+        top--;
+        if (stackKinds[top] == CALL) {
+            final int function = stackSymbols[top];
+            final int count = noArguments ? 0 : stackArgs[top] + 1;
+            if (count != arities.get(function)) {
+                throw new WrongArgumentException("Function \"" + symbols.get(function) + "\" takes "
+                        + arities.get(function) + " arguments, but got " + count);
+            }
+            emit(RPNProgram.FUNCTION, function);
+        }
+    }
+
+    private static byte classify(final char c) {
+        if (Character.isWhitespace(c)) {
+            return SPACE;
+        }
+        if (Character.isDigit(c)) {
+            return DIGIT;
+        }
+        return Character.isLetter(c) ? LETTER : OTHER;
+    }
+
+    /**
+     * Returns class of the character, from the table for ASCII characters.
+     */
+    private static int charClass(final char c) {
+        return c < CHAR_CLASSES.length ? CHAR_CLASSES[c] : classify(c);
+    }
+
+    private String symbol(final char c) {
+        return c < ASCII.length ? ASCII[c] : String.valueOf(c);
+    }
+
+    private int constantIndex(final BigDecimal value) {
+        final Integer index = constantIndexes.putIfAbsent(value, constants.size());
+        if (index != null) {
+            return index;
+        }
+        constants.add(value);
+        return constants.size() - 1;
+    }
+
+    /**
+     * Symbols are indexed by name, with the first arity they were used with. Same name with other arity,
+     * that is rare, is searched in the list.
+     */
+    private int symbolIndex(final String symbol, final int arity) {
+        final Integer index = symbolIndexes.putIfAbsent(symbol, symbols.size());
+        if (index != null) {
+            if (arities.get(index) == arity) {
+                return index;
+            }
+            for (int i = index + 1; i < symbols.size(); i++) {
+                if (symbols.get(i).equals(symbol) && arities.get(i) == arity) {
+                    return i;
+                }
+            }
+        }
+        symbols.add(symbol);
+        arities.add(arity);
+        return symbols.size() - 1;
+    }
+
+    private int variableSlot(final String name) {
+        final Integer slot = variableSlots.putIfAbsent(name, variables.size());
+        if (slot != null) {
+            return slot;
+        }
+        variables.add(name);
+        return variables.size() - 1;
+    }
+
+    private void emit(final byte kind, final int operand) {
+        if (size == kinds.length) {
+            kinds = Arrays.copyOf(kinds, size * 2);
+            operands = Arrays.copyOf(operands, size * 2);
+        }
+        kinds[size] = kind;
+        operands[size] = operand;
+        size++;
+    }
+
+    private void push(final int kind, final int symbol) {
+        if (top == stackKinds.length) {
+            stackKinds = Arrays.copyOf(stackKinds, top * 2);
+            stackSymbols = Arrays.copyOf(stackSymbols, top * 2);
+            stackArgs = Arrays.copyOf(stackArgs, top * 2);
+        }
+        stackKinds[top] = kind;
+        stackSymbols[top] = symbol;
+        stackArgs[top] = 0;
+        top++;
+    }
+
+    private RPNProgram finish() {
+        final int[] symbolArities = new int[arities.size()];
+        for (int i = 0; i < symbolArities.length; i++) {
+            symbolArities[i] = arities.get(i);
+        }
+        int depth = 0;
+        int maxStack = 0;
+        for (int i = 0; i < size; i++) {
+            switch (kinds[i]) {
+                case RPNProgram.CONSTANT:
+                case RPNProgram.VARIABLE:
+                    depth++;
+                    break;
+                default:
+                    depth -= symbolArities[operands[i]] - 1;
+                    break;
+            }
+            maxStack = Math.max(maxStack, depth);
+        }
+        return new RPNProgram(Arrays.copyOf(kinds, size), Arrays.copyOf(operands, size),
+                constants.toArray(new BigDecimal[0]), symbols.toArray(new String[0]), symbolArities,
+                variables.toArray(new String[0]), maxStack);
+    }
+}
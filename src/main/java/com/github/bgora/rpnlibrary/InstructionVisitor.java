@@ -0,0 +1,91 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.functions.AbstractFunctionStrategy;
+import com.github.bgora.rpnlibrary.operators.AbstractOperatorStrategy;
+
+import java.math.BigDecimal;
+
+/**
+ * Receives instructions of {@link CompiledExpression}, in Reverse Polish Notation order.
+ * <p>
+ * It is meant for evaluators outside of this library, for example vectorized ones. Instructions are the same,
+ * as the ones evaluated by {@link CompiledExpression#evaluate(BigDecimal...)}, after optimization, so they can contain
+ * temporary values: {@link #store(int)} copies the value on top of the stack, and {@link #load(int)} pushes it again.
+ * <p>
+ * Strategies are null, if the Calculator uses custom {@link RPNExecutioner}, that cannot return them.
+ * Built-in strategies are the ones created by {@link RPNExecutionerFactory}; their double methods use
+ * {@code java.lang.Math}, and {@code +}, {@code -}, {@code *}, {@code /} are IEEE 754 double operations.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ * @see CompiledExpression#accept(InstructionVisitor)
+ */
+public interface InstructionVisitor {
+
+    /**
+     * Pushes constant value.
+     *
+     * @param value       constant value
+     * @param doubleValue constant value used by double evaluation
+     */
+    void constant(BigDecimal value, double doubleValue);
+
+    /**
+     * Pushes variable value.
+     *
+     * @param slot variable slot index
+     */
+    void variable(int slot);
+
+    /**
+     * Replaces two values on top of the stack with the operator result.
+     *
+     * @param symbol   operator symbol
+     * @param strategy operator strategy, or null
+     * @param builtIn  true, if the strategy is the built-in one
+     */
+    void operator(String symbol, AbstractOperatorStrategy strategy, boolean builtIn);
+
+    /**
+     * Replaces arity values on top of the stack with the function result.
+     *
+     * @param name     function name
+     * @param arity    number of arguments
+     * @param strategy function strategy, or null
+     * @param builtIn  true, if the strategy is the built-in one
+     */
+    void function(String name, int arity, AbstractFunctionStrategy strategy, boolean builtIn);
+
+    /**
+     * Copies the value on top of the stack into temporary value.
+     *
+     * @param temp temporary value index
+     */
+    void store(int temp);
+
+    /**
+     * Pushes temporary value.
+     *
+     * @param temp temporary value index
+     */
+    void load(int temp);
+}
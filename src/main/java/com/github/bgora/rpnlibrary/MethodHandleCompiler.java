@@ -0,0 +1,219 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.exceptions.NoSuchFunctionFound;
+import com.github.bgora.rpnlibrary.exceptions.WrongArgumentException;
+import com.github.bgora.rpnlibrary.functions.AbstractFunctionStrategy;
+import com.github.bgora.rpnlibrary.operators.AbstractOperatorStrategy;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Compiles RPNProgram into a tree of MethodHandles.
+ * <p>
+ * RPN is evaluated once, on a stack of handles instead of values. Constants become constant handles,
+ * variables array element getters, and operators, and functions are strategy methods bound to the strategy,
+ * and MathContext, with operand handles as argument filters. Evaluation calls the root handle,
+ * so there is no lookup of strategies by symbol.
+ * <p>
+ * Handles form a tree, so common subexpressions stored by the program are evaluated at each use.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ * @see EvaluationBackend#METHOD_HANDLES
+ */
+final class MethodHandleCompiler {
+
+    /**
+     * Every level of the tree adds a few frames to the evaluation, so deeper trees are interpreted.
+     */
+    static final int MAX_PROGRAM_LENGTH = 512;
+
+    private static final MethodHandle OPERATOR;
+    private static final MethodHandle OPERATOR_DOUBLE;
+    private static final MethodHandle FUNCTION_1;
+    private static final MethodHandle FUNCTION_2;
+    private static final MethodHandle FUNCTION_N;
+    private static final MethodHandle FUNCTION_1_DOUBLE;
+    private static final MethodHandle FUNCTION_2_DOUBLE;
+    private static final MethodHandle FUNCTION_N_DOUBLE;
+    private static final MethodHandle VARIABLE = MethodHandles.arrayElementGetter(BigDecimal[].class);
+    private static final MethodHandle VARIABLE_DOUBLE = MethodHandles.arrayElementGetter(double[].class);
+
+    static {
+        final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        try {
+            OPERATOR = lookup.findVirtual(AbstractOperatorStrategy.class, "execute",
+                    MethodType.methodType(BigDecimal.class, BigDecimal.class, BigDecimal.class, MathContext.class));
+            OPERATOR_DOUBLE = lookup.findVirtual(AbstractOperatorStrategy.class, "execute",
+                    MethodType.methodType(double.class, double.class, double.class));
+            FUNCTION_1 = lookup.findVirtual(AbstractFunctionStrategy.class, "execute",
+                    MethodType.methodType(BigDecimal.class, MathContext.class, BigDecimal.class));
+            FUNCTION_2 = lookup.findVirtual(AbstractFunctionStrategy.class, "execute",
+                    MethodType.methodType(BigDecimal.class, MathContext.class, BigDecimal.class, BigDecimal.class));
+            FUNCTION_N = lookup.findVirtual(AbstractFunctionStrategy.class, "execute",
+                    MethodType.methodType(BigDecimal.class, MathContext.class, BigDecimal[].class));
+            FUNCTION_1_DOUBLE = lookup.findVirtual(AbstractFunctionStrategy.class, "execute",
+                    MethodType.methodType(double.class, double.class));
+            FUNCTION_2_DOUBLE = lookup.findVirtual(AbstractFunctionStrategy.class, "execute",
+                    MethodType.methodType(double.class, double.class, double.class));
+            FUNCTION_N_DOUBLE = lookup.findVirtual(AbstractFunctionStrategy.class, "execute",
+                    MethodType.methodType(double.class, double[].class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private MethodHandleCompiler() {
+    }
+
+    /**
+     * Compiles the program.
+     *
+     * @param program     typed RPN instructions
+     * @param executioner RPNExecutioner of the Calculator
+     * @param mathContext MathContext - Set Rounding Mode, and precision
+     * @return ProgramEvaluator, or null if the program cannot be compiled, and should be interpreted
+     */
+    static ProgramEvaluator compile(final RPNProgram program, final RPNExecutioner executioner,
+                                    final MathContext mathContext) {
+        if (!(executioner instanceof DefaultRPNExecutioner) || program.length() > MAX_PROGRAM_LENGTH) {
+            return null;
+        }
+        final Object[] strategies = ((DefaultRPNExecutioner) executioner).resolveStrategies(program);
+        if (strategies == null) {
+            return null;
+        }
+        return new Evaluator(build(program, strategies, mathContext, false), build(program, strategies, mathContext, true));
+    }
+
+    /**
+     * Builds handle of type (BigDecimal[])BigDecimal, or (double[])double.
+     */
+    private static MethodHandle build(final RPNProgram program, final Object[] strategies,
+                                      final MathContext mathContext, final boolean doubles) {
+        final Class<?> valueType = doubles ? double.class : BigDecimal.class;
+        final Class<?> valuesType = doubles ? double[].class : BigDecimal[].class;
+        final MethodHandle[] stack = new MethodHandle[program.maxStack];
+        final MethodHandle[] temps = new MethodHandle[program.temps];
+        int top = 0;
+        for (int i = 0; i < program.length(); i++) {
+            final int operand = program.operands[i];
+            switch (program.kinds[i]) {
+                case RPNProgram.CONSTANT:
+                    final Object constant = doubles ? (Object) program.doubleConstants[operand] : program.constants[operand];
+                    stack[top++] = MethodHandles.dropArguments(MethodHandles.constant(valueType, constant), 0, valuesType);
+                    break;
+                case RPNProgram.VARIABLE:
+                    stack[top++] = MethodHandles.insertArguments(doubles ? VARIABLE_DOUBLE : VARIABLE, 1, operand);
+                    break;
+                case RPNProgram.STORE:
+                    temps[operand] = stack[top - 1];
+                    break;
+                case RPNProgram.LOAD:
+                    stack[top++] = temps[operand];
+                    break;
+                case RPNProgram.OPERATOR:
+                    MethodHandle operator = (doubles ? OPERATOR_DOUBLE : OPERATOR).bindTo(strategies[operand]);
+                    if (!doubles) {
+                        operator = MethodHandles.insertArguments(operator, 2, mathContext);
+                    }
+                    top -= 2;
+                    stack[top] = combine(operator, valuesType, stack, top, 2);
+                    top++;
+                    break;
+                default:
+                    final int arity = program.arities[operand];
+                    MethodHandle function;
+                    if (arity == 1) {
+                        function = doubles ? FUNCTION_1_DOUBLE : FUNCTION_1;
+                    } else if (arity == 2) {
+                        function = doubles ? FUNCTION_2_DOUBLE : FUNCTION_2;
+                    } else {
+                        function = (doubles ? FUNCTION_N_DOUBLE : FUNCTION_N).asCollector(valuesType, arity);
+                    }
+                    function = function.bindTo(strategies[operand]);
+                    if (!doubles) {
+                        function = MethodHandles.insertArguments(function, 0, mathContext);
+                    }
+                    top -= arity;
+                    stack[top] = combine(function, valuesType, stack, top, arity);
+                    top++;
+                    break;
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Filters each argument of target with an operand handle, and passes the same values array to all of them.
+     */
+    private static MethodHandle combine(final MethodHandle target, final Class<?> valuesType,
+                                        final MethodHandle[] stack, final int first, final int count) {
+        if (count == 0) {
+            return MethodHandles.dropArguments(target, 0, valuesType);
+        }
+        final MethodHandle[] operands = new MethodHandle[count];
+        System.arraycopy(stack, first, operands, 0, count);
+        final MethodHandle filtered = MethodHandles.filterArguments(target, 0, operands);
+        return MethodHandles.permuteArguments(filtered, MethodType.methodType(target.type().returnType(), valuesType),
+                new int[count]);
+    }
+
+    /**
+     * Evaluates with root handles of the tree.
+     */
+    private static final class Evaluator implements ProgramEvaluator {
+
+        private final MethodHandle evaluate;
+        private final MethodHandle evaluateDouble;
+
+        private Evaluator(final MethodHandle evaluate, final MethodHandle evaluateDouble) {
+            this.evaluate = evaluate;
+            this.evaluateDouble = evaluateDouble;
+        }
+
+        @Override
+        public BigDecimal evaluate(final BigDecimal[] values) throws WrongArgumentException, NoSuchFunctionFound {
+            try {
+                return (BigDecimal) evaluate.invokeExact(values);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public double evaluateDouble(final double[] values) throws WrongArgumentException, NoSuchFunctionFound {
+            try {
+                return (double) evaluateDouble.invokeExact(values);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.exceptions.NoSuchFunctionFound;
+import com.github.bgora.rpnlibrary.exceptions.RPNException;
+import com.github.bgora.rpnlibrary.exceptions.WrongArgumentException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluates many inputs in parallel, with one shared {@link Calculator}.
+ * <p>
+ * Inputs are split into chunks of {@link #getChunkSize()} inputs, or rows, and chunks are evaluated by the executor.
+ * With {@link ForkJoinPool} (the default is {@link ForkJoinPool#commonPool()}) ranges are split recursively,
+ * so idle workers steal the remaining chunks. Other executors get one task for each chunk.
+ * Each result is written at the index of its input, so the output order doesn't depend on scheduling.
+ * Worker threads reuse their evaluation stacks between inputs, and chunks.
+ * <pre>
+ *     ParallelEvaluator parallel = ParallelEvaluator.create(Calculator.createCalculator(10_000));
+ *     BigDecimal[] results = parallel.calculateAll(inputs);
+ * </pre>
+ * If any input fails, its exception is thrown, and the results are discarded.
+ * Instances are immutable, and can be shared between threads.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
+public final class ParallelEvaluator {
+
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private static final ThreadLocal<EvaluationStacks> STACKS = ThreadLocal.withInitial(EvaluationStacks::new);
+
+    private final Calculator calculator;
+    private final Executor executor;
+    private final int chunkSize;
+
+    private ParallelEvaluator(final Calculator calculator, final Executor executor, final int chunkSize) {
+        this.calculator = calculator;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Creates ParallelEvaluator, that uses {@link ForkJoinPool#commonPool()}, and {@link #DEFAULT_CHUNK_SIZE}.
+     *
+     * @param calculator Calculator used for String inputs
+     * @return ParallelEvaluator
+     */
+    public static ParallelEvaluator create(final Calculator calculator) {
+        return create(calculator, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates ParallelEvaluator.
+     *
+     * @param calculator Calculator used for String inputs
+     * @param executor   executor for chunks, ForkJoinPool, or any other Executor
+     * @param chunkSize  number of inputs, or rows evaluated by one task
+     * @return ParallelEvaluator
+     * @throws IllegalArgumentException if chunkSize is not positive
+     */
+    public static ParallelEvaluator create(final Calculator calculator, final Executor executor, final int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        return new ParallelEvaluator(Objects.requireNonNull(calculator, "calculator"),
+                Objects.requireNonNull(executor, "executor"), chunkSize);
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Calculates each input, like {@link Calculator#calculate(String)}.
+     *
+     * @param inputs expressions to calculate
+     * @return results, in order of inputs
+     * @throws WrongArgumentException if any input is incorrect.
+     * @throws NoSuchFunctionFound    if the executioner cannot find a function.
+     */
+    public BigDecimal[] calculateAll(final String... inputs) throws WrongArgumentException, NoSuchFunctionFound {
+        final BigDecimal[] result = new BigDecimal[inputs.length];
+        run(inputs.length, (from, to) -> {
+            // taken from the thread, so a nested calculateAll on this thread gets its own stacks
+            final EvaluationStacks stacks = STACKS.get();
+            STACKS.remove();
+            try {
+                for (int i = from; i < to; i++) {
+                    result[i] = calculator.calculate(inputs[i], stacks);
+                }
+            } finally {
+                STACKS.set(stacks);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Calculates each input, like {@link Calculator#calculate(String)}.
+     *
+     * @param inputs expressions to calculate
+     * @return unmodifiable list of results, in order of inputs
+     * @throws WrongArgumentException if any input is incorrect.
+     * @throws NoSuchFunctionFound    if the executioner cannot find a function.
+     */
+    public List<BigDecimal> calculateAll(final List<String> inputs) throws WrongArgumentException, NoSuchFunctionFound {
+        return List.of(calculateAll(inputs.toArray(new String[0])));
+    }
+
+    /**
+     * Evaluates the expression for each row of columns, like {@link CompiledExpression#evaluateBatch(Columns, double[])}.
+     *
+     * @param expression CompiledExpression, it doesn't have to be compiled by the Calculator of this evaluator
+     * @param columns    variable values, created by {@link CompiledExpression#newColumns(int)}
+     * @param result     array for results, one for each row
+     * @throws WrongArgumentException if there is something wrong with the input, or columns are not set.
+     * @throws NoSuchFunctionFound    if the executioner cannot find a function.
+     */
+    public void evaluateBatch(final CompiledExpression expression, final Columns columns, final double[] result)
+            throws WrongArgumentException, NoSuchFunctionFound {
+        expression.checkColumns(columns, result.length);
+        run(columns.getRows(), (from, to) -> expression.evaluateRows(columns, from, to, result));
+    }
+
+    /**
+     * Evaluates the expression for each row of columns, like {@link CompiledExpression#evaluateBatch(Columns, BigDecimal[])}.
+     *
+     * @param expression CompiledExpression, it doesn't have to be compiled by the Calculator of this evaluator
+     * @param columns    variable values, created by {@link CompiledExpression#newColumns(int)}
+     * @param result     array for results, one for each row
+     * @throws WrongArgumentException if there is something wrong with the input, or columns are not set.
+     * @throws NoSuchFunctionFound    if the executioner cannot find a function.
+     */
+    public void evaluateBatch(final CompiledExpression expression, final Columns columns, final BigDecimal[] result)
+            throws WrongArgumentException, NoSuchFunctionFound {
+        expression.checkColumns(columns, result.length);
+        run(columns.getRows(), (from, to) -> expression.evaluateRows(columns, from, to, result));
+    }
+
+    private void run(final int length, final RangeTask task) {
+        if (length <= chunkSize) {
+            task.run(0, length);
+        } else if (executor instanceof ForkJoinPool) {
+            ((ForkJoinPool) executor).invoke(new RangeAction(task, 0, length, chunkSize));
+        } else {
+            final List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int from = 0; from < length; from += chunkSize) {
+                final int start = from;
+                final int end = Math.min(from + chunkSize, length);
+                futures.add(CompletableFuture.runAsync(() -> task.run(start, end), executor));
+            }
+            try {
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            }
+        }
+    }
+
+    private static RuntimeException unwrap(final CompletionException exception) {
+        final Throwable cause = exception.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return exception;
+    }
+
+    /**
+     * Evaluates inputs from (inclusive) to (exclusive).
+     */
+    @FunctionalInterface
+    private interface RangeTask {
+        void run(int from, int to) throws RPNException;
+    }
+
+    /**
+     * Splits the range in halves, until it is not longer than the chunk size.
+     */
+    private static final class RangeAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient RangeTask task;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        RangeAction(final RangeTask task, final int from, final int to, final int chunkSize) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                task.run(from, to);
+                return;
+            }
+            final int middle = from + (to - from) / 2;
+            invokeAll(new RangeAction(task, from, middle, chunkSize), new RangeAction(task, middle, to, chunkSize));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.exceptions.NoSuchFunctionFound;
+import com.github.bgora.rpnlibrary.exceptions.WrongArgumentException;
+
+import java.math.BigDecimal;
+
+/**
+ * Evaluates one RPNProgram.
+ * <p>
+ * Values are already checked against program variables, and results are not rounded to the Calculator scale.
+ * Implementations are immutable, and can be shared between threads.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ * @see EvaluationBackend
+ */
+interface ProgramEvaluator {
+
+    /**
+     * Evaluates the program with BigDecimal values.
+     *
+     * @param values variable values, indexed by slot
+     * @return unscaled result
+     * @throws WrongArgumentException if there is something wrong with the input.
+     * @throws NoSuchFunctionFound    if the executioner cannot find a function.
+     */
+    BigDecimal evaluate(BigDecimal[] values) throws WrongArgumentException, NoSuchFunctionFound;
+
+    /**
+     * Evaluates the program with primitive doubles.
+     *
+     * @param values variable values, indexed by slot
+     * @return result
+     * @throws WrongArgumentException if there is something wrong with the input.
+     * @throws NoSuchFunctionFound    if the executioner cannot find a function.
+     */
+    double evaluateDouble(double[] values) throws WrongArgumentException, NoSuchFunctionFound;
+}
@@ -0,0 +1,268 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.exceptions.NoSuchFunctionFound;
+import com.github.bgora.rpnlibrary.exceptions.WrongArgumentException;
+import com.github.bgora.rpnlibrary.functions.AbstractFunctionStrategy;
+import com.github.bgora.rpnlibrary.operators.AbstractOperatorStrategy;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Evaluates RPNProgram in a loop over its instructions, calling the executioner for operators, and functions.
+ * <p>
+ * With {@link DefaultRPNExecutioner} strategies are resolved once, when the interpreter is created, and
+ * the loop takes them from an array indexed by symbol, without looking symbols up on each call.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ * @see EvaluationBackend#INTERPRETER
+ */
+final class ProgramInterpreter implements ProgramEvaluator {
+
+    private final RPNProgram program;
+    private final RPNExecutioner executioner;
+    private final MathContext mathContext;
+    private final boolean interruptible;
+    private final Object[] strategies;
+
+    /**
+     * Constructor.
+     *
+     * @param program       typed RPN instructions
+     * @param executioner   RPNExecutioner
+     * @param mathContext   MathContext - Set Rounding Mode, and precision
+     * @param interruptible if true, evaluation throws CancellationException, when the thread is interrupted
+     */
+    ProgramInterpreter(final RPNProgram program, final RPNExecutioner executioner, final MathContext mathContext,
+                       final boolean interruptible) {
+        this.program = program;
+        this.executioner = executioner;
+        this.mathContext = mathContext;
+        this.interruptible = interruptible;
+        this.strategies = executioner instanceof DefaultRPNExecutioner
+                ? ((DefaultRPNExecutioner) executioner).resolveStrategies(program) : null;
+    }
+
+    /**
+     * Evaluation loop.
+     * The stack is an array sized at compile time, followed by temporary values. It keeps BigDecimal values,
+     * so nothing is parsed, or formatted between operations.
+     */
+    @Override
+    public BigDecimal evaluate(final BigDecimal[] values) throws WrongArgumentException, NoSuchFunctionFound {
+        return run(values, new BigDecimal[stackSize()]);
+    }
+
+    /**
+     * Evaluates with the given stack, at least {@link #stackSize()} long, so callers evaluating many expressions
+     * on one thread can reuse it. Slots used by the program are cleared before returning.
+     */
+    BigDecimal evaluate(final BigDecimal[] values, final BigDecimal[] stack)
+            throws WrongArgumentException, NoSuchFunctionFound {
+        try {
+            return run(values, stack);
+        } finally {
+            Arrays.fill(stack, 0, stackSize(), null);
+        }
+    }
+
+    private BigDecimal run(final BigDecimal[] values, final BigDecimal[] stack)
+            throws WrongArgumentException, NoSuchFunctionFound {
+        final byte[] kinds = program.kinds;
+        final int[] operands = program.operands;
+        int top = 0;
+        for (int i = 0; i < kinds.length; i++) {
+            final int operand = operands[i];
+            switch (kinds[i]) {
+                case RPNProgram.CONSTANT:
+                    stack[top++] = program.constants[operand];
+                    break;
+                case RPNProgram.VARIABLE:
+                    stack[top++] = values[operand];
+                    break;
+                case RPNProgram.STORE:
+                    stack[program.maxStack + operand] = stack[top - 1];
+                    break;
+                case RPNProgram.LOAD:
+                    stack[top++] = stack[program.maxStack + operand];
+                    break;
+                case RPNProgram.OPERATOR:
+                    checkInterrupted();
+                    top--;
+                    stack[top - 1] = operator(operand, stack[top - 1], stack[top]);
+                    break;
+                default:
+                    checkInterrupted();
+                    final int arity = program.arities[operand];
+                    if (arity == 1) {
+                        stack[top - 1] = function(operand, stack[top - 1]);
+                    } else if (arity == 2) {
+                        top--;
+                        stack[top - 1] = function(operand, stack[top - 1], stack[top]);
+                    } else {
+                        final BigDecimal[] arguments = Arrays.copyOfRange(stack, top - arity, top);
+                        top -= arity;
+                        stack[top++] = function(operand, arguments);
+                    }
+                    break;
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Evaluation loop for doubles.
+     * The only allocation is the stack array, with temporary values at its end, unless the caller gives one.
+     */
+    @Override
+    public double evaluateDouble(final double[] values) throws WrongArgumentException, NoSuchFunctionFound {
+        return evaluateDouble(values, new double[stackSize()]);
+    }
+
+    /**
+     * Evaluates with the given stack, at least {@link #stackSize()} long.
+     */
+    double evaluateDouble(final double[] values, final double[] stack) throws WrongArgumentException, NoSuchFunctionFound {
+        final byte[] kinds = program.kinds;
+        final int[] operands = program.operands;
+        int top = 0;
+        for (int i = 0; i < kinds.length; i++) {
+            final int operand = operands[i];
+            switch (kinds[i]) {
+                case RPNProgram.CONSTANT:
+                    stack[top++] = program.doubleConstants[operand];
+                    break;
+                case RPNProgram.VARIABLE:
+                    stack[top++] = values[operand];
+                    break;
+                case RPNProgram.STORE:
+                    stack[program.maxStack + operand] = stack[top - 1];
+                    break;
+                case RPNProgram.LOAD:
+                    stack[top++] = stack[program.maxStack + operand];
+                    break;
+                case RPNProgram.OPERATOR:
+                    checkInterrupted();
+                    top--;
+                    stack[top - 1] = operator(operand, stack[top - 1], stack[top]);
+                    break;
+                default:
+                    checkInterrupted();
+                    final int arity = program.arities[operand];
+                    if (arity == 1) {
+                        stack[top - 1] = function(operand, stack[top - 1]);
+                    } else if (arity == 2) {
+                        top--;
+                        stack[top - 1] = function(operand, stack[top - 1], stack[top]);
+                    } else {
+                        final double[] arguments = Arrays.copyOfRange(stack, top - arity, top);
+                        top -= arity;
+                        stack[top++] = function(operand, arguments);
+                    }
+                    break;
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Creates BatchEvaluator for the same program, that shares strategies resolved by this interpreter.
+     */
+    BatchEvaluator batchEvaluator() {
+        return new BatchEvaluator(program, executioner, mathContext, strategies);
+    }
+
+    /**
+     * Number of stack slots, including temporary values.
+     */
+    int stackSize() {
+        return program.maxStack + program.temps;
+    }
+
+    private BigDecimal operator(final int symbol, final BigDecimal first, final BigDecimal second) {
+        if (strategies != null) {
+            return ((AbstractOperatorStrategy) strategies[symbol]).execute(first, second, mathContext);
+        }
+        return executioner.executeOperator(program.symbols[symbol], mathContext, first, second);
+    }
+
+    private BigDecimal function(final int symbol, final BigDecimal argument) {
+        if (strategies != null) {
+            return ((AbstractFunctionStrategy) strategies[symbol]).execute(mathContext, argument);
+        }
+        return executioner.executeFunction(program.symbols[symbol], mathContext, argument);
+    }
+
+    private BigDecimal function(final int symbol, final BigDecimal first, final BigDecimal second) {
+        if (strategies != null) {
+            return ((AbstractFunctionStrategy) strategies[symbol]).execute(mathContext, first, second);
+        }
+        return executioner.executeFunction(program.symbols[symbol], mathContext, first, second);
+    }
+
+    private BigDecimal function(final int symbol, final BigDecimal[] arguments) {
+        if (strategies != null) {
+            return ((AbstractFunctionStrategy) strategies[symbol]).execute(mathContext, arguments);
+        }
+        return executioner.executeFunction(program.symbols[symbol], mathContext, arguments);
+    }
+
+    private double operator(final int symbol, final double first, final double second) {
+        if (strategies != null) {
+            return ((AbstractOperatorStrategy) strategies[symbol]).execute(first, second);
+        }
+        return executioner.executeOperator(program.symbols[symbol], first, second);
+    }
+
+    private double function(final int symbol, final double argument) {
+        if (strategies != null) {
+            return ((AbstractFunctionStrategy) strategies[symbol]).execute(argument);
+        }
+        return executioner.executeFunction(program.symbols[symbol], argument);
+    }
+
+    private double function(final int symbol, final double first, final double second) {
+        if (strategies != null) {
+            return ((AbstractFunctionStrategy) strategies[symbol]).execute(first, second);
+        }
+        return executioner.executeFunction(program.symbols[symbol], first, second);
+    }
+
+    private double function(final int symbol, final double[] arguments) {
+        if (strategies != null) {
+            return ((AbstractFunctionStrategy) strategies[symbol]).execute(arguments);
+        }
+        return executioner.executeFunction(program.symbols[symbol], arguments);
+    }
+
+    /**
+     * Checks the interrupt flag before each operator, and function. The flag is not cleared, so the code that
+     * interrupted the thread can still see it.
+     */
+    private void checkInterrupted() {
+        if (interruptible && Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Evaluation was interrupted");
+        }
+    }
+}
@@ -0,0 +1,404 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.functions.AbstractFunctionStrategy;
+import com.github.bgora.rpnlibrary.functions.DefaultFunctionProvider;
+import com.github.bgora.rpnlibrary.operators.AbstractOperatorStrategy;
+import com.github.bgora.rpnlibrary.operators.DefaultOperatorsProvider;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Simplifies RPNProgram, without changing its results.
+ * <p>
+ * Pure operators, and functions (see {@link AbstractOperatorStrategy#isPure()}) with constant arguments are
+ * calculated once, with the same strategy methods, and MathContext as evaluation would use. Folded constants keep
+ * both BigDecimal, and double result, so both evaluations return exactly what they returned before.
+ * <p>
+ * If the program uses only built-in strategies, identities {@code x*1}, {@code 1*x}, {@code x/1}, {@code x^1},
+ * and {@code x-0} are replaced with {@code x}. Built-in operators round their arguments with MathContext, so
+ * {@code x*1} equals {@code x} only if x is already rounded, for example it is a result of multiplication.
+ * {@code x+0} is kept: double {@code -0.0+0} is {@code 0.0}.
+ * <p>
+ * Structurally identical subtrees of pure strategies are merged, so the expression becomes a DAG.
+ * Subtrees used more than once are evaluated once, stored (STORE), and loaded again (LOAD) at other uses.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
+final class ProgramOptimizer {
+
+    private static final Map<String, Class<?>> BUILT_IN_OPERATORS = classes(new DefaultOperatorsProvider().getOperators());
+    private static final Map<String, Class<?>> BUILT_IN_FUNCTIONS = classes(new DefaultFunctionProvider().getFunctions());
+    private static final Set<String> ROUNDED_RESULTS = Set.of("*", "/", "^", "sin", "cos", "tg", "ctg");
+    private static final Set<String> ARGUMENT_RESULTS = Set.of("max", "min");
+
+    private final RPNProgram program;
+    private final Object[] strategies;
+    private final MathContext mathContext;
+    private final boolean builtInsOnly;
+    private final Map<Node, Node> nodes = new HashMap<>();
+    private boolean changed;
+
+    private ProgramOptimizer(final RPNProgram program, final Object[] strategies, final MathContext mathContext) {
+        this.program = program;
+        this.strategies = strategies;
+        this.mathContext = mathContext;
+        boolean builtIns = true;
+        for (int i = 0; i < strategies.length; i++) {
+            builtIns &= isBuiltIn(i);
+        }
+        this.builtInsOnly = builtIns;
+    }
+
+    /**
+     * Optimizes the program.
+     *
+     * @param program     typed RPN instructions
+     * @param executioner RPNExecutioner of the Calculator
+     * @param mathContext MathContext - Set Rounding Mode, and precision
+     * @return optimized program, or the same program, if nothing can be simplified
+     */
+    static RPNProgram optimize(final RPNProgram program, final RPNExecutioner executioner, final MathContext mathContext) {
+        if (!(executioner instanceof DefaultRPNExecutioner)) {
+            return program;
+        }
+        final Object[] strategies = ((DefaultRPNExecutioner) executioner).resolveStrategies(program);
+        if (strategies == null) {
+            return program;
+        }
+        return new ProgramOptimizer(program, strategies, mathContext).optimize();
+    }
+
+    private RPNProgram optimize() {
+        final Node[] stack = new Node[program.maxStack];
+        int top = 0;
+        for (int i = 0; i < program.length(); i++) {
+            final int operand = program.operands[i];
+            switch (program.kinds[i]) {
+                case RPNProgram.CONSTANT:
+                    stack[top++] = constant(program.constants[operand], program.doubleConstants[operand]);
+                    break;
+                case RPNProgram.VARIABLE:
+                    stack[top++] = intern(new Node(RPNProgram.VARIABLE, operand, null, mathContext.getPrecision() == 0));
+                    break;
+                default:
+                    final int arity = program.kinds[i] == RPNProgram.OPERATOR ? 2 : program.arities[operand];
+                    final Node[] arguments = new Node[arity];
+                    top -= arity;
+                    System.arraycopy(stack, top, arguments, 0, arity);
+                    stack[top++] = call(program.kinds[i], operand, arguments);
+                    break;
+            }
+        }
+        final int temps = share(stack[0]);
+        return changed || temps > 0 ? emit(stack[0], temps) : program;
+    }
+
+    /**
+     * Counts uses of each node, and gives temporary values to calls used more than once.
+     *
+     * @return number of temporary values
+     */
+    private int share(final Node root) {
+        final Deque<Node> pending = new ArrayDeque<>();
+        final List<Node> calls = new ArrayList<>();
+        pending.push(root);
+        root.uses = 1;
+        while (!pending.isEmpty()) {
+            final Node node = pending.pop();
+            if (node.arguments == null) {
+                continue;
+            }
+            calls.add(node);
+            for (Node argument : node.arguments) {
+                if (argument.uses++ == 0) {
+                    pending.push(argument);
+                }
+            }
+        }
+        int temps = 0;
+        for (Node call : calls) {
+            if (call.uses > 1) {
+                call.temp = temps++;
+            }
+        }
+        return temps;
+    }
+
+    private Node call(final byte kind, final int symbol, final Node[] arguments) {
+        final Node folded = fold(kind, symbol, arguments);
+        if (folded != null) {
+            changed = true;
+            return folded;
+        }
+        final Node identity = builtInsOnly && kind == RPNProgram.OPERATOR ? identity(symbol, arguments) : null;
+        if (identity != null) {
+            changed = true;
+            return identity;
+        }
+        boolean rounded = mathContext.getPrecision() == 0 || ROUNDED_RESULTS.contains(program.symbols[symbol]);
+        if (!rounded && ARGUMENT_RESULTS.contains(program.symbols[symbol])) {
+            rounded = true;
+            for (Node argument : arguments) {
+                rounded &= argument.rounded;
+            }
+        }
+        final Node node = new Node(kind, symbol, arguments, rounded && builtInsOnly);
+        return isPure(symbol) ? intern(node) : node;
+    }
+
+    private Node intern(final Node node) {
+        final Node existing = nodes.putIfAbsent(node, node);
+        return existing != null ? existing : node;
+    }
+
+    private boolean isPure(final int symbol) {
+        final Object strategy = strategies[symbol];
+        return strategy instanceof AbstractOperatorStrategy
+                ? ((AbstractOperatorStrategy) strategy).isPure()
+                : ((AbstractFunctionStrategy) strategy).isPure();
+    }
+
+    private Node fold(final byte kind, final int symbol, final Node[] arguments) {
+        if (!isPure(symbol)) {
+            return null;
+        }
+        final BigDecimal[] values = new BigDecimal[arguments.length];
+        final double[] doubleValues = new double[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            if (arguments[i].kind != RPNProgram.CONSTANT) {
+                return null;
+            }
+            values[i] = arguments[i].value;
+            doubleValues[i] = arguments[i].doubleValue;
+        }
+        try {
+            if (kind == RPNProgram.OPERATOR) {
+                final AbstractOperatorStrategy operator = (AbstractOperatorStrategy) strategies[symbol];
+                return constant(operator.execute(values[0], values[1], mathContext),
+                        operator.execute(doubleValues[0], doubleValues[1]));
+            }
+            final AbstractFunctionStrategy function = (AbstractFunctionStrategy) strategies[symbol];
+            if (arguments.length == 1) {
+                return constant(function.execute(mathContext, values[0]), function.execute(doubleValues[0]));
+            } else if (arguments.length == 2) {
+                return constant(function.execute(mathContext, values[0], values[1]),
+                        function.execute(doubleValues[0], doubleValues[1]));
+            }
+            return constant(function.execute(mathContext, values), function.execute(doubleValues));
+        } catch (CancellationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // evaluation throws the same exception
+            return null;
+        }
+    }
+
+    private Node identity(final int symbol, final Node[] arguments) {
+        final Node first = arguments[0];
+        final Node second = arguments[1];
+        switch (program.symbols[symbol]) {
+            case "*":
+                if (isOne(second) && first.rounded) {
+                    return first;
+                }
+                return isOne(first) && second.rounded ? second : null;
+            case "/":
+            case "^":
+                return isOne(second) && first.rounded ? first : null;
+            case "-":
+                return isZero(second) ? first : null;
+            default:
+                return null;
+        }
+    }
+
+    private RPNProgram emit(final Node root, final int temps) {
+        final List<Byte> kinds = new ArrayList<>();
+        final List<Integer> operands = new ArrayList<>();
+        final List<BigDecimal> constants = new ArrayList<>();
+        final List<Double> doubleConstants = new ArrayList<>();
+        final List<Node> pending = new ArrayList<>();
+        final List<Integer> nextArgument = new ArrayList<>();
+        pending.add(root);
+        nextArgument.add(0);
+        int depth = 0;
+        int maxStack = 0;
+        while (!pending.isEmpty()) {
+            final int last = pending.size() - 1;
+            final Node node = pending.get(last);
+            final int argument = nextArgument.get(last);
+            if (node.arguments != null && argument < node.arguments.length) {
+                nextArgument.set(last, argument + 1);
+                final Node next = node.arguments[argument];
+                if (next.stored) {
+                    kinds.add(RPNProgram.LOAD);
+                    operands.add(next.temp);
+                    depth++;
+                    maxStack = Math.max(maxStack, depth);
+                } else {
+                    pending.add(next);
+                    nextArgument.add(0);
+                }
+                continue;
+            }
+            pending.remove(last);
+            nextArgument.remove(last);
+            kinds.add(node.kind);
+            if (node.kind == RPNProgram.CONSTANT) {
+                operands.add(constants.size());
+                constants.add(node.value);
+                doubleConstants.add(node.doubleValue);
+            } else {
+                operands.add(node.operand);
+            }
+            depth += 1 - (node.arguments != null ? node.arguments.length : 0);
+            maxStack = Math.max(maxStack, depth);
+            if (node.temp >= 0) {
+                kinds.add(RPNProgram.STORE);
+                operands.add(node.temp);
+                node.stored = true;
+            }
+        }
+        final byte[] kindArray = new byte[kinds.size()];
+        final int[] operandArray = new int[kinds.size()];
+        for (int i = 0; i < kindArray.length; i++) {
+            kindArray[i] = kinds.get(i);
+            operandArray[i] = operands.get(i);
+        }
+        final double[] doubleArray = new double[doubleConstants.size()];
+        for (int i = 0; i < doubleArray.length; i++) {
+            doubleArray[i] = doubleConstants.get(i);
+        }
+        return new RPNProgram(kindArray, operandArray, constants.toArray(new BigDecimal[0]), doubleArray,
+                program.symbols, program.arities, program.variables, maxStack, temps);
+    }
+
+    private Node constant(final BigDecimal value, final double doubleValue) {
+        final Node node = new Node(RPNProgram.CONSTANT, -1, null, value.compareTo(value.round(mathContext)) == 0);
+        node.value = value;
+        node.doubleValue = doubleValue;
+        return intern(node);
+    }
+
+    private boolean isBuiltIn(final int symbol) {
+        return strategies[symbol] == null || isBuiltIn(program.symbols[symbol], strategies[symbol]);
+    }
+
+    /**
+     * Checks, if the strategy is the built-in one for the symbol.
+     *
+     * @param symbol   operator, or function name
+     * @param strategy AbstractOperatorStrategy, or AbstractFunctionStrategy
+     * @return true, if the strategy has the class of the built-in strategy
+     */
+    static boolean isBuiltIn(final String symbol, final Object strategy) {
+        final Map<String, Class<?>> builtIns = strategy instanceof AbstractOperatorStrategy
+                ? BUILT_IN_OPERATORS : BUILT_IN_FUNCTIONS;
+        return builtIns.get(symbol) == strategy.getClass();
+    }
+
+    private static boolean isOne(final Node node) {
+        return node.kind == RPNProgram.CONSTANT && node.value.compareTo(BigDecimal.ONE) == 0 && node.doubleValue == 1.0;
+    }
+
+    private static boolean isZero(final Node node) {
+        return node.kind == RPNProgram.CONSTANT && node.value.signum() == 0
+                && Double.doubleToRawLongBits(node.doubleValue) == 0L;
+    }
+
+    private static Map<String, Class<?>> classes(final Map<String, ?> strategies) {
+        final Map<String, Class<?>> result = new HashMap<>();
+        strategies.forEach((symbol, strategy) -> result.put(symbol, strategy.getClass()));
+        return result;
+    }
+
+    /**
+     * Expression tree node. Rounded nodes have values, that don't change when rounded with MathContext.
+     * Nodes are equal, if they have the same instruction, and the same argument nodes.
+     */
+    private static final class Node {
+
+        private final byte kind;
+        private final int operand;
+        private final Node[] arguments;
+        private final boolean rounded;
+        private BigDecimal value;
+        private double doubleValue;
+        private int uses;
+        private int temp = -1;
+        private boolean stored;
+
+        private Node(final byte kind, final int operand, final Node[] arguments, final boolean rounded) {
+            this.kind = kind;
+            this.operand = operand;
+            this.arguments = arguments;
+            this.rounded = rounded;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Node)) return false;
+            final Node that = (Node) o;
+            if (kind != that.kind || operand != that.operand || !sameArguments(that)) {
+                return false;
+            }
+            return kind != RPNProgram.CONSTANT || value.equals(that.value)
+                    && Double.doubleToRawLongBits(doubleValue) == Double.doubleToRawLongBits(that.doubleValue);
+        }
+
+        private boolean sameArguments(final Node that) {
+            if (arguments == null || that.arguments == null) {
+                return arguments == that.arguments;
+            }
+            if (arguments.length != that.arguments.length) {
+                return false;
+            }
+            for (int i = 0; i < arguments.length; i++) {
+                if (arguments[i] != that.arguments[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = 31 * kind + operand;
+            if (arguments != null) {
+                for (Node argument : arguments) {
+                    result = 31 * result + System.identityHashCode(argument);
+                }
+            }
+            return kind == RPNProgram.CONSTANT ? 31 * result + value.hashCode() : result;
+        }
+    }
+}
@@ -108,5 +108,55 @@ public interface RPNChecker {
      */
     int getFunctionParamsCount(String functionName);
 
+    /**
+     * Checks if given String is variable name.
+     * <p>
+     * Variable name starts with a letter, contains only letters and digits, and is not a function name.
+     *
+     * @param input variable name
+     * @return true if the token is variable
+     */
+    default boolean isVariable(String input) {
+        if (input.isEmpty() || !Character.isLetter(input.charAt(0)) || isFunction(input)) {
+            return false;
+        }
+        for (int i = 1; i < input.length(); i++) {
+            if (!Character.isLetterOrDigit(input.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the longest operator, which starts at given position of the input.
+     * <p>
+     * Operators may have more than one character (ex. "**", or "&gt;="), but can not start with a letter, or digit.
+     * Default implementation checks only the single character with {@link #isOperator(String)}.
+     *
+     * @param input    input characters
+     * @param position start of the operator
+     * @return operator, or null if there is no operator at the position
+     */
+    default String matchOperator(CharSequence input, int position) {
+        final String symbol = String.valueOf(input.charAt(position));
+        return isOperator(symbol) ? symbol : null;
+    }
+
+    /**
+     * Returns the function, with name equal to the given part of the input.
+     * <p>
+     * Default implementation creates the name, and checks it with {@link #isFunction(String)}.
+     *
+     * @param input input characters
+     * @param start start of the name
+     * @param end   end of the name, exclusive
+     * @return function name, or null if it is not a function
+     */
+    default String matchFunction(CharSequence input, int start, int end) {
+        final String name = input.subSequence(start, end).toString();
+        return isFunction(name) ? name : null;
+    }
+
 }
 
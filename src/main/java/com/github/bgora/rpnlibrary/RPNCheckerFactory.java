@@ -1,10 +1,11 @@
 package com.github.bgora.rpnlibrary;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Factory for creating new instances of RPNChecker
+ * <p>
+ * Created instances are immutable: given maps are copied, so later changes of them have no effect.
  *
  * @see RPNChecker
  */
@@ -42,29 +43,6 @@ public class RPNCheckerFactory {
      */
 
     public static RPNChecker createRPNCheckerWithDefaults(final Map<String, Integer> operators, final Map<String, Integer> functions) {
-        Map<String, Integer> defaultOperators = new HashMap<>();
-        defaultOperators.put("+", 1);
-        defaultOperators.put("-", 1);
-        defaultOperators.put("*", 2);
-        defaultOperators.put("/", 2);
-        defaultOperators.put("^", 3);
-        if (!operators.isEmpty()) {
-            defaultOperators.putAll(operators);
-        }
-
-        Map<String, Integer> defaultFunctions = new HashMap<>();
-        defaultFunctions.put("sin", 1);
-        defaultFunctions.put("cos", 1);
-        defaultFunctions.put("tg", 1);
-        defaultFunctions.put("ctg", 1);
-        defaultFunctions.put("min", 2);
-        defaultFunctions.put("max", 2);
-        defaultFunctions.put("fib", 1);
-        if (!functions.isEmpty()) {
-            defaultFunctions.putAll(functions);
-        }
-
-        return new DefaultRPNChecker(defaultOperators, defaultFunctions);
-
+        return new DefaultRPNChecker(RPNRegistry.defaults().extend(operators, functions, Map.of(), Map.of()));
     }
 }
@@ -56,4 +56,218 @@ public interface RPNExecutioner {
      * @throws NoSuchFunctionFound thrown if Executing object cannot find method.
      */
     BigDecimal executeFunction(String functionName, MathContext mathContext, String... arguments) throws NoSuchFunctionFound;
+
+    /**
+     * This method executes arithmetic operator on numeric values.
+     * <p>
+     * Default implementation passes values as plain Strings to {@link #executeOperator(String, MathContext, String, String)}.
+     *
+     * @param operator    Arithmetic operator to execute.
+     * @param mathContext MathContext
+     * @param var1        first variable
+     * @param var2        second variable.
+     * @return calculation result.
+     * @throws WrongArgumentException if there is something wrong withe the input.
+     */
+    default BigDecimal executeOperator(String operator, MathContext mathContext, BigDecimal var1, BigDecimal var2) throws WrongArgumentException {
+        return executeOperator(operator, mathContext, var1.toPlainString(), var2.toPlainString());
+    }
+
+    /**
+     * This method executes Arithmetic Functions on numeric values.
+     * <p>
+     * Default implementation passes values as plain Strings to {@link #executeFunction(String, MathContext, String...)}.
+     *
+     * @param functionName Name of the function to execute.
+     * @param mathContext  MathContext
+     * @param arguments    List of arguments for the called function.
+     * @return Calculation result as BigDecimal.
+     * @throws NoSuchFunctionFound thrown if Executing object cannot find method.
+     */
+    default BigDecimal executeFunction(String functionName, MathContext mathContext, BigDecimal... arguments) throws NoSuchFunctionFound {
+        final String[] params = new String[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            params[i] = arguments[i].toPlainString();
+        }
+        return executeFunction(functionName, mathContext, params);
+    }
+
+    /**
+     * This method executes Arithmetic Function with one argument.
+     * <p>
+     * Default implementation calls {@link #executeFunction(String, MathContext, BigDecimal...)}.
+     *
+     * @param functionName Name of the function to execute.
+     * @param mathContext  MathContext
+     * @param argument     function argument.
+     * @return Calculation result as BigDecimal.
+     * @throws NoSuchFunctionFound thrown if Executing object cannot find method.
+     */
+    default BigDecimal executeFunction(String functionName, MathContext mathContext, BigDecimal argument) throws NoSuchFunctionFound {
+        return executeFunction(functionName, mathContext, new BigDecimal[]{argument});
+    }
+
+    /**
+     * This method executes Arithmetic Function with two arguments.
+     * <p>
+     * Default implementation calls {@link #executeFunction(String, MathContext, BigDecimal...)}.
+     *
+     * @param functionName Name of the function to execute.
+     * @param mathContext  MathContext
+     * @param first        first function argument.
+     * @param second       second function argument.
+     * @return Calculation result as BigDecimal.
+     * @throws NoSuchFunctionFound thrown if Executing object cannot find method.
+     */
+    default BigDecimal executeFunction(String functionName, MathContext mathContext, BigDecimal first, BigDecimal second) throws NoSuchFunctionFound {
+        return executeFunction(functionName, mathContext, new BigDecimal[]{first, second});
+    }
+
+    /**
+     * This method executes arithmetic operator on double values.
+     * <p>
+     * Default implementation calculates with BigDecimal, using {@code MathContext.DECIMAL64}.
+     *
+     * @param operator Arithmetic operator to execute.
+     * @param var1     first variable
+     * @param var2     second variable.
+     * @return calculation result.
+     * @throws WrongArgumentException if there is something wrong withe the input.
+     */
+    default double executeOperator(String operator, double var1, double var2) throws WrongArgumentException {
+        return executeOperator(operator, MathContext.DECIMAL64, BigDecimal.valueOf(var1), BigDecimal.valueOf(var2)).doubleValue();
+    }
+
+    /**
+     * This method executes Arithmetic Functions on double values.
+     * <p>
+     * Default implementation calculates with BigDecimal, using {@code MathContext.DECIMAL64}.
+     *
+     * @param functionName Name of the function to execute.
+     * @param arguments    List of arguments for the called function.
+     * @return Calculation result.
+     * @throws NoSuchFunctionFound thrown if Executing object cannot find method.
+     */
+    default double executeFunction(String functionName, double... arguments) throws NoSuchFunctionFound {
+        final BigDecimal[] params = new BigDecimal[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            params[i] = BigDecimal.valueOf(arguments[i]);
+        }
+        return executeFunction(functionName, MathContext.DECIMAL64, params).doubleValue();
+    }
+
+    /**
+     * This method executes Arithmetic Function with one double argument.
+     * <p>
+     * Default implementation calls {@link #executeFunction(String, double...)}.
+     *
+     * @param functionName Name of the function to execute.
+     * @param argument     function argument.
+     * @return Calculation result.
+     * @throws NoSuchFunctionFound thrown if Executing object cannot find method.
+     */
+    default double executeFunction(String functionName, double argument) throws NoSuchFunctionFound {
+        return executeFunction(functionName, new double[]{argument});
+    }
+
+    /**
+     * This method executes Arithmetic Function with two double arguments.
+     * <p>
+     * Default implementation calls {@link #executeFunction(String, double...)}.
+     *
+     * @param functionName Name of the function to execute.
+     * @param first        first function argument.
+     * @param second       second function argument.
+     * @return Calculation result.
+     * @throws NoSuchFunctionFound thrown if Executing object cannot find method.
+     */
+    default double executeFunction(String functionName, double first, double second) throws NoSuchFunctionFound {
+        return executeFunction(functionName, new double[]{first, second});
+    }
+
+    /**
+     * This method executes arithmetic operator on columns of double values, for rows from 0 to length.
+     * Result column can be the same array as var1, or var2.
+     * <p>
+     * Default implementation calls {@link #executeOperator(String, double, double)} for each row.
+     *
+     * @param operator Arithmetic operator to execute.
+     * @param var1     first variables
+     * @param var2     second variables.
+     * @param result   column for results.
+     * @param length   number of rows.
+     * @throws WrongArgumentException if there is something wrong withe the input.
+     */
+    default void executeOperator(String operator, double[] var1, double[] var2, double[] result, int length) throws WrongArgumentException {
+        for (int i = 0; i < length; i++) {
+            result[i] = executeOperator(operator, var1[i], var2[i]);
+        }
+    }
+
+    /**
+     * This method executes arithmetic operator on columns of numeric values, for rows from 0 to length.
+     * Result column can be the same array as var1, or var2.
+     * <p>
+     * Default implementation calls {@link #executeOperator(String, MathContext, BigDecimal, BigDecimal)} for each row.
+     *
+     * @param operator    Arithmetic operator to execute.
+     * @param mathContext MathContext
+     * @param var1        first variables
+     * @param var2        second variables.
+     * @param result      column for results.
+     * @param length      number of rows.
+     * @throws WrongArgumentException if there is something wrong withe the input.
+     */
+    default void executeOperator(String operator, MathContext mathContext, BigDecimal[] var1, BigDecimal[] var2,
+                                 BigDecimal[] result, int length) throws WrongArgumentException {
+        for (int i = 0; i < length; i++) {
+            result[i] = executeOperator(operator, mathContext, var1[i], var2[i]);
+        }
+    }
+
+    /**
+     * This method executes Arithmetic Function on columns of double values, for rows from 0 to length.
+     * Result column can be the same array as one of arguments.
+     * <p>
+     * Default implementation calls {@link #executeFunction(String, double...)} for each row.
+     *
+     * @param functionName Name of the function to execute.
+     * @param arguments    columns of arguments, one column for each argument.
+     * @param result       column for results.
+     * @param length       number of rows.
+     * @throws NoSuchFunctionFound thrown if Executing object cannot find method.
+     */
+    default void executeFunction(String functionName, double[][] arguments, double[] result, int length) throws NoSuchFunctionFound {
+        for (int i = 0; i < length; i++) {
+            final double[] row = new double[arguments.length];
+            for (int j = 0; j < row.length; j++) {
+                row[j] = arguments[j][i];
+            }
+            result[i] = executeFunction(functionName, row);
+        }
+    }
+
+    /**
+     * This method executes Arithmetic Function on columns of numeric values, for rows from 0 to length.
+     * Result column can be the same array as one of arguments.
+     * <p>
+     * Default implementation calls {@link #executeFunction(String, MathContext, BigDecimal...)} for each row.
+     *
+     * @param functionName Name of the function to execute.
+     * @param mathContext  MathContext
+     * @param arguments    columns of arguments, one column for each argument.
+     * @param result       column for results.
+     * @param length       number of rows.
+     * @throws NoSuchFunctionFound thrown if Executing object cannot find method.
+     */
+    default void executeFunction(String functionName, MathContext mathContext, BigDecimal[][] arguments,
+                                 BigDecimal[] result, int length) throws NoSuchFunctionFound {
+        for (int i = 0; i < length; i++) {
+            final BigDecimal[] row = new BigDecimal[arguments.length];
+            for (int j = 0; j < row.length; j++) {
+                row[j] = arguments[j][i];
+            }
+            result[i] = executeFunction(functionName, mathContext, row);
+        }
+    }
 }
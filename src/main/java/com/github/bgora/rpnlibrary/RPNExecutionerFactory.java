@@ -1,14 +1,14 @@
 package com.github.bgora.rpnlibrary;
 
 import com.github.bgora.rpnlibrary.functions.AbstractFunctionStrategy;
-import com.github.bgora.rpnlibrary.functions.DefaultFunctionProvider;
 import com.github.bgora.rpnlibrary.operators.AbstractOperatorStrategy;
-import com.github.bgora.rpnlibrary.operators.DefaultOperatorsProvider;
 
 import java.util.Map;
 
 /**
  * Factory for creating new instances of RPNExecutioner
+ * <p>
+ * Created instances are immutable: given maps are copied, so later changes of them have no effect.
  *
  * @see RPNExecutioner
  */
@@ -23,9 +23,7 @@ public class RPNExecutionerFactory {
      */
 
     public static RPNExecutioner createRPNExecutioner() {
-        DefaultOperatorsProvider operatorsProvider = new DefaultOperatorsProvider();
-        DefaultFunctionProvider functionProvider = new DefaultFunctionProvider();
-        return new DefaultRPNExecutioner(operatorsProvider.getOperators(), functionProvider.getFunctions());
+        return new DefaultRPNExecutioner(RPNRegistry.defaults());
     }
 
     /**
@@ -53,20 +51,6 @@ public class RPNExecutionerFactory {
      */
     public static RPNExecutioner createRPNExecutionerWithDefaults(
             Map<String, AbstractOperatorStrategy> operators, Map<String, AbstractFunctionStrategy> functions) {
-        DefaultOperatorsProvider operatorsProvider = new DefaultOperatorsProvider();
-        DefaultFunctionProvider functionProvider = new DefaultFunctionProvider();
-
-        Map<String, AbstractOperatorStrategy> defaultOperators = operatorsProvider.getOperators();
-        if(!operators.isEmpty()){
-            defaultOperators.putAll(operators);
-        }
-        Map<String, AbstractFunctionStrategy> defaultFunctions = functionProvider.getFunctions();
-        if(!functions.isEmpty()){
-            defaultFunctions.putAll(functions);
-        }
-
-        defaultOperators.putAll(operatorsProvider.getOperators());
-        defaultFunctions.putAll(functionProvider.getFunctions());
-        return new DefaultRPNExecutioner(defaultOperators, defaultFunctions);
+        return new DefaultRPNExecutioner(RPNRegistry.defaults().extend(Map.of(), Map.of(), operators, functions));
     }
 }
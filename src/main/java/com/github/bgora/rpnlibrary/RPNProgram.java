@@ -0,0 +1,163 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.functions.AbstractFunctionStrategy;
+import com.github.bgora.rpnlibrary.operators.AbstractOperatorStrategy;
+
+import java.math.BigDecimal;
+
+/**
+ * Expression in Reverse Polish Notation, stored as typed instructions.
+ * <p>
+ * Each instruction has a kind, and an operand. The operand is an index into constants (CONSTANT),
+ * variable slot (VARIABLE), an index into symbols (OPERATOR, FUNCTION), or a temporary value index (STORE, LOAD).
+ * STORE copies the value on top of the stack into the temporary value, and LOAD pushes it again, so common
+ * subexpressions are evaluated once.
+ * Arity of each symbol is kept in arities. Constants are kept also as doubles, for double evaluation;
+ * they differ from constants converted to double, if the program was optimized.
+ * All arrays are owned by the program, and never modified after creation.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
+final class RPNProgram {
+
+    static final byte CONSTANT = 0;
+    static final byte VARIABLE = 1;
+    static final byte OPERATOR = 2;
+    static final byte FUNCTION = 3;
+    static final byte STORE = 4;
+    static final byte LOAD = 5;
+
+    final byte[] kinds;
+    final int[] operands;
+    final BigDecimal[] constants;
+    final double[] doubleConstants;
+    final String[] symbols;
+    final int[] arities;
+    final String[] variables;
+    final int maxStack;
+    final int temps;
+
+    RPNProgram(final byte[] kinds, final int[] operands, final BigDecimal[] constants, final String[] symbols,
+               final int[] arities, final String[] variables, final int maxStack) {
+        this(kinds, operands, constants, toDoubles(constants), symbols, arities, variables, maxStack, 0);
+    }
+
+    RPNProgram(final byte[] kinds, final int[] operands, final BigDecimal[] constants, final double[] doubleConstants,
+               final String[] symbols, final int[] arities, final String[] variables, final int maxStack,
+               final int temps) {
+        this.kinds = kinds;
+        this.operands = operands;
+        this.constants = constants;
+        this.doubleConstants = doubleConstants;
+        this.symbols = symbols;
+        this.arities = arities;
+        this.variables = variables;
+        this.maxStack = maxStack;
+        this.temps = temps;
+    }
+
+    private static double[] toDoubles(final BigDecimal[] constants) {
+        final double[] result = new double[constants.length];
+        for (int i = 0; i < constants.length; i++) {
+            result[i] = constants[i].doubleValue();
+        }
+        return result;
+    }
+
+    /**
+     * Returns number of instructions.
+     *
+     * @return program length
+     */
+    int length() {
+        return kinds.length;
+    }
+
+    /**
+     * Passes instructions to the visitor.
+     *
+     * @param visitor    InstructionVisitor
+     * @param strategies strategies indexed like symbols, or null
+     */
+    void accept(final InstructionVisitor visitor, final Object[] strategies) {
+        for (int i = 0; i < kinds.length; i++) {
+            final int operand = operands[i];
+            final Object strategy = strategies != null && kinds[i] >= OPERATOR && kinds[i] <= FUNCTION
+                    ? strategies[operand] : null;
+            switch (kinds[i]) {
+                case CONSTANT:
+                    visitor.constant(constants[operand], doubleConstants[operand]);
+                    break;
+                case VARIABLE:
+                    visitor.variable(operand);
+                    break;
+                case STORE:
+                    visitor.store(operand);
+                    break;
+                case LOAD:
+                    visitor.load(operand);
+                    break;
+                case OPERATOR:
+                    visitor.operator(symbols[operand], (AbstractOperatorStrategy) strategy,
+                            strategy != null && ProgramOptimizer.isBuiltIn(symbols[operand], strategy));
+                    break;
+                default:
+                    visitor.function(symbols[operand], arities[operand], (AbstractFunctionStrategy) strategy,
+                            strategy != null && ProgramOptimizer.isBuiltIn(symbols[operand], strategy));
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Returns the program as RPN String.
+     *
+     * @return RPN tokens separated by space
+     */
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder();
+        for (int i = 0; i < kinds.length; i++) {
+            if (i > 0) {
+                result.append(' ');
+            }
+            switch (kinds[i]) {
+                case CONSTANT:
+                    result.append(constants[operands[i]].toPlainString());
+                    break;
+                case VARIABLE:
+                    result.append(variables[operands[i]]);
+                    break;
+                case STORE:
+                    result.append("=$").append(operands[i]);
+                    break;
+                case LOAD:
+                    result.append('$').append(operands[i]);
+                    break;
+                default:
+                    result.append(symbols[operands[i]]);
+                    break;
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.functions.AbstractFunctionStrategy;
+import com.github.bgora.rpnlibrary.functions.DefaultFunctionProvider;
+import com.github.bgora.rpnlibrary.operators.AbstractOperatorStrategy;
+import com.github.bgora.rpnlibrary.operators.DefaultOperatorsProvider;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable table of operators, and functions, shared by {@link DefaultRPNChecker}, and {@link DefaultRPNExecutioner}.
+ * <p>
+ * Each symbol has a dense integer opcode: operators take opcodes 0 .. operatorCount - 1, functions the following
+ * ones. Precedence, associativity, arity, and strategy are kept in arrays indexed by opcode, so after one map
+ * lookup from symbol to opcode everything else is array indexing. Symbols known to the checker are also kept in
+ * {@link SymbolTrie}s, so the tokenizer matches them directly in the input. Symbols known only to the checker have no strategy,
+ * symbols known only to the executioner have arity -1.
+ * <p>
+ * The default registry is created once, with one instance of each built-in strategy, and shared by all default
+ * checkers, and executioners. Custom registries are created by extending it, or from scratch.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
+final class RPNRegistry {
+
+    static final byte LEFT = 1;
+    static final byte RIGHT = 2;
+
+    private static final Map<String, Integer> DEFAULT_PRECEDENCES = Map.of("+", 1, "-", 1, "*", 2, "/", 2, "^", 3);
+    private static final Map<String, Integer> DEFAULT_ARITIES = Map.of("sin", 1, "cos", 1, "tg", 1, "ctg", 1,
+            "min", 2, "max", 2, "fib", 1);
+    private static final RPNRegistry DEFAULTS = create(DEFAULT_PRECEDENCES, DEFAULT_ARITIES,
+            new DefaultOperatorsProvider().getOperators(), new DefaultFunctionProvider().getFunctions());
+
+    private final Map<String, Integer> operatorOpcodes;
+    private final Map<String, Integer> functionOpcodes;
+    private final String[] symbols;
+    private final int[] precedences;
+    private final byte[] associativities;
+    private final int[] arities;
+    private final Object[] strategies;
+    private final int operatorCount;
+    private final SymbolTrie operatorTrie;
+    private final SymbolTrie functionTrie;
+
+    private RPNRegistry(final Map<String, Integer> operatorOpcodes, final Map<String, Integer> functionOpcodes,
+                        final String[] symbols, final int[] precedences, final byte[] associativities,
+                        final int[] arities, final Object[] strategies) {
+        this.operatorOpcodes = operatorOpcodes;
+        this.functionOpcodes = functionOpcodes;
+        this.symbols = symbols;
+        this.precedences = precedences;
+        this.associativities = associativities;
+        this.arities = arities;
+        this.strategies = strategies;
+        this.operatorCount = operatorOpcodes.size();
+        final List<String> operators = new ArrayList<>();
+        final List<String> functions = new ArrayList<>();
+        for (int opcode = 0; opcode < symbols.length; opcode++) {
+            if (arities[opcode] >= 0) {
+                (opcode < operatorCount ? operators : functions).add(symbols[opcode]);
+            }
+        }
+        this.operatorTrie = SymbolTrie.create(operators);
+        this.functionTrie = SymbolTrie.create(functions);
+    }
+
+    /**
+     * Returns the shared registry with default operators: + ,- ,* , /, ^ (power),
+     * and functions: sin(), cos(), tg(), ctg(), min(x,y), max(x,y), fib().
+     *
+     * @return RPNRegistry
+     */
+    static RPNRegistry defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Creates new registry. Maps are copied, so later changes of them are not visible in the registry.
+     *
+     * @param operators          operators + order, may be empty
+     * @param functions          function names + param count, may be empty
+     * @param operatorStrategies AbstractOperatorStrategy identified by it's operator, may be empty
+     * @param functionStrategies AbstractFunctionStrategy identified by it's name, may be empty
+     * @return RPNRegistry
+     */
+    static RPNRegistry create(final Map<String, Integer> operators, final Map<String, Integer> functions,
+                              final Map<String, ? extends AbstractOperatorStrategy> operatorStrategies,
+                              final Map<String, ? extends AbstractFunctionStrategy> functionStrategies) {
+        final Map<String, Integer> operatorOpcodes = new LinkedHashMap<>();
+        final Map<String, Integer> functionOpcodes = new LinkedHashMap<>();
+        for (String symbol : operators.keySet()) {
+            operatorOpcodes.putIfAbsent(symbol, operatorOpcodes.size());
+        }
+        for (String symbol : operatorStrategies.keySet()) {
+            operatorOpcodes.putIfAbsent(symbol, operatorOpcodes.size());
+        }
+        for (String name : functions.keySet()) {
+            functionOpcodes.putIfAbsent(name, operatorOpcodes.size() + functionOpcodes.size());
+        }
+        for (String name : functionStrategies.keySet()) {
+            functionOpcodes.putIfAbsent(name, operatorOpcodes.size() + functionOpcodes.size());
+        }
+        final int size = operatorOpcodes.size() + functionOpcodes.size();
+        final String[] symbols = new String[size];
+        final int[] precedences = new int[size];
+        final byte[] associativities = new byte[size];
+        final int[] arities = new int[size];
+        final Object[] strategies = new Object[size];
+        for (Map.Entry<String, Integer> entry : operatorOpcodes.entrySet()) {
+            final String symbol = entry.getKey();
+            final int opcode = entry.getValue();
+            symbols[opcode] = symbol;
+            final Integer precedence = operators.get(symbol);
+            precedences[opcode] = precedence != null ? precedence : 0;
+            associativities[opcode] = associativity(symbol);
+            arities[opcode] = precedence != null ? 2 : -1;
+            strategies[opcode] = operatorStrategies.get(symbol);
+        }
+        for (Map.Entry<String, Integer> entry : functionOpcodes.entrySet()) {
+            final String name = entry.getKey();
+            final int opcode = entry.getValue();
+            symbols[opcode] = name;
+            final Integer arity = functions.get(name);
+            arities[opcode] = arity != null ? arity : -1;
+            strategies[opcode] = functionStrategies.get(name);
+        }
+        return new RPNRegistry(Map.copyOf(operatorOpcodes), Map.copyOf(functionOpcodes), symbols, precedences,
+                associativities, arities, strategies);
+    }
+
+    /**
+     * Power is right associative, all other operators, also custom ones, are left associative.
+     */
+    private static byte associativity(final String symbol) {
+        return "^".equals(symbol) ? RIGHT : LEFT;
+    }
+
+    /**
+     * Creates new registry with entries of this one, replaced, or extended by given ones.
+     * Returns this registry, if all maps are empty.
+     *
+     * @param operators          operators + order, may be empty
+     * @param functions          function names + param count, may be empty
+     * @param operatorStrategies AbstractOperatorStrategy identified by it's operator, may be empty
+     * @param functionStrategies AbstractFunctionStrategy identified by it's name, may be empty
+     * @return RPNRegistry
+     */
+    RPNRegistry extend(final Map<String, Integer> operators, final Map<String, Integer> functions,
+                       final Map<String, ? extends AbstractOperatorStrategy> operatorStrategies,
+                       final Map<String, ? extends AbstractFunctionStrategy> functionStrategies) {
+        if (operators.isEmpty() && functions.isEmpty() && operatorStrategies.isEmpty() && functionStrategies.isEmpty()) {
+            return this;
+        }
+        final Map<String, Integer> allOperators = new HashMap<>();
+        final Map<String, Integer> allFunctions = new HashMap<>();
+        final Map<String, AbstractOperatorStrategy> allOperatorStrategies = new HashMap<>();
+        final Map<String, AbstractFunctionStrategy> allFunctionStrategies = new HashMap<>();
+        for (int opcode = 0; opcode < symbols.length; opcode++) {
+            final boolean operator = opcode < operatorCount;
+            if (arities[opcode] >= 0) {
+                if (operator) {
+                    allOperators.put(symbols[opcode], precedences[opcode]);
+                } else {
+                    allFunctions.put(symbols[opcode], arities[opcode]);
+                }
+            }
+            if (strategies[opcode] != null) {
+                if (operator) {
+                    allOperatorStrategies.put(symbols[opcode], (AbstractOperatorStrategy) strategies[opcode]);
+                } else {
+                    allFunctionStrategies.put(symbols[opcode], (AbstractFunctionStrategy) strategies[opcode]);
+                }
+            }
+        }
+        allOperators.putAll(operators);
+        allFunctions.putAll(functions);
+        allOperatorStrategies.putAll(operatorStrategies);
+        allFunctionStrategies.putAll(functionStrategies);
+        return create(allOperators, allFunctions, allOperatorStrategies, allFunctionStrategies);
+    }
+
+    /**
+     * Returns opcode of the operator, or -1, if the checker does not know it.
+     *
+     * @param symbol operator
+     * @return opcode
+     */
+    int operatorOpcode(final String symbol) {
+        final Integer opcode = operatorOpcodes.get(symbol);
+        return opcode != null && arities[opcode] >= 0 ? opcode : -1;
+    }
+
+    /**
+     * Returns opcode of the function, or -1, if the checker does not know it.
+     *
+     * @param name function name
+     * @return opcode
+     */
+    int functionOpcode(final String name) {
+        final Integer opcode = functionOpcodes.get(name);
+        return opcode != null && arities[opcode] >= 0 ? opcode : -1;
+    }
+
+    /**
+     * Returns the longest operator known to the checker, which starts at given position of the input.
+     *
+     * @param input    input characters
+     * @param position start of the operator
+     * @return operator, or null
+     */
+    String matchOperator(final CharSequence input, final int position) {
+        return operatorTrie.longestPrefix(input, position);
+    }
+
+    /**
+     * Returns the function known to the checker, with name equal to the given part of the input.
+     *
+     * @param input input characters
+     * @param start start of the name
+     * @param end   end of the name, exclusive
+     * @return function name, or null
+     */
+    String matchFunction(final CharSequence input, final int start, final int end) {
+        return functionTrie.find(input, start, end);
+    }
+
+    int precedence(final int opcode) {
+        return precedences[opcode];
+    }
+
+    byte associativity(final int opcode) {
+        return associativities[opcode];
+    }
+
+    int arity(final int opcode) {
+        return arities[opcode];
+    }
+
+    /**
+     * Returns strategy of the operator, or null, if the executioner does not know it.
+     *
+     * @param symbol operator
+     * @return AbstractOperatorStrategy
+     */
+    AbstractOperatorStrategy operator(final String symbol) {
+        final Integer opcode = operatorOpcodes.get(symbol);
+        return opcode != null ? (AbstractOperatorStrategy) strategies[opcode] : null;
+    }
+
+    /**
+     * Returns strategy of the function, or null, if the executioner does not know it.
+     *
+     * @param name function name
+     * @return AbstractFunctionStrategy
+     */
+    AbstractFunctionStrategy function(final String name) {
+        final Integer opcode = functionOpcodes.get(name);
+        return opcode != null ? (AbstractFunctionStrategy) strategies[opcode] : null;
+    }
+}
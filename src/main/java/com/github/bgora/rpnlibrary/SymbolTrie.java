@@ -0,0 +1,150 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+package com.github.bgora.rpnlibrary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable trie of operator, or function symbols, matched directly against input characters, without creating
+ * Strings.
+ * <p>
+ * Nodes are kept in arrays: each node has sorted child characters, and child node indexes, searched with binary
+ * search. Children of the root are also kept in a table indexed by ASCII character, so the first character,
+ * which usually does not start any symbol, is rejected with one array read. Matching returns the registered
+ * String instance, so callers can use it as symbol name.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
+final class SymbolTrie {
+
+    private static final int ASCII = 128;
+
+    private final char[][] keys;
+    private final int[][] children;
+    private final String[] values;
+    private final int[] rootChildren = new int[ASCII];
+
+    private SymbolTrie(final char[][] keys, final int[][] children, final String[] values) {
+        this.keys = keys;
+        this.children = children;
+        this.values = values;
+        Arrays.fill(rootChildren, -1);
+        for (int i = 0; i < keys[0].length; i++) {
+            if (keys[0][i] < ASCII) {
+                rootChildren[keys[0][i]] = children[0][i];
+            }
+        }
+    }
+
+    /**
+     * Creates trie of given, non empty symbols.
+     *
+     * @param symbols symbols
+     * @return SymbolTrie
+     */
+    static SymbolTrie create(final Collection<String> symbols) {
+        final List<StringBuilder> nodeKeys = new ArrayList<>();
+        final List<List<Integer>> nodeChildren = new ArrayList<>();
+        final List<String> nodeValues = new ArrayList<>();
+        nodeKeys.add(new StringBuilder());
+        nodeChildren.add(new ArrayList<>());
+        nodeValues.add(null);
+        for (String symbol : symbols) {
+            int node = 0;
+            for (int i = 0; i < symbol.length(); i++) {
+                final char c = symbol.charAt(i);
+                final int index = nodeKeys.get(node).indexOf(String.valueOf(c));
+                if (index >= 0) {
+                    node = nodeChildren.get(node).get(index);
+                } else {
+                    nodeKeys.get(node).append(c);
+                    nodeChildren.get(node).add(nodeKeys.size());
+                    node = nodeKeys.size();
+                    nodeKeys.add(new StringBuilder());
+                    nodeChildren.add(new ArrayList<>());
+                    nodeValues.add(null);
+                }
+            }
+            nodeValues.set(node, symbol);
+        }
+        final int size = nodeKeys.size();
+        final char[][] keys = new char[size][];
+        final int[][] children = new int[size][];
+        for (int node = 0; node < size; node++) {
+            final char[] unsorted = nodeKeys.get(node).toString().toCharArray();
+            keys[node] = unsorted.clone();
+            Arrays.sort(keys[node]);
+            children[node] = new int[unsorted.length];
+            for (int i = 0; i < unsorted.length; i++) {
+                children[node][Arrays.binarySearch(keys[node], unsorted[i])] = nodeChildren.get(node).get(i);
+            }
+        }
+        return new SymbolTrie(keys, children, nodeValues.toArray(new String[0]));
+    }
+
+    private int child(final int node, final char c) {
+        if (node == 0 && c < ASCII) {
+            return rootChildren[c];
+        }
+        final int index = Arrays.binarySearch(keys[node], c);
+        return index >= 0 ? children[node][index] : -1;
+    }
+
+    /**
+     * Returns the longest symbol, which starts at given position of the input.
+     *
+     * @param input    input characters
+     * @param position start of the symbol
+     * @return symbol, or null if no symbol starts there
+     */
+    String longestPrefix(final CharSequence input, final int position) {
+        String result = null;
+        int node = 0;
+        for (int i = position; i < input.length(); i++) {
+            node = child(node, input.charAt(i));
+            if (node < 0) {
+                break;
+            }
+            if (values[node] != null) {
+                result = values[node];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the symbol equal to the given part of the input.
+     *
+     * @param input input characters
+     * @param start start of the symbol
+     * @param end   end of the symbol, exclusive
+     * @return symbol, or null if it is not registered
+     */
+    String find(final CharSequence input, final int start, final int end) {
+        int node = 0;
+        for (int i = start; i < end && node >= 0; i++) {
+            node = child(node, input.charAt(i));
+        }
+        return node >= 0 ? values[node] : null;
+    }
+}
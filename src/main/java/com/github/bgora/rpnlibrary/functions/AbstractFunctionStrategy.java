@@ -48,6 +48,16 @@ public abstract class AbstractFunctionStrategy {
     }
 
 
+    /**
+     * Returns true, if the result depends only on arguments, and MathContext, and execute has no side effects.
+     * Pure functions with constant arguments are calculated once, when the expression is compiled.
+     *
+     * @return false by default
+     */
+    public boolean isPure() {
+        return false;
+    }
+
     /**
      * Returns Name value
      *
@@ -69,6 +79,162 @@ public abstract class AbstractFunctionStrategy {
      */
     public abstract BigDecimal execute(final MathContext mathContext, String... params);
 
+    /**
+     * Executes underlying arithmetic function on numeric values.
+     * <p>
+     * Default implementation passes values as plain Strings to {@link #execute(MathContext, String...)}.
+     * Override it, to avoid parsing arguments on every call.
+     *
+     * @param mathContext MathContext - Set Rounding Mode, and precision
+     * @param params      Input param - A Table of Numbers.
+     * @return BigDecimal object with resulting value.
+     */
+    public BigDecimal execute(final MathContext mathContext, final BigDecimal... params) {
+        final String[] table = new String[params.length];
+        for (int i = 0; i < params.length; i++) {
+            table[i] = params[i].toPlainString();
+        }
+        return execute(mathContext, table);
+    }
+
+    /**
+     * Executes function with one argument.
+     * <p>
+     * Default implementation calls {@link #execute(MathContext, BigDecimal...)}.
+     * See {@link UnaryFunctionStrategy} for functions, that don't need arguments array.
+     *
+     * @param mathContext MathContext - Set Rounding Mode, and precision
+     * @param param       function argument
+     * @return BigDecimal object with resulting value.
+     */
+    public BigDecimal execute(final MathContext mathContext, final BigDecimal param) {
+        return execute(mathContext, new BigDecimal[]{param});
+    }
+
+    /**
+     * Executes function with two arguments.
+     * <p>
+     * Default implementation calls {@link #execute(MathContext, BigDecimal...)}.
+     * See {@link BinaryFunctionStrategy} for functions, that don't need arguments array.
+     *
+     * @param mathContext MathContext - Set Rounding Mode, and precision
+     * @param first       first function argument
+     * @param second      second function argument
+     * @return BigDecimal object with resulting value.
+     */
+    public BigDecimal execute(final MathContext mathContext, final BigDecimal first, final BigDecimal second) {
+        return execute(mathContext, new BigDecimal[]{first, second});
+    }
+
+    /**
+     * Executes function on double values.
+     * <p>
+     * Default implementation calculates with BigDecimal, using {@code MathContext.DECIMAL64}.
+     * Override it, if the function can be calculated with double precision directly.
+     *
+     * @param params function arguments
+     * @return resulting value
+     */
+    public double execute(final double... params) {
+        final BigDecimal[] values = new BigDecimal[params.length];
+        for (int i = 0; i < params.length; i++) {
+            values[i] = BigDecimal.valueOf(params[i]);
+        }
+        return execute(MathContext.DECIMAL64, values).doubleValue();
+    }
+
+    /**
+     * Executes function with one double argument.
+     * Default implementation calls {@link #execute(double...)}.
+     *
+     * @param param function argument
+     * @return resulting value
+     */
+    public double execute(final double param) {
+        return execute(new double[]{param});
+    }
+
+    /**
+     * Executes function with two double arguments.
+     * Default implementation calls {@link #execute(double...)}.
+     *
+     * @param first  first function argument
+     * @param second second function argument
+     * @return resulting value
+     */
+    public double execute(final double first, final double second) {
+        return execute(new double[]{first, second});
+    }
+
+    /**
+     * Executes function on columns of double values, for rows from 0 to length.
+     * <p>
+     * Default implementation calls {@link #execute(double)}, {@link #execute(double, double)},
+     * or {@link #execute(double...)} for each row. Override it with a loop, that the JIT can compile without calls.
+     *
+     * @param params columns of function arguments, one column for each argument
+     * @param result column for results, it can be the same array as one of params
+     * @param length number of rows
+     */
+    public void execute(final double[][] params, final double[] result, final int length) {
+        if (params.length == 1) {
+            final double[] param = params[0];
+            for (int i = 0; i < length; i++) {
+                result[i] = execute(param[i]);
+            }
+        } else if (params.length == 2) {
+            final double[] first = params[0];
+            final double[] second = params[1];
+            for (int i = 0; i < length; i++) {
+                result[i] = execute(first[i], second[i]);
+            }
+        } else {
+            final double[] row = new double[params.length];
+            for (int i = 0; i < length; i++) {
+                for (int j = 0; j < row.length; j++) {
+                    row[j] = params[j][i];
+                }
+                result[i] = execute(row);
+            }
+        }
+    }
+
+    /**
+     * Executes function on columns of numeric values, for rows from 0 to length.
+     * <p>
+     * Default implementation calls {@link #execute(MathContext, BigDecimal)},
+     * {@link #execute(MathContext, BigDecimal, BigDecimal)}, or {@link #execute(MathContext, BigDecimal...)}
+     * for each row.
+     *
+     * @param mathContext MathContext - Set Rounding Mode, and precision
+     * @param params      columns of function arguments, one column for each argument
+     * @param result      column for results, it can be the same array as one of params
+     * @param length      number of rows
+     */
+    public void execute(final MathContext mathContext, final BigDecimal[][] params, final BigDecimal[] result,
+                        final int length) {
+        if (params.length == 1) {
+            final BigDecimal[] param = params[0];
+            for (int i = 0; i < length; i++) {
+                result[i] = execute(mathContext, param[i]);
+            }
+        } else if (params.length == 2) {
+            final BigDecimal[] first = params[0];
+            final BigDecimal[] second = params[1];
+            for (int i = 0; i < length; i++) {
+                result[i] = execute(mathContext, first[i], second[i]);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                final BigDecimal[] row = new BigDecimal[params.length];
+                for (int j = 0; j < row.length; j++) {
+                    row[j] = params[j][i];
+                }
+                result[i] = execute(mathContext, row);
+            }
+        }
+    }
+
     /**
      * @see java.lang.Object#equals(java.lang.Object)
      */
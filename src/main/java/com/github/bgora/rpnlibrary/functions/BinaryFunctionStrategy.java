@@ -0,0 +1,75 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+package com.github.bgora.rpnlibrary.functions;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Base class for functions with exactly two arguments.
+ * <p>
+ * Subclasses implement {@link #execute(MathContext, BigDecimal, BigDecimal)}, and optionally {@link #execute(double, double)}.
+ * String and array based variants delegate to them, so no arguments array is created during evaluation.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
+public abstract class BinaryFunctionStrategy extends AbstractFunctionStrategy {
+
+    /**
+     * Creates function
+     *
+     * @param name name of the function
+     */
+    public BinaryFunctionStrategy(final String name) {
+        super(name);
+    }
+
+    @Override
+    public abstract BigDecimal execute(final MathContext mathContext, final BigDecimal first, final BigDecimal second);
+
+    /**
+     * Executes function on double values.
+     * <p>
+     * Default implementation calculates with BigDecimal, using {@code MathContext.DECIMAL64}.
+     *
+     * @param first  first function argument
+     * @param second second function argument
+     * @return resulting value
+     */
+    @Override
+    public double execute(final double first, final double second) {
+        return execute(MathContext.DECIMAL64, BigDecimal.valueOf(first), BigDecimal.valueOf(second)).doubleValue();
+    }
+
+    @Override
+    public final BigDecimal execute(final MathContext mathContext, final String... params) {
+        return execute(mathContext, new BigDecimal(params[0]), new BigDecimal(params[1]));
+    }
+
+    @Override
+    public final BigDecimal execute(final MathContext mathContext, final BigDecimal... params) {
+        return execute(mathContext, params[0], params[1]);
+    }
+
+    @Override
+    public final double execute(final double... params) {
+        return execute(params[0], params[1]);
+    }
+}
@@ -28,7 +28,7 @@ import java.math.MathContext;
  *
  * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
  */
-class CosFunctionStrategy extends AbstractFunctionStrategy {
+class CosFunctionStrategy extends UnaryFunctionStrategy {
 
      CosFunctionStrategy() {
         super("cos");
@@ -36,8 +36,28 @@ class CosFunctionStrategy extends AbstractFunctionStrategy {
 
 
     @Override
-    public BigDecimal execute(final MathContext mathContext, final String... params) {
-        return BigDecimalMath.cos(new BigDecimal(params[0]), mathContext);
+    public BigDecimal execute(final MathContext mathContext, final BigDecimal param) {
+        if (!TrigonometricConstants.supports(param, mathContext)) {
+            return BigDecimalMath.cos(param, mathContext);
+        }
+        return TrigonometricConstants.of(mathContext).cos(param).round(mathContext);
     }
 
+    @Override
+    public double execute(final double param) {
+        return Math.cos(param);
+    }
+
+    @Override
+    public void execute(final double[][] params, final double[] result, final int length) {
+        final double[] param = params[0];
+        for (int i = 0; i < length; i++) {
+            result[i] = Math.cos(param[i]);
+        }
+    }
+
+    @Override
+    public boolean isPure() {
+        return true;
+    }
 }
@@ -29,7 +29,7 @@ import java.math.MathContext;
  *
  * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
  */
-class CtgFunctionStrategy extends AbstractFunctionStrategy {
+class CtgFunctionStrategy extends UnaryFunctionStrategy {
 
 
     CtgFunctionStrategy() {
@@ -37,7 +37,29 @@ class CtgFunctionStrategy extends AbstractFunctionStrategy {
     }
 
     @Override
-    public BigDecimal execute(final MathContext mathContext, final String... params) {
-        return BigDecimalMath.cot(new BigDecimal(params[0]), mathContext);
+    public BigDecimal execute(final MathContext mathContext, final BigDecimal param) {
+        if (!TrigonometricConstants.supports(param, mathContext) || param.signum() == 0) {
+            return BigDecimalMath.cot(param, mathContext);
+        }
+        final TrigonometricConstants constants = TrigonometricConstants.of(mathContext);
+        return constants.cos(param).divide(constants.sin(param), constants.working()).round(mathContext);
+    }
+
+    @Override
+    public double execute(final double param) {
+        return 1.0 / Math.tan(param);
+    }
+
+    @Override
+    public void execute(final double[][] params, final double[] result, final int length) {
+        final double[] param = params[0];
+        for (int i = 0; i < length; i++) {
+            result[i] = 1.0 / Math.tan(param[i]);
+        }
+    }
+
+    @Override
+    public boolean isPure() {
+        return true;
     }
 }
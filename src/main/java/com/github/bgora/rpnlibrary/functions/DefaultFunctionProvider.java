@@ -1,27 +1,29 @@
 package com.github.bgora.rpnlibrary.functions;
 
-import java.util.HashMap;
 import java.util.Map;
 
 public class DefaultFunctionProvider implements FunctionProvider {
-    Map<String, AbstractFunctionStrategy> DEFAULT_FUNCTIONS = new HashMap<String, AbstractFunctionStrategy>();
 
+    /**
+     * Built-in strategies are stateless, or thread safe, so one instance of each is shared by all providers.
+     */
+    private static final Map<String, AbstractFunctionStrategy> DEFAULT_FUNCTIONS = Map.of(
+            "sin", new SinusFunctionStrategy(),
+            "cos", new CosFunctionStrategy(),
+            "tg", new TanFunctionStrategy(),
+            "ctg", new CtgFunctionStrategy(),
+            "max", new MaxFunctionStrategy(),
+            "min", new MinFunctionStrategy(),
+            "fib", new FibFunctionStrategy());
+
+    /**
+     * Returns immutable map of built-in functions, the same for each call.
+     * Copy it to a new map, to add, or replace functions.
+     *
+     * @return Map containing AbstractFunctionStrategy identified by it's name
+     */
     @Override
     public Map<String, AbstractFunctionStrategy> getFunctions() {
-        AbstractFunctionStrategy sinusFunctionStrategy = new SinusFunctionStrategy();
-        DEFAULT_FUNCTIONS.put(sinusFunctionStrategy.getName(), sinusFunctionStrategy);
-        AbstractFunctionStrategy cosinusFunctionStrategy = new CosFunctionStrategy();
-        DEFAULT_FUNCTIONS.put(cosinusFunctionStrategy.getName(), cosinusFunctionStrategy);
-        AbstractFunctionStrategy tanFunctionStrategy = new TanFunctionStrategy();
-        DEFAULT_FUNCTIONS.put(tanFunctionStrategy.getName(), tanFunctionStrategy);
-        AbstractFunctionStrategy ctgFunctionStrategy = new CtgFunctionStrategy();
-        DEFAULT_FUNCTIONS.put(ctgFunctionStrategy.getName(), ctgFunctionStrategy);
-        AbstractFunctionStrategy maxFunctionStrategy = new MaxFunctionStrategy();
-        DEFAULT_FUNCTIONS.put(maxFunctionStrategy.getName(), maxFunctionStrategy);
-        AbstractFunctionStrategy minFunctionStrategy = new MinFunctionStrategy();
-        DEFAULT_FUNCTIONS.put(minFunctionStrategy.getName(), minFunctionStrategy);
-        AbstractFunctionStrategy fibFunctionStrategy = new FibFunctionStrategy();
-        DEFAULT_FUNCTIONS.put(fibFunctionStrategy.getName(), fibFunctionStrategy);
         return DEFAULT_FUNCTIONS;
     }
 }
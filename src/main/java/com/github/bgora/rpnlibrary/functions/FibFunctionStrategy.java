@@ -19,28 +19,117 @@
 
 package com.github.bgora.rpnlibrary.functions;
 
+import com.github.bgora.rpnlibrary.exceptions.WrongArgumentException;
+
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.math.MathContext;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fibonacci number - fib(0) = 0, fib(1) = 1, fib(n) = fib(n - 1) + fib(n - 2).
+ * <p>
+ * Calculated exactly, with fast doubling on BigInteger, in O(log n) multiplications:
+ * fib(2k) = fib(k) * (2 * fib(k + 1) - fib(k)), and fib(2k + 1) = fib(k)^2 + fib(k + 1)^2.
+ * Recently calculated values up to fib({@link #MAX_MEMOIZED_ARGUMENT}) are kept in a small table shared by all
+ * threads; each index has one slot, so the table never grows. Each kept value has at most 2090 digits, so the table
+ * holds at most about 256 KB. Larger values are calculated on each call.
+ * <p>
+ * Calculation checks the interrupt flag between multiplications, and throws {@link CancellationException},
+ * if the current thread is interrupted.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
+public class FibFunctionStrategy extends UnaryFunctionStrategy {
+
+    /**
+     * Largest supported argument. fib(n) has about 0.209 * n digits.
+     */
+    public static final int MAX_ARGUMENT = 1_000_000;
 
-public class FibFunctionStrategy extends AbstractFunctionStrategy {
+    /**
+     * Largest argument, whose value is kept in the table.
+     */
+    public static final int MAX_MEMOIZED_ARGUMENT = 10_000;
 
+    private static final int MEMO_SIZE = 256;
+
+    private final AtomicReferenceArray<Entry> memo = new AtomicReferenceArray<>(MEMO_SIZE);
 
     public FibFunctionStrategy() {
         super("fib");
     }
 
+    /**
+     * Returns fib(param).
+     *
+     * @throws WrongArgumentException if param is negative, not an integer, or greater than {@link #MAX_ARGUMENT}
+     */
+    @Override
+    public BigDecimal execute(final MathContext mathContext, final BigDecimal param) {
+        final int n = index(param);
+        if (n > MAX_MEMOIZED_ARGUMENT) {
+            return new BigDecimal(fib(n));
+        }
+        final int slot = n & (MEMO_SIZE - 1);
+        final Entry entry = memo.get(slot);
+        if (entry != null && entry.index == n) {
+            return entry.value;
+        }
+        final BigDecimal value = new BigDecimal(fib(n));
+        memo.set(slot, new Entry(n, value));
+        return value;
+    }
+
+    private static int index(final BigDecimal param) {
+        if (param.signum() < 0 || param.signum() != 0 && param.stripTrailingZeros().scale() > 0) {
+            throw new WrongArgumentException("fib argument must be a non-negative integer, but was " + param.toPlainString());
+        }
+        if (param.compareTo(BigDecimal.valueOf(MAX_ARGUMENT)) > 0) {
+            throw new WrongArgumentException("fib argument must not be greater than " + MAX_ARGUMENT + ", but was "
+                    + param.toPlainString());
+        }
+        return param.intValue();
+    }
+
+    /**
+     * Fast doubling, from the highest bit of n: (a, b) = (fib(k), fib(k + 1)) becomes (fib(2k), fib(2k + 1)),
+     * and then (fib(2k + 1), fib(2k + 2)), if the bit is set.
+     */
+    static BigInteger fib(final int n) {
+        BigInteger a = BigInteger.ZERO;
+        BigInteger b = BigInteger.ONE;
+        for (int bit = Integer.highestOneBit(n); bit != 0; bit >>>= 1) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Evaluation was interrupted");
+            }
+            final BigInteger doubled = a.multiply(b.shiftLeft(1).subtract(a));
+            final BigInteger next = a.multiply(a).add(b.multiply(b));
+            if ((n & bit) != 0) {
+                a = next;
+                b = doubled.add(next);
+            } else {
+                a = doubled;
+                b = next;
+            }
+        }
+        return a;
+    }
+
     @Override
-    public BigDecimal execute(final MathContext mathContext, final String... params) {
-        BigDecimal bigDecimal = new BigDecimal(params[0]);
-        return fib(bigDecimal);
+    public boolean isPure() {
+        return true;
     }
 
-    private BigDecimal fib(BigDecimal bigDecimal) {
-        if (bigDecimal.equals(BigDecimal.ZERO)) {
-            return BigDecimal.ZERO;
-        } else if (bigDecimal.equals(BigDecimal.ONE)) {
-            return BigDecimal.ONE;
+    private static final class Entry {
+
+        private final int index;
+        private final BigDecimal value;
+
+        Entry(final int index, final BigDecimal value) {
+            this.index = index;
+            this.value = value;
         }
-        return fib(bigDecimal.subtract(BigDecimal.ONE)).add(fib(bigDecimal.subtract(BigDecimal.valueOf(2))));
     }
 }
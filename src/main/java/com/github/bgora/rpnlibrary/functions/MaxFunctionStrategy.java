@@ -27,16 +27,33 @@ import java.math.MathContext;
  *
  * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
  */
-class MaxFunctionStrategy extends AbstractFunctionStrategy {
+class MaxFunctionStrategy extends BinaryFunctionStrategy {
 
      MaxFunctionStrategy() {
         super("max");
     }
 
     @Override
-    public BigDecimal execute(final MathContext mathContext, String... params) {
-        BigDecimal param1 = new BigDecimal(params[0]);
-        BigDecimal param2 = new BigDecimal(params[1]);
-        return param1.max(param2);
+    public BigDecimal execute(final MathContext mathContext, final BigDecimal first, final BigDecimal second) {
+        return first.max(second);
+    }
+
+    @Override
+    public double execute(final double first, final double second) {
+        return Math.max(first, second);
+    }
+
+    @Override
+    public void execute(final double[][] params, final double[] result, final int length) {
+        final double[] first = params[0];
+        final double[] second = params[1];
+        for (int i = 0; i < length; i++) {
+            result[i] = Math.max(first[i], second[i]);
+        }
+    }
+
+    @Override
+    public boolean isPure() {
+        return true;
     }
 }
@@ -29,15 +29,35 @@ import java.math.MathContext;
  *
  * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
  */
-class SinusFunctionStrategy extends AbstractFunctionStrategy {
+class SinusFunctionStrategy extends UnaryFunctionStrategy {
 
     SinusFunctionStrategy() {
         super("sin");
     }
 
     @Override
-    public BigDecimal execute(final MathContext mathContext, String... params) {
-        return BigDecimalMath.sin(new BigDecimal(params[0]), mathContext);
+    public BigDecimal execute(final MathContext mathContext, final BigDecimal param) {
+        if (!TrigonometricConstants.supports(param, mathContext)) {
+            return BigDecimalMath.sin(param, mathContext);
+        }
+        return TrigonometricConstants.of(mathContext).sin(param).round(mathContext);
     }
 
+    @Override
+    public double execute(final double param) {
+        return Math.sin(param);
+    }
+
+    @Override
+    public void execute(final double[][] params, final double[] result, final int length) {
+        final double[] param = params[0];
+        for (int i = 0; i < length; i++) {
+            result[i] = Math.sin(param[i]);
+        }
+    }
+
+    @Override
+    public boolean isPure() {
+        return true;
+    }
 }
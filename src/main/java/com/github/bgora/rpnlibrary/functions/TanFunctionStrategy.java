@@ -29,14 +29,36 @@ import java.math.MathContext;
  *
  * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
  */
-class TanFunctionStrategy extends AbstractFunctionStrategy {
+class TanFunctionStrategy extends UnaryFunctionStrategy {
 
     TanFunctionStrategy() {
         super("tg");
     }
 
     @Override
-    public BigDecimal execute(final MathContext mathContext, String... params) {
-        return BigDecimalMath.tan(new BigDecimal(params[0]), mathContext);
+    public BigDecimal execute(final MathContext mathContext, final BigDecimal param) {
+        if (!TrigonometricConstants.supports(param, mathContext)) {
+            return BigDecimalMath.tan(param, mathContext);
+        }
+        final TrigonometricConstants constants = TrigonometricConstants.of(mathContext);
+        return constants.sin(param).divide(constants.cos(param), constants.working()).round(mathContext);
+    }
+
+    @Override
+    public double execute(final double param) {
+        return Math.tan(param);
+    }
+
+    @Override
+    public void execute(final double[][] params, final double[] result, final int length) {
+        final double[] param = params[0];
+        for (int i = 0; i < length; i++) {
+            result[i] = Math.tan(param[i]);
+        }
+    }
+
+    @Override
+    public boolean isPure() {
+        return true;
     }
 }
@@ -0,0 +1,190 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+
+package com.github.bgora.rpnlibrary.functions;
+
+import ch.obermuhlner.math.big.BigDecimalMath;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Constants, and series coefficients for trigonometric functions, calculated once for each precision,
+ * and shared by sin, cos, tg, and ctg strategies.
+ * <p>
+ * The argument is reduced to [-π/2, π/2] with π kept with 20 guard digits, and sin is calculated with Horner's scheme
+ * over cached coefficients 1/(2k+1)!, with 10 guard digits. cos(x) is sin(x + π/2). Arguments greater than
+ * {@link #REDUCTION_LIMIT}, unlimited precision, and directed rounding modes are passed to {@link BigDecimalMath}.
+ * <p>
+ * Constants for {@link MathContext#DECIMAL64} precision are created eagerly, and read without a map lookup.
+ * <p>
+ * Loops over coefficients check the interrupt flag, and throw {@link CancellationException}, if the current thread
+ * is interrupted, so high precision calculations can be cancelled. Constants are cached only when complete.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
+final class TrigonometricConstants {
+
+    static final BigDecimal REDUCTION_LIMIT = BigDecimal.valueOf(1_000_000);
+
+    private static final int GUARD_DIGITS = 10;
+    private static final int PI_GUARD_DIGITS = 20;
+    private static final int MAX_CACHED = 32;
+    private static final TrigonometricConstants DECIMAL64 = new TrigonometricConstants(MathContext.DECIMAL64.getPrecision(), false);
+    private static final Map<Integer, TrigonometricConstants> CACHE = new ConcurrentHashMap<>();
+
+    private final MathContext working;
+    private final MathContext reduction;
+    private final BigDecimal pi;
+    private final BigDecimal halfPi;
+    private final BigDecimal twoPi;
+    private final BigDecimal[] coefficients;
+
+    /**
+     * Constructor, with interruptible calculation of coefficients, except for constants created by the class
+     * initializer, that must not fail.
+     */
+    private TrigonometricConstants(final int precision, final boolean interruptible) {
+        working = new MathContext(precision + GUARD_DIGITS, RoundingMode.HALF_EVEN);
+        reduction = new MathContext(precision + PI_GUARD_DIGITS, RoundingMode.HALF_EVEN);
+        pi = BigDecimalMath.pi(reduction);
+        halfPi = pi.divide(BigDecimal.valueOf(2), reduction);
+        twoPi = pi.multiply(BigDecimal.valueOf(2), reduction);
+        coefficients = coefficients(working, interruptible);
+    }
+
+    /**
+     * Returns constants for the precision of the MathContext.
+     *
+     * @param mathContext MathContext with limited precision
+     * @return shared constants
+     */
+    static TrigonometricConstants of(final MathContext mathContext) {
+        final int precision = mathContext.getPrecision();
+        if (precision == DECIMAL64.working.getPrecision() - GUARD_DIGITS) {
+            return DECIMAL64;
+        }
+        final TrigonometricConstants cached = CACHE.get(precision);
+        if (cached != null) {
+            return cached;
+        }
+        final TrigonometricConstants created = new TrigonometricConstants(precision, true);
+        if (CACHE.size() < MAX_CACHED) {
+            CACHE.putIfAbsent(precision, created);
+        }
+        return created;
+    }
+
+    /**
+     * Checks, if the argument can be calculated with cached constants. Results are calculated with guard digits,
+     * and rounded once more, so only rounding to nearest is supported: directed rounding of a value rounded to
+     * the nearest could cross the rounding boundary.
+     */
+    static boolean supports(final BigDecimal x, final MathContext mathContext) {
+        final RoundingMode mode = mathContext.getRoundingMode();
+        return mathContext.getPrecision() > 0 && x.abs().compareTo(REDUCTION_LIMIT) <= 0
+                && (mode == RoundingMode.HALF_EVEN || mode == RoundingMode.HALF_UP || mode == RoundingMode.HALF_DOWN);
+    }
+
+    /**
+     * Coefficients 1/(2k+1)!, as many as needed, so the last term for |x| = π/2 is smaller than the working precision.
+     */
+    private static BigDecimal[] coefficients(final MathContext working, final boolean interruptible) {
+        final double log10HalfPi = Math.log10(Math.PI / 2);
+        double log10Term = log10HalfPi;
+        int terms = 1;
+        while (log10Term > -(working.getPrecision() + 1)) {
+            log10Term += 2 * log10HalfPi - Math.log10(2.0 * terms) - Math.log10(2.0 * terms + 1);
+            terms++;
+        }
+        final BigDecimal[] result = new BigDecimal[terms];
+        BigDecimal factorial = BigDecimal.ONE;
+        for (int k = 0; k < terms; k++) {
+            if (interruptible) {
+                checkInterrupted();
+            }
+            if (k > 0) {
+                factorial = factorial.multiply(BigDecimal.valueOf((2L * k) * (2L * k + 1)));
+            }
+            result[k] = BigDecimal.ONE.divide(factorial, working);
+        }
+        return result;
+    }
+
+    /**
+     * Calculates sin(x) with working precision, not rounded to the caller MathContext.
+     */
+    BigDecimal sin(final BigDecimal x) {
+        return series(reduce(x));
+    }
+
+    /**
+     * Calculates cos(x) = sin(x + π/2) with working precision, not rounded to the caller MathContext.
+     */
+    BigDecimal cos(final BigDecimal x) {
+        return series(reduce(x.add(halfPi)));
+    }
+
+    MathContext working() {
+        return working;
+    }
+
+    /**
+     * Returns r in [-π/2, π/2], such that sin(r) = sin(x).
+     */
+    private BigDecimal reduce(final BigDecimal x) {
+        BigDecimal r = x;
+        if (r.abs().compareTo(pi) > 0) {
+            final BigDecimal turns = r.divide(twoPi, working).setScale(0, RoundingMode.HALF_EVEN);
+            r = r.subtract(twoPi.multiply(turns)).round(reduction);
+        } else {
+            r = r.round(reduction);
+        }
+        if (r.compareTo(halfPi) > 0) {
+            r = pi.subtract(r, reduction);
+        } else if (r.compareTo(halfPi.negate()) < 0) {
+            r = pi.negate().subtract(r, reduction);
+        }
+        return r;
+    }
+
+    /**
+     * sin(r) = r * (c0 - r^2 * (c1 - r^2 * (c2 - ...))).
+     */
+    private BigDecimal series(final BigDecimal r) {
+        final BigDecimal square = r.multiply(r, working);
+        BigDecimal sum = coefficients[coefficients.length - 1];
+        for (int k = coefficients.length - 2; k >= 0; k--) {
+            checkInterrupted();
+            sum = coefficients[k].subtract(square.multiply(sum, working), working);
+        }
+        return r.multiply(sum, working);
+    }
+
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Evaluation was interrupted");
+        }
+    }
+}
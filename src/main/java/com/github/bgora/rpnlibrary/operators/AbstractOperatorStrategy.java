@@ -56,6 +56,70 @@ public abstract class AbstractOperatorStrategy {
      */
     public abstract BigDecimal execute(final String first, final String second, final MathContext mathContext);
 
+    /**
+     * Execute Operator on numeric values.
+     * <p>
+     * Default implementation passes values as plain Strings to {@link #execute(String, String, MathContext)}.
+     * Override it, to avoid parsing arguments on every call.
+     *
+     * @param first       first argument of the operation
+     * @param second      second argument of the operation
+     * @param mathContext matchContext object to do eqation
+     * @return result of the operation
+     */
+    public BigDecimal execute(final BigDecimal first, final BigDecimal second, final MathContext mathContext) {
+        return execute(first.toPlainString(), second.toPlainString(), mathContext);
+    }
+
+    /**
+     * Execute Operator on double values.
+     * <p>
+     * Default implementation calculates with BigDecimal, using {@code MathContext.DECIMAL64}.
+     * Override it, if the operator can be calculated with double precision directly.
+     *
+     * @param first  first argument of the operation
+     * @param second second argument of the operation
+     * @return result of the operation
+     */
+    public double execute(final double first, final double second) {
+        return execute(BigDecimal.valueOf(first), BigDecimal.valueOf(second), MathContext.DECIMAL64).doubleValue();
+    }
+
+    /**
+     * Execute Operator on columns of double values, for rows from 0 to length.
+     * <p>
+     * Default implementation calls {@link #execute(double, double)} for each row.
+     * Override it with a loop, that the JIT can compile without calls.
+     *
+     * @param first  first arguments of the operation
+     * @param second second arguments of the operation
+     * @param result column for results, it can be the same array as first, or second
+     * @param length number of rows
+     */
+    public void execute(final double[] first, final double[] second, final double[] result, final int length) {
+        for (int i = 0; i < length; i++) {
+            result[i] = execute(first[i], second[i]);
+        }
+    }
+
+    /**
+     * Execute Operator on columns of numeric values, for rows from 0 to length.
+     * <p>
+     * Default implementation calls {@link #execute(BigDecimal, BigDecimal, MathContext)} for each row.
+     *
+     * @param first       first arguments of the operation
+     * @param second      second arguments of the operation
+     * @param result      column for results, it can be the same array as first, or second
+     * @param length      number of rows
+     * @param mathContext matchContext object to do eqation
+     */
+    public void execute(final BigDecimal[] first, final BigDecimal[] second, final BigDecimal[] result, final int length,
+                        final MathContext mathContext) {
+        for (int i = 0; i < length; i++) {
+            result[i] = execute(first[i], second[i], mathContext);
+        }
+    }
+
     /**
      * @see java.lang.Object#equals(java.lang.Object)
      */
@@ -81,6 +145,16 @@ public abstract class AbstractOperatorStrategy {
     }
 
 
+    /**
+     * Returns true, if the result depends only on arguments, and MathContext, and execute has no side effects.
+     * Pure operators with constant arguments are calculated once, when the expression is compiled.
+     *
+     * @return false by default
+     */
+    public boolean isPure() {
+        return false;
+    }
+
     /**
      * Returns operator sign
      *
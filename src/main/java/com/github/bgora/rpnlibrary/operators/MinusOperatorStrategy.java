@@ -31,10 +31,28 @@ class MinusOperatorStrategy extends AbstractOperatorStrategy {
 
     @Override
     public BigDecimal execute(String first, String second, final MathContext mathContext) {
-        BigDecimal big1 = new BigDecimal(first);
-        BigDecimal big2 = new BigDecimal(second);
-        return big1.subtract(big2);
+        return execute(new BigDecimal(first), new BigDecimal(second), mathContext);
     }
 
+    @Override
+    public BigDecimal execute(final BigDecimal first, final BigDecimal second, final MathContext mathContext) {
+        return first.subtract(second);
+    }
+
+    @Override
+    public double execute(final double first, final double second) {
+        return first - second;
+    }
 
+    @Override
+    public void execute(final double[] first, final double[] second, final double[] result, final int length) {
+        for (int i = 0; i < length; i++) {
+            result[i] = first[i] - second[i];
+        }
+    }
+
+    @Override
+    public boolean isPure() {
+        return true;
+    }
 }
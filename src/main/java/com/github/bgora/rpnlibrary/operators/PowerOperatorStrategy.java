@@ -20,20 +20,143 @@
 package com.github.bgora.rpnlibrary.operators;
 
 import ch.obermuhlner.math.big.BigDecimalMath;
+import com.github.bgora.rpnlibrary.exceptions.WrongArgumentException;
 
 import java.math.BigDecimal;
 import java.math.MathContext;
+import java.util.concurrent.CancellationException;
 
+/**
+ * Power operator.
+ * <p>
+ * Integer exponents are calculated with exponentiation by squaring, like {@link BigDecimal#pow(int, MathContext)},
+ * with guard digits, other exponents with {@link BigDecimalMath#pow(BigDecimal, BigDecimal, MathContext)}.
+ * Squaring checks the interrupt flag between multiplications, and throws {@link CancellationException},
+ * if the current thread is interrupted.
+ * Before calculation the decimal exponent of the result is estimated from the arguments, and results outside
+ * 1E-{@value #MAX_RESULT_EXPONENT} .. 1E+{@value #MAX_RESULT_EXPONENT} are rejected, so input like
+ * {@code 10^999999999} fails at once, instead of building a number with a billion digits.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
 class PowerOperatorStrategy extends AbstractOperatorStrategy {
 
+    static final int MAX_RESULT_EXPONENT = 1_000_000;
+
+    private static final int GUARD_DIGITS = 10;
+    private static final int MAX_INTEGER_EXPONENT = 999_999_999;
+
     PowerOperatorStrategy() {
         super("^");
     }
 
     @Override
     public BigDecimal execute(String first, String second, final MathContext mathContext) {
-        return BigDecimalMath.pow(new BigDecimal(first), new BigDecimal(second), mathContext);
+        return execute(new BigDecimal(first), new BigDecimal(second), mathContext);
+    }
+
+    @Override
+    public BigDecimal execute(final BigDecimal first, final BigDecimal second, final MathContext mathContext) {
+        if (first.abs().compareTo(BigDecimal.ONE) == 0 && !isInteger(second) && isWhole(second)) {
+            return first.signum() > 0 || isEven(second) ? BigDecimal.ONE : BigDecimal.ONE.negate();
+        }
+        checkSize(first, second);
+        if (isInteger(second) && (second.signum() >= 0 || mathContext.getPrecision() > 0)) {
+            final int exponent = second.intValue();
+            if (mathContext.getPrecision() == 0) {
+                return first.pow(exponent);
+            }
+            final MathContext working = new MathContext(mathContext.getPrecision() + GUARD_DIGITS,
+                    mathContext.getRoundingMode());
+            return pow(first, exponent, working).round(mathContext);
+        }
+        return BigDecimalMath.pow(first, second, mathContext);
+    }
+
+    /**
+     * Same algorithm as {@link BigDecimal#pow(int, MathContext)} (ANSI X3.274-1996), so results are equal,
+     * with interrupt checks between multiplications.
+     */
+    private static BigDecimal pow(final BigDecimal base, final int exponent, final MathContext mathContext) {
+        if (exponent == 0) {
+            return BigDecimal.ONE;
+        }
+        int magnitude = Math.abs(exponent);
+        final MathContext working = new MathContext(mathContext.getPrecision() + String.valueOf(magnitude).length() + 1,
+                mathContext.getRoundingMode());
+        BigDecimal result = BigDecimal.ONE;
+        boolean started = false;
+        for (int i = 1; ; i++) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Evaluation was interrupted");
+            }
+            magnitude += magnitude;
+            if (magnitude < 0) {
+                started = true;
+                result = result.multiply(base, working);
+            }
+            if (i == 31) {
+                break;
+            }
+            if (started) {
+                result = result.multiply(result, working);
+            }
+        }
+        if (exponent < 0) {
+            result = BigDecimal.ONE.divide(result, working);
+        }
+        return result.round(mathContext);
+    }
+
+    private static boolean isInteger(final BigDecimal value) {
+        return (value.signum() == 0 || value.scale() <= 0 || value.stripTrailingZeros().scale() <= 0)
+                && value.abs().compareTo(BigDecimal.valueOf(MAX_INTEGER_EXPONENT)) <= 0;
+    }
+
+    private static boolean isWhole(final BigDecimal value) {
+        return value.stripTrailingZeros().scale() <= 0;
+    }
+
+    /**
+     * Whole number is even, if it is a multiple of 10, or its last digit is even.
+     */
+    private static boolean isEven(final BigDecimal value) {
+        final BigDecimal stripped = value.stripTrailingZeros();
+        return stripped.scale() < 0 || !stripped.unscaledValue().testBit(0);
+    }
+
+    /**
+     * Estimates log10 of the result as second * log10(|first|), where log10(|first|) is taken from precision,
+     * and scale, plus leading digits, so it works for any size of first. Results of 0, and of 1 or -1, have
+     * no size to estimate: second too large for double would make it NaN, that passes any comparison.
+     */
+    private static void checkSize(final BigDecimal first, final BigDecimal second) {
+        if (first.signum() == 0 || second.signum() == 0 || first.abs().compareTo(BigDecimal.ONE) == 0) {
+            return;
+        }
+        final double leading = new BigDecimal(first.unscaledValue().abs(), first.precision()).doubleValue();
+        final double log10 = (double) first.precision() - first.scale() + Math.log10(leading);
+        final double estimate = second.doubleValue() * log10;
+        if (!(Math.abs(estimate) <= MAX_RESULT_EXPONENT)) {
+            throw new WrongArgumentException("Result of " + first + "^" + second + " is out of range, limit is 1E+/-"
+                    + MAX_RESULT_EXPONENT);
+        }
+    }
+
+    @Override
+    public double execute(final double first, final double second) {
+        return Math.pow(first, second);
     }
 
+    @Override
+    public void execute(final double[] first, final double[] second, final double[] result, final int length) {
+        for (int i = 0; i < length; i++) {
+            result[i] = Math.pow(first[i], second[i]);
+        }
+    }
 
+    @Override
+    public boolean isPure() {
+        return true;
+    }
 }
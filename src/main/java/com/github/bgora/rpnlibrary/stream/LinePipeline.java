@@ -0,0 +1,203 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+
+package com.github.bgora.rpnlibrary.stream;
+
+import com.github.bgora.rpnlibrary.Calculator;
+import com.github.bgora.rpnlibrary.exceptions.RPNException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Calculates files with one expression in each line, in parallel, writing results in order of lines.
+ * <p>
+ * Lines are read in chunks of {@link #getChunkLines()} lines, and each chunk is calculated by the executor with
+ * {@link Calculator#calculate(String)}. At most maxChunksInFlight chunks are read ahead; results are written
+ * from the oldest chunk, so output order is the input order, and memory use is bounded.
+ * <p>
+ * Each result line is the plain value, or {@link #ERROR_PREFIX} followed by the message, if the line cannot be
+ * calculated ({@link RPNException}, or {@link ArithmeticException}, like division by zero), so one wrong line
+ * doesn't stop the run. Empty lines stay empty.
+ * <pre>
+ *     LinePipeline.create(calc).run(Path.of("expressions.txt"), Path.of("results.txt"));
+ * </pre>
+ * Instances are immutable, and can be shared between threads.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
+public final class LinePipeline {
+
+    public static final int DEFAULT_CHUNK_LINES = 1024;
+    public static final String ERROR_PREFIX = "ERROR: ";
+
+    private final Calculator calculator;
+    private final Executor executor;
+    private final int chunkLines;
+    private final int maxChunksInFlight;
+
+    private LinePipeline(final Calculator calculator, final Executor executor, final int chunkLines,
+                         final int maxChunksInFlight) {
+        this.calculator = calculator;
+        this.executor = executor;
+        this.chunkLines = chunkLines;
+        this.maxChunksInFlight = maxChunksInFlight;
+    }
+
+    /**
+     * Creates pipeline, that uses {@link ForkJoinPool#commonPool()}, {@link #DEFAULT_CHUNK_LINES}, and reads ahead
+     * two chunks for each worker.
+     *
+     * @param calculator Calculator, shared by worker threads
+     * @return LinePipeline
+     */
+    public static LinePipeline create(final Calculator calculator) {
+        return create(calculator, ForkJoinPool.commonPool(), DEFAULT_CHUNK_LINES,
+                2 * ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * Creates pipeline.
+     *
+     * @param calculator        Calculator, shared by worker threads
+     * @param executor          executor for chunks
+     * @param chunkLines        number of lines calculated by one task
+     * @param maxChunksInFlight maximum number of chunks read, but not written yet
+     * @return LinePipeline
+     * @throws IllegalArgumentException if chunkLines, or maxChunksInFlight is not positive
+     */
+    public static LinePipeline create(final Calculator calculator, final Executor executor, final int chunkLines,
+                                      final int maxChunksInFlight) {
+        if (chunkLines <= 0 || maxChunksInFlight <= 0) {
+            throw new IllegalArgumentException("Chunk lines, and chunks in flight must be positive: " + chunkLines
+                    + ", " + maxChunksInFlight);
+        }
+        return new LinePipeline(Objects.requireNonNull(calculator, "calculator"),
+                Objects.requireNonNull(executor, "executor"), chunkLines, maxChunksInFlight);
+    }
+
+    public int getChunkLines() {
+        return chunkLines;
+    }
+
+    /**
+     * Calculates each line of the input file, and writes results to the output file (UTF-8).
+     *
+     * @param input  file with one expression in each line
+     * @param output file for results, created, or truncated
+     * @return number of lines
+     * @throws IOException if reading, or writing fails.
+     */
+    public long run(final Path input, final Path output) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            return run(reader, writer);
+        }
+    }
+
+    /**
+     * Calculates each line of the reader, and writes one result line for each of them.
+     *
+     * @param input  reader with one expression in each line
+     * @param output writer for results, it is not closed
+     * @return number of lines
+     * @throws IOException if reading, or writing fails.
+     */
+    public long run(final BufferedReader input, final Writer output) throws IOException {
+        final ArrayDeque<CompletableFuture<String[]>> inFlight = new ArrayDeque<>(maxChunksInFlight);
+        long lines = 0;
+        try {
+            String[] chunk;
+            while ((chunk = readChunk(input)) != null) {
+                lines += chunk.length;
+                if (inFlight.size() == maxChunksInFlight) {
+                    write(inFlight.poll(), output);
+                }
+                final String[] expressions = chunk;
+                inFlight.add(CompletableFuture.supplyAsync(() -> calculate(expressions), executor));
+            }
+            while (!inFlight.isEmpty()) {
+                write(inFlight.poll(), output);
+            }
+        } finally {
+            inFlight.forEach(future -> future.cancel(false));
+        }
+        output.flush();
+        return lines;
+    }
+
+    private String[] readChunk(final BufferedReader input) throws IOException {
+        final String[] chunk = new String[chunkLines];
+        int count = 0;
+        String line;
+        while (count < chunkLines && (line = input.readLine()) != null) {
+            chunk[count++] = line;
+        }
+        if (count == 0) {
+            return null;
+        }
+        return count == chunkLines ? chunk : Arrays.copyOf(chunk, count);
+    }
+
+    /**
+     * Calculates the chunk in place, replacing expressions with results.
+     */
+    private String[] calculate(final String[] lines) {
+        for (int i = 0; i < lines.length; i++) {
+            if (lines[i].isBlank()) {
+                lines[i] = "";
+                continue;
+            }
+            try {
+                lines[i] = calculator.calculate(lines[i]).toPlainString();
+            } catch (RPNException | ArithmeticException e) {
+                lines[i] = ERROR_PREFIX + String.valueOf(e.getMessage()).replace('\n', ' ');
+            }
+        }
+        return lines;
+    }
+
+    private static void write(final CompletableFuture<String[]> future, final Writer output) throws IOException {
+        final String[] results;
+        try {
+            results = future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        for (final String result : results) {
+            output.write(result);
+            output.write('\n');
+        }
+    }
+}
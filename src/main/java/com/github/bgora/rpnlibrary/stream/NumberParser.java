@@ -0,0 +1,150 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+
+package com.github.bgora.rpnlibrary.stream;
+
+import com.github.bgora.rpnlibrary.exceptions.WrongArgumentException;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Parses decimal numbers straight from bytes, without creating Strings.
+ * <p>
+ * Numbers with up to 15 significant digits, and decimal exponent from -22 to 22 are calculated with one
+ * double multiplication, or division of exact values, so they are correctly rounded, like
+ * {@link Double#parseDouble(String)}. Other numbers are passed to {@link Double#parseDouble(String)}.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
+final class NumberParser {
+
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final int MAX_DIGITS = 18;
+
+    private NumberParser() {
+    }
+
+    /**
+     * Parses number from bytes from (inclusive) to to (exclusive). Spaces around the number are skipped.
+     *
+     * @param buffer bytes
+     * @param from   first byte
+     * @param to     end of the number
+     * @return parsed value
+     * @throws WrongArgumentException if the bytes are not a decimal number
+     */
+    static double parse(final ByteBuffer buffer, final int from, final int to) throws WrongArgumentException {
+        int start = from;
+        int end = to;
+        while (start < end && isSpace(buffer.get(start))) {
+            start++;
+        }
+        while (end > start && isSpace(buffer.get(end - 1))) {
+            end--;
+        }
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+        while (i < end && isDigit(buffer.get(i))) {
+            anyDigit = true;
+            final int digit = buffer.get(i++) - '0';
+            if (digits < MAX_DIGITS) {
+                mantissa = mantissa * 10 + digit;
+                digits += mantissa != 0 ? 1 : 0;
+            } else {
+                digits++;
+                exponent++;
+            }
+        }
+        if (i < end && buffer.get(i) == '.') {
+            i++;
+            while (i < end && isDigit(buffer.get(i))) {
+                anyDigit = true;
+                final int digit = buffer.get(i++) - '0';
+                if (digits < MAX_DIGITS) {
+                    mantissa = mantissa * 10 + digit;
+                    digits += mantissa != 0 ? 1 : 0;
+                    exponent--;
+                } else {
+                    digits++;
+                }
+            }
+        }
+        if (!anyDigit) {
+            throw notANumber(buffer, start, end);
+        }
+        if (i < end && (buffer.get(i) == 'e' || buffer.get(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+                negativeExponent = buffer.get(i) == '-';
+                i++;
+            }
+            if (i == end) {
+                throw notANumber(buffer, start, end);
+            }
+            int value = 0;
+            while (i < end && isDigit(buffer.get(i))) {
+                value = Math.min(value * 10 + buffer.get(i++) - '0', 100_000);
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (i != end) {
+            throw notANumber(buffer, start, end);
+        }
+        if (mantissa == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (digits <= MAX_EXACT_DIGITS && exponent >= -22 && exponent <= 22) {
+            final double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(text(buffer, start, end));
+    }
+
+    static boolean isSpace(final byte value) {
+        return value == ' ' || value == '\t';
+    }
+
+    private static boolean isDigit(final byte value) {
+        return value >= '0' && value <= '9';
+    }
+
+    static String text(final ByteBuffer buffer, final int from, final int to) {
+        final char[] chars = new char[to - from];
+        for (int i = from; i < to; i++) {
+            chars[i - from] = (char) (buffer.get(i) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    private static WrongArgumentException notANumber(final ByteBuffer buffer, final int from, final int to) {
+        return new WrongArgumentException("\"" + text(buffer, from, to) + "\" is not a number");
+    }
+}
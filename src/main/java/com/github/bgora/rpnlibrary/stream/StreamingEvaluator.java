@@ -0,0 +1,462 @@
+/*
+ * RPNLibrary - Reverse Polish Notation Library
+ * Copyright (C) 2011  Bartłomiej Góra
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * Contact: bartlomiej.gora@gmail.com
+ */
+
+
+package com.github.bgora.rpnlibrary.stream;
+
+import com.github.bgora.rpnlibrary.Columns;
+import com.github.bgora.rpnlibrary.CompiledExpression;
+import com.github.bgora.rpnlibrary.exceptions.NoSuchFunctionFound;
+import com.github.bgora.rpnlibrary.exceptions.WrongArgumentException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Evaluates a compiled expression for each record of a CSV, or NDJSON file.
+ * <p>
+ * The input is memory mapped in windows ({@link FileChannel#map}), and numbers are parsed straight from the mapped
+ * bytes into variable columns. Records are evaluated in batches of {@link #BATCH_ROWS} rows, with
+ * {@link CompiledExpression#evaluateBatch(Columns, int, BigDecimal[])}, and results are written to the output, one
+ * value per line, through a reused buffer. Memory use doesn't depend on the file size.
+ * <p>
+ * Results are the same as from {@link com.github.bgora.rpnlibrary.Calculator#calculate(String)} of the Calculator,
+ * that compiled the expression: its {@link com.github.bgora.rpnlibrary.CalculationMode}, MathContext, and scale
+ * are used, and values are written like {@link BigDecimal#toPlainString()}. Numbers in the file are read as doubles,
+ * so digits after the 17th significant one are rounded.
+ * <ul>
+ * <li>CSV: the first line is a header with column names. Columns named like variables of the expression are
+ * parsed as numbers; other columns are skipped. Fields are separated by commas, and cannot be quoted.</li>
+ * <li>NDJSON: each line is a JSON object. Members named like variables must be numbers; other members are skipped.</li>
+ * </ul>
+ * Empty lines are skipped. Lines end with {@code \n}, or {@code \r\n}.
+ * <pre>
+ *     StreamingEvaluator evaluator = StreamingEvaluator.csv(calc.compile("price * qty"));
+ *     try (FileChannel output = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+ *         long rows = evaluator.evaluate(source, output);
+ *     }
+ * </pre>
+ * Instances are immutable, and can be shared between threads.
+ *
+ * @author Bartłomiej Góra (bartlomiej.gora@gmail.com)
+ */
+public final class StreamingEvaluator {
+
+    public static final int BATCH_ROWS = 4096;
+
+    private static final long DEFAULT_WINDOW = 64L << 20;
+    private static final int OUTPUT_BUFFER = 64 << 10;
+
+    private final CompiledExpression expression;
+    private final boolean csv;
+    private final byte[][] names;
+    private final long window;
+
+    StreamingEvaluator(final CompiledExpression expression, final boolean csv, final long window) {
+        this.expression = expression;
+        this.csv = csv;
+        this.window = window;
+        final List<String> variables = expression.getVariables();
+        this.names = new byte[variables.size()][];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = variables.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Creates evaluator for CSV files with a header line.
+     *
+     * @param expression CompiledExpression
+     * @return StreamingEvaluator
+     */
+    public static StreamingEvaluator csv(final CompiledExpression expression) {
+        return new StreamingEvaluator(expression, true, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Creates evaluator for files with one JSON object in each line.
+     *
+     * @param expression CompiledExpression
+     * @return StreamingEvaluator
+     */
+    public static StreamingEvaluator ndjson(final CompiledExpression expression) {
+        return new StreamingEvaluator(expression, false, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Evaluates the expression for each record of the input file, and writes results to the file.
+     * The output file is created, or truncated.
+     *
+     * @param input  CSV, or NDJSON file
+     * @param output file for results
+     * @return number of records
+     * @throws IOException            if reading, or writing fails.
+     * @throws WrongArgumentException if a record is incorrect.
+     * @throws NoSuchFunctionFound    if the executioner cannot find a function.
+     */
+    public long evaluate(final Path input, final Path output) throws IOException, WrongArgumentException, NoSuchFunctionFound {
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return evaluate(input, channel);
+        }
+    }
+
+    /**
+     * Evaluates the expression for each record of the input file, and writes results to the channel,
+     * one value per line, formatted like {@link BigDecimal#toPlainString()}.
+     *
+     * @param input  CSV, or NDJSON file
+     * @param output channel for results, it is not closed
+     * @return number of records
+     * @throws IOException            if reading, or writing fails.
+     * @throws WrongArgumentException if a record is incorrect, or a line is longer than the mapped window.
+     * @throws NoSuchFunctionFound    if the executioner cannot find a function.
+     */
+    public long evaluate(final Path input, final WritableByteChannel output)
+            throws IOException, WrongArgumentException, NoSuchFunctionFound {
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            final Batch batch = new Batch(output, expression.newColumns(BATCH_ROWS));
+            final long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                final long length = Math.min(window, size - position);
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                final int consumed = readLines(buffer, (int) length, position + length == size, batch);
+                if (consumed == 0) {
+                    throw new WrongArgumentException("Line " + (batch.line + 1) + " is longer than " + window + " bytes");
+                }
+                position += consumed;
+            }
+            batch.evaluate();
+            batch.flush();
+            return batch.records;
+        }
+    }
+
+    /**
+     * Reads complete lines of the window.
+     *
+     * @return number of bytes consumed
+     */
+    private int readLines(final ByteBuffer buffer, final int length, final boolean last, final Batch batch)
+            throws WrongArgumentException, NoSuchFunctionFound, IOException {
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(i) == '\n') {
+                readLine(buffer, start, i, batch);
+                start = i + 1;
+            }
+        }
+        if (last && start < length) {
+            readLine(buffer, start, length, batch);
+            start = length;
+        }
+        return start;
+    }
+
+    private void readLine(final ByteBuffer buffer, final int from, final int to, final Batch batch)
+            throws WrongArgumentException, NoSuchFunctionFound, IOException {
+        batch.line++;
+        int end = to;
+        if (end > from && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        int start = from;
+        while (start < end && NumberParser.isSpace(buffer.get(start))) {
+            start++;
+        }
+        if (start == end) {
+            return;
+        }
+        try {
+            if (csv && batch.fieldSlots == null) {
+                batch.fieldSlots = header(buffer, start, end);
+                return;
+            }
+            if (csv) {
+                readCsv(buffer, start, end, batch);
+            } else {
+                readJson(buffer, start, end, batch);
+            }
+        } catch (WrongArgumentException e) {
+            throw new WrongArgumentException("Line " + batch.line + ": " + e.getMessage());
+        }
+        for (int slot = 0; slot < names.length; slot++) {
+            if (batch.seen[slot] != batch.line) {
+                throw new WrongArgumentException("Line " + batch.line + ": value of \""
+                        + expression.getVariables().get(slot) + "\" is missing");
+            }
+        }
+        batch.records++;
+        if (++batch.rows == BATCH_ROWS) {
+            batch.evaluate();
+        }
+    }
+
+    private int[] header(final ByteBuffer buffer, final int from, final int to) {
+        int[] slots = new int[8];
+        int fields = 0;
+        int start = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || buffer.get(i) == ',') {
+                if (fields == slots.length) {
+                    slots = Arrays.copyOf(slots, fields * 2);
+                }
+                slots[fields++] = slotOf(buffer, trimStart(buffer, start, i), trimEnd(buffer, start, i));
+                start = i + 1;
+            }
+        }
+        return Arrays.copyOf(slots, fields);
+    }
+
+    private void readCsv(final ByteBuffer buffer, final int from, final int to, final Batch batch)
+            throws WrongArgumentException {
+        final int[] fieldSlots = batch.fieldSlots;
+        int field = 0;
+        int start = from;
+        for (int i = from; i <= to && field < fieldSlots.length; i++) {
+            if (i == to || buffer.get(i) == ',') {
+                final int slot = fieldSlots[field++];
+                if (slot >= 0) {
+                    batch.put(slot, NumberParser.parse(buffer, start, i));
+                }
+                start = i + 1;
+            }
+        }
+    }
+
+    private void readJson(final ByteBuffer buffer, final int from, final int to, final Batch batch)
+            throws WrongArgumentException {
+        int i = skipSpaces(buffer, from, to);
+        i = expect(buffer, i, to, '{');
+        i = skipSpaces(buffer, i, to);
+        if (i < to && buffer.get(i) == '}') {
+            checkEnd(buffer, i + 1, to);
+            return;
+        }
+        while (true) {
+            i = expect(buffer, skipSpaces(buffer, i, to), to, '"');
+            final int keyStart = i;
+            boolean escaped = false;
+            while (i < to && buffer.get(i) != '"') {
+                if (buffer.get(i) == '\\') {
+                    escaped = true;
+                    i++;
+                }
+                i++;
+            }
+            final int keyEnd = i;
+            i = expect(buffer, i, to, '"');
+            i = expect(buffer, skipSpaces(buffer, i, to), to, ':');
+            i = skipSpaces(buffer, i, to);
+            final int slot = escaped ? -1 : slotOf(buffer, keyStart, keyEnd);
+            final int valueEnd = skipValue(buffer, i, to);
+            if (slot >= 0) {
+                batch.put(slot, NumberParser.parse(buffer, i, valueEnd));
+            }
+            i = skipSpaces(buffer, valueEnd, to);
+            if (i < to && buffer.get(i) == ',') {
+                i++;
+                continue;
+            }
+            checkEnd(buffer, expect(buffer, i, to, '}'), to);
+            return;
+        }
+    }
+
+    /**
+     * Returns the end of JSON value starting at from: a string, an object, an array, or a literal.
+     */
+    private static int skipValue(final ByteBuffer buffer, final int from, final int to) throws WrongArgumentException {
+        int depth = 0;
+        int i = from;
+        while (i < to) {
+            final byte value = buffer.get(i);
+            if (value == '"') {
+                i = skipString(buffer, i, to);
+                if (depth == 0) {
+                    return i;
+                }
+                continue;
+            }
+            if (value == '{' || value == '[') {
+                depth++;
+            } else if (value == '}' || value == ']') {
+                if (depth == 0) {
+                    return i;
+                }
+                if (--depth == 0) {
+                    return i + 1;
+                }
+            } else if (depth == 0 && (value == ',' || NumberParser.isSpace(value))) {
+                return i;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the index after the closing quote of JSON string starting at from.
+     */
+    private static int skipString(final ByteBuffer buffer, final int from, final int to) throws WrongArgumentException {
+        int i = from + 1;
+        while (i < to && buffer.get(i) != '"') {
+            i += buffer.get(i) == '\\' ? 2 : 1;
+        }
+        if (i >= to) {
+            throw new WrongArgumentException("Unterminated JSON string");
+        }
+        return i + 1;
+    }
+
+    private static int expect(final ByteBuffer buffer, final int i, final int to, final char expected)
+            throws WrongArgumentException {
+        if (i >= to || buffer.get(i) != expected) {
+            throw new WrongArgumentException("Expected '" + expected + "' in JSON object");
+        }
+        return i + 1;
+    }
+
+    private static void checkEnd(final ByteBuffer buffer, final int i, final int to) throws WrongArgumentException {
+        if (skipSpaces(buffer, i, to) != to) {
+            throw new WrongArgumentException("Unexpected characters after JSON object");
+        }
+    }
+
+    private static int skipSpaces(final ByteBuffer buffer, final int from, final int to) {
+        int i = from;
+        while (i < to && NumberParser.isSpace(buffer.get(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int trimStart(final ByteBuffer buffer, final int from, final int to) {
+        return skipSpaces(buffer, from, to);
+    }
+
+    private static int trimEnd(final ByteBuffer buffer, final int from, final int to) {
+        int end = to;
+        while (end > from && NumberParser.isSpace(buffer.get(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Returns slot of the variable named with bytes from (inclusive) to (exclusive), or -1.
+     */
+    private int slotOf(final ByteBuffer buffer, final int from, final int to) {
+        for (int slot = 0; slot < names.length; slot++) {
+            final byte[] name = names[slot];
+            if (name.length == to - from && matches(buffer, from, name)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matches(final ByteBuffer buffer, final int from, final byte[] name) {
+        for (int i = 0; i < name.length; i++) {
+            if (buffer.get(from + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rows parsed, but not evaluated yet, and the output buffer. Created for each evaluated file.
+     */
+    private final class Batch {
+
+        private final WritableByteChannel output;
+        private final double[][] values = new double[names.length][BATCH_ROWS];
+        private final BigDecimal[] results = new BigDecimal[BATCH_ROWS];
+        private final Columns columns;
+        private final long[] seen = new long[names.length];
+        private final ByteBuffer out = ByteBuffer.allocate(OUTPUT_BUFFER);
+        private int[] fieldSlots;
+        private int rows;
+        private long line;
+        private long records;
+
+        Batch(final WritableByteChannel output, final Columns columns) throws WrongArgumentException {
+            this.output = output;
+            this.columns = columns;
+            for (int slot = 0; slot < values.length; slot++) {
+                columns.set(slot, values[slot]);
+            }
+            Arrays.fill(seen, -1);
+        }
+
+        void put(final int slot, final double value) {
+            values[slot][rows] = value;
+            seen[slot] = line;
+        }
+
+        void evaluate() throws WrongArgumentException, NoSuchFunctionFound, IOException {
+            if (rows == 0) {
+                return;
+            }
+            expression.evaluateBatch(columns, rows, results);
+            for (int i = 0; i < rows; i++) {
+                write(results[i]);
+                results[i] = null;
+            }
+            rows = 0;
+        }
+
+        /**
+         * Writes the value, and new line; values longer than the buffer are written in parts.
+         */
+        private void write(final BigDecimal value) throws IOException {
+            final String text = value.toPlainString();
+            for (int i = 0; i < text.length(); i++) {
+                put((byte) text.charAt(i));
+            }
+            put((byte) '\n');
+        }
+
+        private void put(final byte value) throws IOException {
+            if (!out.hasRemaining()) {
+                flush();
+            }
+            out.put(value);
+        }
+
+        void flush() throws IOException {
+            out.flip();
+            while (out.hasRemaining()) {
+                output.write(out);
+            }
+            out.clear();
+        }
+    }
+}
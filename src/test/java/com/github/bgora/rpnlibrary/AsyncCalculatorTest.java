@@ -0,0 +1,178 @@
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.exceptions.WrongArgumentException;
+import com.github.bgora.rpnlibrary.functions.AbstractFunctionStrategy;
+import com.github.bgora.rpnlibrary.functions.DefaultFunctionProvider;
+import com.github.bgora.rpnlibrary.functions.UnaryFunctionStrategy;
+import com.github.bgora.rpnlibrary.operators.AbstractOperatorStrategy;
+import com.github.bgora.rpnlibrary.operators.DefaultOperatorsProvider;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+public class AsyncCalculatorTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    /**
+     * Function, that waits 20 ms, or until the thread is interrupted.
+     */
+    private Calculator slowCalculator() {
+        AbstractFunctionStrategy slow = new UnaryFunctionStrategy("slow") {
+            @Override
+            public BigDecimal execute(final MathContext mathContext, final BigDecimal param) {
+                calls.incrementAndGet();
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20));
+                running.decrementAndGet();
+                return param;
+            }
+        };
+        return Calculator.createCalculator(RPNCheckerFactory.createRPNCheckerWithDefaults(Map.of(), Map.of("slow", 1)),
+                RPNExecutionerFactory.createRPNExecutionerWithDefaults(Map.of(), Map.of("slow", slow)),
+                MathContext.DECIMAL64, 2);
+    }
+
+    @Test
+    public void shouldCalculateAsynchronously() throws Exception {
+        Calculator calc = Calculator.createCalculator();
+        try (AsyncCalculator async = AsyncCalculator.create(calc)) {
+            CompletableFuture<BigDecimal> result = async.calculateAsync("2+8*fib(10)");
+            Assertions.assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo(new BigDecimal("442.00"));
+
+            CompiledExpression expression = calc.compile("x*y");
+            Assertions.assertThat(async.evaluateAsync(expression, 1.5, 4).get(10, TimeUnit.SECONDS))
+                    .isEqualTo(new BigDecimal("6.00"));
+            Assertions.assertThat(async.evaluateAsync(expression, BigDecimal.ONE, BigDecimal.TEN).get(10, TimeUnit.SECONDS))
+                    .isEqualTo(new BigDecimal("10.00"));
+        }
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyForWrongInput() throws Exception {
+        try (AsyncCalculator async = AsyncCalculator.create(Calculator.createCalculator())) {
+            CompletableFuture<BigDecimal> result = async.calculateAsync("2+");
+            Assertions.assertThatThrownBy(() -> result.get(10, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(WrongArgumentException.class);
+        }
+    }
+
+    @Test
+    public void shouldLimitConcurrency() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            AsyncCalculator async = AsyncCalculator.create(slowCalculator(), executor, 2);
+            List<CompletableFuture<BigDecimal>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(async.calculateAsync("slow(" + i + ")"));
+            }
+            for (int i = 0; i < 8; i++) {
+                Assertions.assertThat(results.get(i).get(10, TimeUnit.SECONDS)).isEqualTo(BigDecimal.valueOf(i).setScale(2));
+            }
+            Assertions.assertThat(maxRunning.get()).isEqualTo(2);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldStopCancelledEvaluation() throws Exception {
+        StringBuilder input = new StringBuilder("slow(0)");
+        for (int i = 1; i < 500; i++) {
+            input.append("+slow(").append(i).append(')');
+        }
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            AsyncCalculator async = AsyncCalculator.create(slowCalculator(), executor, 1);
+            CompletableFuture<BigDecimal> result = async.calculateAsync(input.toString());
+            while (calls.get() < 3) {
+                Thread.sleep(5);
+            }
+            Assertions.assertThat(result.cancel(true)).isTrue();
+            CompletableFuture<BigDecimal> next = async.calculateAsync("1+1");
+            Assertions.assertThat(next.get(10, TimeUnit.SECONDS)).isEqualTo(new BigDecimal("2.00"));
+            Assertions.assertThat(calls.get()).isLessThan(10);
+            Assertions.assertThat(result.isCancelled()).isTrue();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldStopCancelledConstantExpression() throws Exception {
+        StringBuilder input = new StringBuilder("sin(1)");
+        for (int i = 2; i < 40; i++) {
+            input.append("+sin(").append(i).append(')');
+        }
+        MathContext mathContext = new MathContext(3000);
+        assertCancelled(Calculator.createCalculator(RPNCheckerFactory.createRPNChecker(),
+                RPNExecutionerFactory.createRPNExecutioner(), mathContext, 2), input.toString());
+        Calculator cached = Calculator.createCalculator(RPNCheckerFactory.createRPNChecker(),
+                RPNExecutionerFactory.createRPNExecutioner(), mathContext, 2, 16);
+        assertCancelled(cached, input.toString());
+        Assertions.assertThat(cached.getCacheStats().getSize()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldStopCancelledLongFunction() throws Exception {
+        assertCancelled(Calculator.createCalculator(RPNCheckerFactory.createRPNChecker(),
+                RPNExecutionerFactory.createRPNExecutioner(), new MathContext(5_000), 2), "sin(1)");
+    }
+
+    /**
+     * Cancels calculation of the input after 50 ms, and checks, that the next one starts at once.
+     */
+    private void assertCancelled(Calculator calc, String input) throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            AsyncCalculator async = AsyncCalculator.create(calc, executor, 1);
+            CompletableFuture<BigDecimal> result = async.calculateAsync(input);
+            Thread.sleep(50);
+            Assertions.assertThat(result.cancel(true)).isTrue();
+            long start = System.nanoTime();
+            CompletableFuture<BigDecimal> next = async.calculateAsync("1+1");
+            Assertions.assertThat(next.get(10, TimeUnit.SECONDS)).isEqualTo(new BigDecimal("2.00"));
+            Assertions.assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(3000);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldInterruptLongStrategies() {
+        Map<String, AbstractFunctionStrategy> functions = new DefaultFunctionProvider().getFunctions();
+        AbstractOperatorStrategy power = new DefaultOperatorsProvider().getOperators().get("^");
+        Thread.currentThread().interrupt();
+        try {
+            Assertions.assertThatThrownBy(() -> functions.get("fib").execute(MathContext.DECIMAL64, BigDecimal.valueOf(20_000)))
+                    .isInstanceOf(CancellationException.class);
+            Assertions.assertThatThrownBy(() -> functions.get("sin").execute(MathContext.DECIMAL64, BigDecimal.ONE))
+                    .isInstanceOf(CancellationException.class);
+            Assertions.assertThatThrownBy(() -> power.execute(new BigDecimal("1.5"), BigDecimal.TEN, MathContext.DECIMAL64))
+                    .isInstanceOf(CancellationException.class);
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowForWrongConcurrency() {
+        AsyncCalculator.create(Calculator.createCalculator(), Runnable::run, 0);
+    }
+}
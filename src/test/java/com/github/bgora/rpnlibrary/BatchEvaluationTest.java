@@ -0,0 +1,172 @@
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.exceptions.RPNException;
+import com.github.bgora.rpnlibrary.exceptions.WrongArgumentException;
+import com.github.bgora.rpnlibrary.operators.AbstractOperatorStrategy;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BatchEvaluationTest {
+
+    private static final int ROWS = 2500;
+
+    private static double[] column(double start, double step) {
+        double[] values = new double[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            values[i] = start + i * step;
+        }
+        return values;
+    }
+
+    @Test
+    public void shouldReturnSameValuesAsEvaluateDouble() throws RPNException {
+        Calculator calc = Calculator.createCalculator();
+        double[] x = column(-3.0, 0.0025);
+        double[] y = column(1.0, 0.5);
+        for (String input : new String[]{"x*y+2", "sin(x)*y + sin(x)/y", "max(x, 0.5)^2 - min(y, 3)", "ctg(y)+tg(x)*cos(x)",
+                "2^3*(12/6)"}) {
+            CompiledExpression expression = calc.compile(input);
+            Columns columns = expression.newColumns(ROWS);
+            if (expression.getVariables().contains("x")) {
+                columns.set("x", x);
+            }
+            if (expression.getVariables().contains("y")) {
+                columns.set("y", y);
+            }
+            double[] result = new double[ROWS];
+            expression.evaluateBatch(columns, result);
+            for (int i = 0; i < ROWS; i++) {
+                double[] values = new double[expression.getVariables().size()];
+                if (values.length == 2) {
+                    values[expression.getVariableIndex("x")] = x[i];
+                    values[expression.getVariableIndex("y")] = y[i];
+                }
+                double expected = expression.evaluateDouble(values);
+                Assertions.assertThat(result[i]).as(input + " row " + i).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    public void shouldReturnSameValuesAsEvaluate() throws RPNException {
+        Calculator calc = Calculator.createCalculator();
+        CompiledExpression expression = calc.compile("price * qty + fib(n)");
+        BigDecimal[] prices = new BigDecimal[ROWS];
+        long[] quantities = new long[ROWS];
+        double[] n = new double[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            prices[i] = new BigDecimal("12.345").add(BigDecimal.valueOf(i));
+            quantities[i] = i % 7;
+            n[i] = i % 10;
+        }
+        BigDecimal[] result = new BigDecimal[ROWS];
+        expression.evaluateBatch(expression.newColumns(ROWS)
+                .set("price", prices)
+                .set("qty", quantities)
+                .set(expression.getVariableIndex("n"), n), result);
+        for (int i = 0; i < ROWS; i++) {
+            BigDecimal[] values = new BigDecimal[3];
+            values[expression.getVariableIndex("price")] = prices[i];
+            values[expression.getVariableIndex("qty")] = BigDecimal.valueOf(quantities[i]);
+            values[expression.getVariableIndex("n")] = BigDecimal.valueOf(n[i]);
+            Assertions.assertThat(result[i]).isEqualTo(expression.evaluate(values));
+        }
+    }
+
+    @Test
+    public void shouldConvertDoubleModeResults() throws RPNException {
+        CompiledExpression expression = Calculator.createCalculator(CalculationMode.DOUBLE).compile("x/4");
+        BigDecimal[] result = new BigDecimal[3];
+        expression.evaluateBatch(expression.newColumns(3).set("x", new long[]{1, 2, 10}), result);
+        Assertions.assertThat(result).containsExactly(new BigDecimal("0.25"), new BigDecimal("0.50"), new BigDecimal("2.50"));
+    }
+
+    @Test
+    public void shouldCallCustomOperatorOncePerChunk() throws RPNException {
+        AtomicInteger calls = new AtomicInteger();
+        AbstractOperatorStrategy modulo = new AbstractOperatorStrategy("%") {
+            @Override
+            public BigDecimal execute(final String first, final String second, final MathContext mathContext) {
+                return new BigDecimal(first).remainder(new BigDecimal(second));
+            }
+
+            @Override
+            public void execute(final double[] first, final double[] second, final double[] result, final int length) {
+                calls.incrementAndGet();
+                for (int i = 0; i < length; i++) {
+                    result[i] = first[i] % second[i];
+                }
+            }
+        };
+        Calculator calc = Calculator.createCalculator(RPNCheckerFactory.createRPNCheckerWithDefaults(Map.of("%", 1), Map.of()),
+                RPNExecutionerFactory.createRPNExecutionerWithDefaults(Map.of("%", modulo), Map.of()),
+                MathContext.DECIMAL64, 2);
+        CompiledExpression expression = calc.compile("x%7");
+        double[] result = new double[ROWS];
+        expression.evaluateBatch(expression.newColumns(ROWS).set("x", column(0, 1)), result);
+        Assertions.assertThat(calls.get()).isEqualTo(3);
+        Assertions.assertThat(result[2499]).isEqualTo(2499 % 7);
+
+        BigDecimal[] decimals = new BigDecimal[ROWS];
+        expression.evaluateBatch(expression.newColumns(ROWS).set("x", column(0, 1)), decimals);
+        Assertions.assertThat(decimals[2499]).isEqualTo(new BigDecimal("0.00"));
+    }
+
+    @Test
+    public void shouldEvaluateNoRows() throws RPNException {
+        CompiledExpression expression = Calculator.createCalculator().compile("x+1");
+        expression.evaluateBatch(expression.newColumns(0).set("x", new double[0]), new double[0]);
+    }
+
+    @Test
+    public void shouldEvaluateExpressionsDeeperThanCachedStacks() throws RPNException {
+        Calculator calc = Calculator.createCalculator();
+        StringBuilder input = new StringBuilder("x+1");
+        for (int i = 0; i < BatchEvaluator.MAX_CACHED_SLOTS + 4; i++) {
+            input.insert(0, "x+(").append(')');
+        }
+        double[] x = column(0, 1);
+        for (String expression : new String[]{input.toString(), "x+1", input.toString()}) {
+            CompiledExpression compiled = calc.compile(expression);
+            double[] result = new double[ROWS];
+            compiled.evaluateBatch(compiled.newColumns(ROWS).set("x", x), result);
+            for (int i = 0; i < ROWS; i++) {
+                Assertions.assertThat(result[i]).as(expression + " row " + i).isEqualTo(compiled.evaluateDouble(x[i]));
+            }
+        }
+    }
+
+    @Test
+    public void shouldEvaluateFirstRows() throws RPNException {
+        CompiledExpression expression = Calculator.createCalculator().compile("x*2");
+        Columns columns = expression.newColumns(4).set("x", new double[]{1, 2, 3, 4});
+        BigDecimal[] result = new BigDecimal[4];
+        expression.evaluateBatch(columns, 2, result);
+        Assertions.assertThat(result).containsExactly(new BigDecimal("2.00"), new BigDecimal("4.00"), null, null);
+        Assertions.assertThatThrownBy(() -> expression.evaluateBatch(columns, 5, new double[5]))
+                .isInstanceOf(WrongArgumentException.class);
+    }
+
+    @Test(expected = WrongArgumentException.class)
+    public void shouldThrowForMissingColumn() throws RPNException {
+        CompiledExpression expression = Calculator.createCalculator().compile("x+y");
+        expression.evaluateBatch(expression.newColumns(2).set("x", new double[2]), new double[2]);
+    }
+
+    @Test(expected = WrongArgumentException.class)
+    public void shouldThrowForWrongColumnLength() throws RPNException {
+        Calculator.createCalculator().compile("x+y").newColumns(2).set("x", new double[3]);
+    }
+
+    @Test(expected = WrongArgumentException.class)
+    public void shouldThrowForColumnsOfOtherExpression() throws RPNException {
+        Calculator calc = Calculator.createCalculator();
+        Columns columns = calc.compile("x+1").newColumns(1).set("x", new double[1]);
+        calc.compile("x+2").evaluateBatch(columns, new double[1]);
+    }
+}
@@ -0,0 +1,120 @@
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.exceptions.RPNException;
+import com.github.bgora.rpnlibrary.functions.AbstractFunctionStrategy;
+import com.github.bgora.rpnlibrary.operators.AbstractOperatorStrategy;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CompiledExpressionTest {
+
+    private Calculator calc;
+
+    @Before
+    public void setUp() {
+        calc = Calculator.createCalculator();
+    }
+
+    @Test
+    public void shouldEvaluateSameAsCalculate() throws RPNException {
+        String input = "2^3*(12/6)+18/3+5.0/2";
+        CompiledExpression expression = calc.compile(input);
+        Assertions.assertThat(expression.evaluate()).isEqualTo(calc.calculate(input));
+    }
+
+    @Test
+    public void shouldEvaluateManyTimes() throws RPNException {
+        CompiledExpression expression = calc.compile("max(10, 8) + sin(1+1)");
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertThat(expression.evaluate()).isEqualTo(new BigDecimal("10.91"));
+        }
+    }
+
+    @Test
+    public void shouldReturnRPN() throws RPNException {
+        CompiledExpression expression = calc.compile("sin ( x ) + 27 * y");
+        Assertions.assertThat(expression.toString()).isEqualTo("x sin 27 y * +");
+    }
+
+    @Test(expected = RPNException.class)
+    public void shouldThrowOnCompile() throws RPNException {
+        calc.compile("2 # 3");
+    }
+
+    @Test
+    public void shouldAssignVariableSlots() throws RPNException {
+        CompiledExpression expression = calc.compile("price * qty + price");
+        Assertions.assertThat(expression.getVariables()).containsExactly("price", "qty");
+        Assertions.assertThat(expression.getVariableIndex("price")).isEqualTo(0);
+        Assertions.assertThat(expression.getVariableIndex("qty")).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldEvaluateWithBigDecimalValues() throws RPNException {
+        CompiledExpression expression = calc.compile("price * qty");
+        BigDecimal[] values = new BigDecimal[2];
+        values[expression.getVariableIndex("price")] = new BigDecimal("12.50");
+        values[expression.getVariableIndex("qty")] = new BigDecimal("3");
+        Assertions.assertThat(expression.evaluate(values)).isEqualTo(new BigDecimal("37.50"));
+        values[expression.getVariableIndex("qty")] = new BigDecimal("4");
+        Assertions.assertThat(expression.evaluate(values)).isEqualTo(new BigDecimal("50.00"));
+    }
+
+    @Test
+    public void shouldEvaluateWithDoubleValues() throws RPNException {
+        CompiledExpression expression = calc.compile("sin(x) + x2 / 2");
+        Assertions.assertThat(expression.evaluate(2.0, 5.0)).isEqualTo(new BigDecimal("3.41"));
+    }
+
+    @Test(expected = RPNException.class)
+    public void shouldThrowWhenVariableIsNotBound() throws RPNException {
+        calc.compile("x + 1").evaluate();
+    }
+
+    @Test(expected = RPNException.class)
+    public void shouldThrowForUnknownVariable() throws RPNException {
+        calc.compile("x + 1").getVariableIndex("y");
+    }
+
+    @Test
+    public void shouldPassInstructionsToVisitor() throws RPNException {
+        List<String> instructions = new ArrayList<>();
+        calc.compile("max(x, 2) * y").accept(new InstructionVisitor() {
+            @Override
+            public void constant(BigDecimal value, double doubleValue) {
+                instructions.add(value.toPlainString());
+            }
+
+            @Override
+            public void variable(int slot) {
+                instructions.add("$" + slot);
+            }
+
+            @Override
+            public void operator(String symbol, AbstractOperatorStrategy strategy, boolean builtIn) {
+                instructions.add(symbol + ":" + strategy.getOperator() + ":" + builtIn);
+            }
+
+            @Override
+            public void function(String name, int arity, AbstractFunctionStrategy strategy, boolean builtIn) {
+                instructions.add(name + "/" + arity + ":" + builtIn);
+            }
+
+            @Override
+            public void store(int temp) {
+                instructions.add("store");
+            }
+
+            @Override
+            public void load(int temp) {
+                instructions.add("load");
+            }
+        });
+        Assertions.assertThat(instructions).containsExactly("$0", "2", "max/2:true", "$1", "*:*:true");
+    }
+}
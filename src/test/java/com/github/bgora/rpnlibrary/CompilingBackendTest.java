@@ -0,0 +1,113 @@
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.exceptions.RPNException;
+import com.github.bgora.rpnlibrary.functions.AbstractFunctionStrategy;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Map;
+
+public class CompilingBackendTest {
+
+    private static final EvaluationBackend[] BACKENDS = {EvaluationBackend.BYTECODE, EvaluationBackend.METHOD_HANDLES};
+
+    private static final String[] INPUTS = {"2^3*(12/x)+18/3+5.0/2", "-x^2", "max(1+x, 3*2) - min(-1, x)",
+            "sin(x)+cos(2)*tg(x)/ctg(0.25)", "fib(12)*x", "12 000 + x", "((((1+x)*3)-4)/5)^2"};
+
+    private final Calculator calc = Calculator.createCalculator();
+
+    @Test
+    public void shouldReturnSameResultsAsInterpreter() throws RPNException {
+        for (EvaluationBackend backend : BACKENDS) {
+            for (String input : INPUTS) {
+                CompiledExpression expression = calc.compile(input, backend);
+                Assertions.assertThat(expression.getBackend()).isEqualTo(backend);
+                CompiledExpression interpreted = calc.compile(input);
+                Assertions.assertThat(expression.evaluate(new BigDecimal("2.5"))).as(backend + " " + input)
+                        .isEqualTo(interpreted.evaluate(new BigDecimal("2.5")));
+                Assertions.assertThat(expression.evaluateDouble(2.5)).as(backend + " " + input)
+                        .isEqualTo(interpreted.evaluateDouble(2.5));
+            }
+        }
+    }
+
+    @Test
+    public void shouldEvaluateVariables() throws RPNException {
+        CompiledExpression interpreted = calc.compile("price * qty + sin(price)");
+        for (EvaluationBackend backend : BACKENDS) {
+            CompiledExpression expression = calc.compile("price * qty + sin(price)", backend);
+            for (int i = 0; i < 100; i++) {
+                Assertions.assertThat(expression.evaluate(BigDecimal.valueOf(i), BigDecimal.TEN))
+                        .isEqualTo(interpreted.evaluate(BigDecimal.valueOf(i), BigDecimal.TEN));
+                Assertions.assertThat(expression.evaluateDouble(i, 0.5)).isEqualTo(interpreted.evaluateDouble(i, 0.5));
+            }
+        }
+    }
+
+    @Test
+    public void shouldCallCustomStrategies() throws RPNException {
+        AbstractFunctionStrategy sum = new AbstractFunctionStrategy("sum") {
+            @Override
+            public BigDecimal execute(final MathContext mathContext, final String... params) {
+                BigDecimal result = BigDecimal.ZERO;
+                for (String param : params) {
+                    result = result.add(new BigDecimal(param));
+                }
+                return result;
+            }
+        };
+        Calculator custom = Calculator.createCalculator(RPNCheckerFactory.createRPNCheckerWithDefaults(Map.of(), Map.of("sum", 3)),
+                RPNExecutionerFactory.createRPNExecutionerWithDefaults(Map.of(), Map.of("sum", sum)),
+                MathContext.DECIMAL64, CalculationMode.BIG_DECIMAL, 2);
+        for (EvaluationBackend backend : BACKENDS) {
+            CompiledExpression expression = custom.compile("sum(1, x*2, 3)/2", backend);
+            Assertions.assertThat(expression.getBackend()).isEqualTo(backend);
+            Assertions.assertThat(expression.evaluate(BigDecimal.TEN)).isEqualTo(new BigDecimal("12.00"));
+            Assertions.assertThat(expression.evaluateDouble(10)).isEqualTo(12.0);
+        }
+    }
+
+    @Test
+    public void shouldFallBackToInterpreter() throws RPNException {
+        Calculator custom = Calculator.createCalculator(RPNCheckerFactory.createRPNChecker(), new RPNExecutioner() {
+            @Override
+            public BigDecimal executeOperator(String operator, MathContext mathContext, String var1, String var2) {
+                return new BigDecimal(var1).add(new BigDecimal(var2));
+            }
+
+            @Override
+            public BigDecimal executeFunction(String functionName, MathContext mathContext, String... arguments) {
+                return BigDecimal.ONE;
+            }
+        }, MathContext.DECIMAL64, 2);
+        for (EvaluationBackend backend : BACKENDS) {
+            CompiledExpression expression = custom.compile("2*3", backend);
+            Assertions.assertThat(expression.getBackend()).isEqualTo(EvaluationBackend.INTERPRETER);
+            Assertions.assertThat(expression.evaluate()).isEqualTo(new BigDecimal("5.00"));
+        }
+
+        StringBuilder longInput = new StringBuilder("x");
+        for (int i = 0; i < BytecodeCompiler.MAX_PROGRAM_LENGTH; i++) {
+            longInput.append("+x");
+        }
+        CompiledExpression tooLong = calc.compile(longInput.toString(), EvaluationBackend.BYTECODE);
+        Assertions.assertThat(tooLong.getBackend()).isEqualTo(EvaluationBackend.INTERPRETER);
+        Assertions.assertThat(tooLong.evaluateDouble(1)).isEqualTo(BytecodeCompiler.MAX_PROGRAM_LENGTH + 1.0);
+    }
+
+    @Test
+    public void shouldCompileLargeExpressions() throws RPNException {
+        StringBuilder input = new StringBuilder("x");
+        for (int i = 0; i < 200; i++) {
+            input.append(i % 2 == 0 ? "+" : "*").append(i).append(".5");
+        }
+        BigDecimal expected = calc.compile(input.toString()).evaluate(BigDecimal.ONE);
+        for (EvaluationBackend backend : BACKENDS) {
+            CompiledExpression expression = calc.compile(input.toString(), backend);
+            Assertions.assertThat(expression.getBackend()).isEqualTo(backend);
+            Assertions.assertThat(expression.evaluate(BigDecimal.ONE)).isEqualTo(expected);
+        }
+    }
+}
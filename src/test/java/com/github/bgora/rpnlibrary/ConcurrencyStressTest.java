@@ -0,0 +1,144 @@
+package com.github.bgora.rpnlibrary;
+
+import ch.obermuhlner.math.big.BigDecimalMath;
+import com.github.bgora.rpnlibrary.functions.AbstractFunctionStrategy;
+import com.github.bgora.rpnlibrary.functions.DefaultFunctionProvider;
+import com.github.bgora.rpnlibrary.operators.AbstractOperatorStrategy;
+import com.github.bgora.rpnlibrary.operators.DefaultOperatorsProvider;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many threads share one instance, start at the same moment, and compare every result with the one calculated
+ * by a single thread.
+ */
+public class ConcurrencyStressTest {
+
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 200;
+
+    private static final String[] EXPRESSIONS = {"2^3*(12/6)+18/3+5.0/2", "sin(1)+cos(2)*tg(0.5)", "ctg(0.7)-max(3, 4)",
+            "fib(90)+fib(200)/3", "1.0001^1000", "min(2.5^3, 17)", "12 000 + 15", "-2^2"};
+
+    private interface Task {
+        void run(int thread, int round) throws Exception;
+    }
+
+    private static void runConcurrently(Task task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier barrier = new CyclicBarrier(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int thread = i;
+                futures.add(executor.submit(() -> {
+                    barrier.await();
+                    for (int round = 0; round < ROUNDS; round++) {
+                        task.run(thread, round);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void assertSharedCalculator(Calculator calc) throws Exception {
+        Calculator reference = Calculator.createCalculator();
+        BigDecimal[] expected = new BigDecimal[EXPRESSIONS.length];
+        for (int i = 0; i < EXPRESSIONS.length; i++) {
+            expected[i] = reference.calculate(EXPRESSIONS[i]);
+        }
+        runConcurrently((thread, round) -> {
+            int i = (thread + round) % EXPRESSIONS.length;
+            Assertions.assertThat(calc.calculate(EXPRESSIONS[i])).as(EXPRESSIONS[i]).isEqualTo(expected[i]);
+        });
+    }
+
+    @Test
+    public void shouldShareCalculator() throws Exception {
+        assertSharedCalculator(Calculator.createCalculator());
+    }
+
+    @Test
+    public void shouldShareCalculatorWithCache() throws Exception {
+        Calculator calc = Calculator.createCalculator(4);
+        assertSharedCalculator(calc);
+        Assertions.assertThat(calc.getCacheStats().getSize()).isLessThanOrEqualTo(4);
+        Assertions.assertThat(calc.getCacheStats().getHitCount() + calc.getCacheStats().getMissCount())
+                .isEqualTo((long) THREADS * ROUNDS);
+    }
+
+    @Test
+    public void shouldShareCompiledExpression() throws Exception {
+        CompiledExpression expression = Calculator.createCalculator().compile("x*y+sin(x)-fib(y)");
+        int x = expression.getVariableIndex("x");
+        int y = expression.getVariableIndex("y");
+        BigDecimal[][] values = new BigDecimal[THREADS][2];
+        BigDecimal[] expected = new BigDecimal[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            values[i][x] = BigDecimal.valueOf(i).movePointLeft(1);
+            values[i][y] = BigDecimal.valueOf(i * 7L);
+            expected[i] = expression.evaluate(values[i].clone());
+        }
+        runConcurrently((thread, round) ->
+                Assertions.assertThat(expression.evaluate(values[thread].clone())).isEqualTo(expected[thread]));
+    }
+
+    @Test
+    public void shouldInitializeConstantsOnceForEachPrecision() throws Exception {
+        AbstractFunctionStrategy sin = new DefaultFunctionProvider().getFunctions().get("sin");
+        AbstractFunctionStrategy fib = new DefaultFunctionProvider().getFunctions().get("fib");
+        BigDecimal[] expected = new BigDecimal[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            MathContext mathContext = new MathContext(20 + round % 60);
+            expected[round] = BigDecimalMath.sin(BigDecimal.ONE, new MathContext(mathContext.getPrecision() + 20))
+                    .round(mathContext);
+        }
+        BigDecimal fib1000 = fib.execute(MathContext.UNLIMITED, BigDecimal.valueOf(1000));
+        runConcurrently((thread, round) -> {
+            MathContext mathContext = new MathContext(20 + round % 60);
+            Assertions.assertThat(sin.execute(mathContext, BigDecimal.ONE)).isEqualTo(expected[round]);
+            Assertions.assertThat(fib.execute(MathContext.UNLIMITED, BigDecimal.valueOf(1000)))
+                    .isEqualTo(fib1000);
+        });
+    }
+
+    @Test
+    public void shouldCreateCalculatorsWhileOthersCalculate() throws Exception {
+        Calculator shared = Calculator.createCalculator();
+        runConcurrently((thread, round) -> {
+            Calculator own = Calculator.createCalculator(RPNCheckerFactory.createRPNCheckerWithDefaults(Map.of("**", 3), Map.of()),
+                    RPNExecutionerFactory.createRPNExecutionerWithDefaults(Map.of("**",
+                            new DefaultOperatorsProvider().getOperators().get("^")), Map.of()), MathContext.DECIMAL64, 2);
+            Assertions.assertThat(own.calculate("2**" + thread)).isEqualTo(BigDecimal.valueOf(1L << thread).setScale(2));
+            Assertions.assertThat(shared.calculate("2^" + thread)).isEqualTo(BigDecimal.valueOf(1L << thread).setScale(2));
+        });
+    }
+
+    @Test
+    public void shouldReturnImmutableDefaults() {
+        Map<String, AbstractOperatorStrategy> operators = new DefaultOperatorsProvider().getOperators();
+        Map<String, AbstractFunctionStrategy> functions = new DefaultFunctionProvider().getFunctions();
+        Assertions.assertThat(new DefaultOperatorsProvider().getOperators()).isSameAs(operators);
+        Assertions.assertThatThrownBy(() -> operators.put("%", operators.get("/")))
+                .isInstanceOf(UnsupportedOperationException.class);
+        Assertions.assertThatThrownBy(() -> functions.remove("sin"))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+}
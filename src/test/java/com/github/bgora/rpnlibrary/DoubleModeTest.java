@@ -0,0 +1,70 @@
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.exceptions.RPNException;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+public class DoubleModeTest {
+
+    private final Calculator calc = Calculator.createCalculator(CalculationMode.DOUBLE);
+
+    @Test
+    public void shouldCalculateWithDoubles() throws RPNException {
+        Assertions.assertThat(calc.getCalculationMode()).isEqualTo(CalculationMode.DOUBLE);
+        Assertions.assertThat(calc.calculate("2^3*(12/6)+18/3+5.0/2")).isEqualTo(new BigDecimal("24.50"));
+        Assertions.assertThat(calc.calculate("max(1+1, 3*2) - -1")).isEqualTo(new BigDecimal("7.00"));
+        Assertions.assertThat(calc.calculateDouble("sin(1)+ctg(1)")).isEqualTo(Math.sin(1) + 1.0 / Math.tan(1));
+    }
+
+    @Test
+    public void shouldGiveSameResultsAsBigDecimalMode() throws RPNException {
+        Calculator big = Calculator.createCalculator();
+        for (String input : new String[]{"2+3*4", "(1.5+2.25)/3", "2^10-1", "cos(0.5)*tg(0.25)", "min(3, -2)*12 000",
+                "fib(10)"}) {
+            Assertions.assertThat(calc.calculate(input)).as(input).isEqualTo(big.calculate(input));
+        }
+    }
+
+    @Test
+    public void shouldEvaluateVariables() throws RPNException {
+        CompiledExpression expression = calc.compile("price * qty + 0.5");
+        double[] values = new double[2];
+        values[expression.getVariableIndex("price")] = 12.5;
+        values[expression.getVariableIndex("qty")] = 4;
+        Assertions.assertThat(expression.evaluateDouble(values)).isEqualTo(50.5);
+        Assertions.assertThat(expression.evaluate(values)).isEqualTo(new BigDecimal("50.50"));
+        Assertions.assertThat(expression.evaluate(new BigDecimal("12.5"), BigDecimal.ONE)).isEqualTo(new BigDecimal("13.00"));
+    }
+
+    @Test
+    public void shouldEvaluateDoublesInBigDecimalMode() throws RPNException {
+        Calculator big = Calculator.createCalculator();
+        Assertions.assertThat(big.calculateDouble("1/4+2")).isEqualTo(2.25);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void shouldThrowForInfiniteResult() throws RPNException {
+        calc.calculate("1/0");
+    }
+
+    @Test
+    public void shouldBridgeStringStrategiesToDoubles() throws RPNException {
+        Calculator custom = Calculator.createCalculator(RPNCheckerFactory.createRPNChecker(),
+                new RPNExecutioner() {
+                    @Override
+                    public BigDecimal executeOperator(String operator, MathContext mathContext, String var1, String var2) {
+                        return new BigDecimal(var1).add(new BigDecimal(var2));
+                    }
+
+                    @Override
+                    public BigDecimal executeFunction(String functionName, MathContext mathContext, String... arguments) {
+                        return new BigDecimal(arguments[0]).negate();
+                    }
+                }, MathContext.DECIMAL64, CalculationMode.DOUBLE, 1);
+        Assertions.assertThat(custom.calculate("sin(1.5*2)")).isEqualTo(new BigDecimal("-3.5"));
+        Assertions.assertThat(custom.compile("x*x").evaluateDouble(2.5)).isEqualTo(5.0);
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.exceptions.RPNException;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ExpressionCacheTest {
+
+    @Test
+    public void shouldReturnCachedExpression() throws RPNException {
+        Calculator calc = Calculator.createCalculator(10);
+        CompiledExpression first = calc.compile("2+8");
+        CompiledExpression second = calc.compile("2+8");
+        Assertions.assertThat(second).isSameAs(first);
+        Assertions.assertThat(calc.calculate("2+8")).isEqualTo(new BigDecimal("10.00"));
+
+        CacheStats stats = calc.getCacheStats();
+        Assertions.assertThat(stats.getMissCount()).isEqualTo(1);
+        Assertions.assertThat(stats.getHitCount()).isEqualTo(2);
+        Assertions.assertThat(stats.getSize()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsed() throws RPNException {
+        Calculator calc = Calculator.createCalculator(1);
+        CompiledExpression first = calc.compile("1+1");
+        calc.compile("2+2");
+        Assertions.assertThat(calc.compile("1+1")).isNotSameAs(first);
+        Assertions.assertThat(calc.getCacheStats().getEvictionCount()).isEqualTo(2);
+        Assertions.assertThat(calc.getCacheStats().getSize()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotExceedMaximumSize() throws RPNException {
+        Calculator calc = Calculator.createCalculator(100);
+        for (int i = 0; i < 1000; i++) {
+            calc.compile(i + "+1");
+        }
+        Assertions.assertThat(calc.getCacheStats().getSize()).isLessThanOrEqualTo(100);
+        Assertions.assertThat(calc.getCacheStats().getEvictionCount()).isGreaterThanOrEqualTo(900);
+    }
+
+    @Test
+    public void shouldReturnEmptyStatsWithoutCache() throws RPNException {
+        Calculator calc = Calculator.createCalculator();
+        calc.calculate("2+8");
+        Assertions.assertThat(calc.getCacheStats().getHitCount()).isZero();
+        Assertions.assertThat(calc.getCacheStats().getMissCount()).isZero();
+    }
+
+    @Test
+    public void shouldBeSafeForManyThreads() throws Exception {
+        Calculator calc = Calculator.createCalculator(16);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<BigDecimal>> results = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                int value = i % 32;
+                results.add(executor.submit(() -> calc.calculate(value + "*2")));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                Assertions.assertThat(results.get(i).get()).isEqualTo(BigDecimal.valueOf((i % 32) * 2L).setScale(2));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        CacheStats stats = calc.getCacheStats();
+        Assertions.assertThat(stats.getHitCount() + stats.getMissCount()).isEqualTo(2000);
+        Assertions.assertThat(stats.getSize()).isLessThanOrEqualTo(16);
+    }
+}
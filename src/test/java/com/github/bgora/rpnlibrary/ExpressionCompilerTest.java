@@ -0,0 +1,160 @@
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.exceptions.RPNException;
+import com.github.bgora.rpnlibrary.exceptions.WrongArgumentException;
+import com.github.bgora.rpnlibrary.operators.AbstractOperatorStrategy;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Map;
+
+public class ExpressionCompilerTest {
+
+    private final RPNChecker checker = RPNCheckerFactory.createRPNChecker();
+
+    private String rpn(String input) {
+        return ExpressionCompiler.compile(checker, input).toString();
+    }
+
+    @Test
+    public void shouldReturnRPN() {
+        Assertions.assertThat(rpn("( 2 + 3 ) * 5")).isEqualTo("2 3 + 5 *");
+    }
+
+    @Test
+    public void shouldReturnRPNForFunctionCall() {
+        Assertions.assertThat(rpn("sin ( 1 )")).isEqualTo("1 sin");
+    }
+
+    @Test
+    public void shouldReturnRPNForFunctionAndEquation() {
+        Assertions.assertThat(rpn("sin(1)+27*8")).isEqualTo("1 sin 27 8 * +");
+    }
+
+    @Test
+    public void shouldReturnRPNForTwoFunctionsCall() {
+        Assertions.assertThat(rpn("sin ( 1 ) + ctg ( 0 )")).isEqualTo("1 sin 0 ctg +");
+    }
+
+    @Test
+    public void shouldReturnRPNForRightAssociativePower() {
+        Assertions.assertThat(rpn("2^3^2")).isEqualTo("2 3 2 ^ ^");
+    }
+
+    @Test
+    public void shouldJoinThousands() {
+        Assertions.assertThat(rpn("12 000 + 15")).isEqualTo("12000 15 +");
+    }
+
+    @Test
+    public void shouldSeparateFunctionArguments() {
+        Assertions.assertThat(rpn("max(1+1, 8 000.5)")).isEqualTo("1 1 + 8000.5 max");
+    }
+
+    @Test
+    public void shouldTreatLeadingMinusAsUnary() {
+        Assertions.assertThat(rpn("-2^2")).isEqualTo("0 2 2 ^ -");
+        Assertions.assertThat(rpn("2*-1")).isEqualTo("2 0 1 - *");
+        Assertions.assertThat(rpn("sin(-1)")).isEqualTo("0 1 - sin");
+    }
+
+    @Test
+    public void shouldComputeMaxStack() {
+        RPNProgram program = ExpressionCompiler.compile(checker, "1+(2*(3-4))");
+        Assertions.assertThat(program.maxStack).isEqualTo(4);
+    }
+
+    @Test
+    public void shouldShareConstantsSymbolsAndVariables() {
+        RPNProgram program = ExpressionCompiler.compile(checker, "x+1+y*2+x*1+sin(y)+sin(2.0)");
+        Assertions.assertThat(program.constants).containsExactly(new BigDecimal("1"), new BigDecimal("2"),
+                new BigDecimal("2.0"));
+        Assertions.assertThat(program.symbols).containsExactly("+", "*", "sin");
+        Assertions.assertThat(program.variables).containsExactly("x", "y");
+    }
+
+    @Test(timeout = 5000)
+    public void shouldCompileLongInput() {
+        StringBuilder input = new StringBuilder("x0");
+        for (int i = 1; i < 16_384; i++) {
+            input.append(i % 2 == 0 ? '+' : '*').append(i % 3 == 0 ? "x" + i : String.valueOf(i));
+        }
+        RPNProgram program = ExpressionCompiler.compile(checker, input.toString());
+        Assertions.assertThat(program.variables).hasSize(5462);
+        Assertions.assertThat(program.constants).hasSize(10922);
+    }
+
+    @Test
+    public void shouldCalculateUnaryMinus() throws RPNException {
+        Calculator calc = Calculator.createCalculator();
+        Assertions.assertThat(calc.calculate("-2^2")).isEqualTo(new BigDecimal("-4.00"));
+        Assertions.assertThat(calc.calculate("2*-1")).isEqualTo(new BigDecimal("-2.00"));
+        Assertions.assertThat(calc.calculate("2*(-1)")).isEqualTo(new BigDecimal("-2.00"));
+        Assertions.assertThat(calc.calculate("max(1+1, 3*2)")).isEqualTo(new BigDecimal("6.00"));
+    }
+
+    @Test(expected = WrongArgumentException.class)
+    public void shouldThrowForMissingRightBracket() {
+        rpn("(2+3");
+    }
+
+    @Test(expected = WrongArgumentException.class)
+    public void shouldThrowForMissingLeftBracket() {
+        rpn("2+3)");
+    }
+
+    @Test(expected = WrongArgumentException.class)
+    public void shouldThrowForWrongArgumentsCount() {
+        rpn("max(1)");
+    }
+
+    @Test(expected = WrongArgumentException.class)
+    public void shouldThrowForMissingOperand() {
+        rpn("2+");
+    }
+
+    @Test(expected = WrongArgumentException.class)
+    public void shouldThrowForEmptyInput() {
+        rpn("   ");
+    }
+
+    @Test(expected = WrongArgumentException.class)
+    public void shouldThrowForWrongNumber() {
+        rpn("1.2.3");
+    }
+
+    @Test
+    public void shouldMatchLongestOperator() {
+        RPNChecker custom = RPNCheckerFactory.createRPNCheckerWithDefaults(Map.of("**", 3, ">=", 0), Map.of());
+        Assertions.assertThat(ExpressionCompiler.compile(custom, "2**3*4").toString()).isEqualTo("2 3 ** 4 *");
+        Assertions.assertThat(ExpressionCompiler.compile(custom, "1+1 >= 2").toString()).isEqualTo("1 1 + 2 >=");
+        Assertions.assertThat(custom.matchOperator("2**3", 1)).isEqualTo("**");
+        Assertions.assertThat(custom.matchOperator("2*3", 1)).isEqualTo("*");
+        Assertions.assertThat(custom.matchOperator("2>3", 1)).isNull();
+        Assertions.assertThat(custom.matchFunction("x+max(1,2)", 2, 5)).isEqualTo("max");
+        Assertions.assertThat(custom.matchFunction("maximum", 0, 7)).isNull();
+    }
+
+    @Test
+    public void shouldCalculateWithMultiCharacterOperator() throws RPNException {
+        AbstractOperatorStrategy power = new AbstractOperatorStrategy("**") {
+            @Override
+            public BigDecimal execute(final String first, final String second, final MathContext mathContext) {
+                return new BigDecimal(first).pow(new BigDecimal(second).intValueExact(), mathContext);
+            }
+        };
+        Calculator calc = Calculator.createCalculator(
+                RPNCheckerFactory.createRPNCheckerWithDefaults(Map.of("**", 3), Map.of()),
+                RPNExecutionerFactory.createRPNExecutionerWithDefaults(Map.of("**", power), Map.of()),
+                MathContext.DECIMAL64, 2);
+        Assertions.assertThat(calc.calculate("2**10-2*3")).isEqualTo(new BigDecimal("1018.00"));
+    }
+
+    @Test(expected = WrongArgumentException.class)
+    public void shouldThrowForUnknownOperator() {
+        rpn("2 & 3");
+    }
+
+}
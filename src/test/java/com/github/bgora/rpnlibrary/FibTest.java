@@ -21,11 +21,13 @@ package com.github.bgora.rpnlibrary;
 
 import com.github.bgora.rpnlibrary.exceptions.NoSuchFunctionFound;
 import com.github.bgora.rpnlibrary.exceptions.WrongArgumentException;
+import com.github.bgora.rpnlibrary.functions.FibFunctionStrategy;
 import org.assertj.core.api.Assertions;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.math.BigDecimal;
+import java.math.MathContext;
 
 public class FibTest {
 
@@ -71,4 +73,43 @@ public class FibTest {
         BigDecimal result = calc.calculate("fib(19)");
         Assertions.assertThat(result).isEqualTo(new BigDecimal("4181.00"));
     }
+
+    @Test
+    public void shouldCalculateLargeFibQuickly() throws WrongArgumentException, NoSuchFunctionFound {
+        long start = System.nanoTime();
+        BigDecimal result = calc.calculate("fib(10000)");
+        Assertions.assertThat(System.nanoTime() - start).isLessThan(2_000_000_000L);
+        Assertions.assertThat(result.toBigInteger().toString()).hasSize(2090).startsWith("336447648764317832666216120051");
+        Assertions.assertThat(calc.calculate("fib(90)")).isEqualTo(new BigDecimal("2880067194370816120.00"));
+    }
+
+    @Test
+    public void shouldKeepOnlySmallValues() {
+        FibFunctionStrategy fib = new FibFunctionStrategy();
+        BigDecimal small = BigDecimal.valueOf(FibFunctionStrategy.MAX_MEMOIZED_ARGUMENT);
+        BigDecimal large = BigDecimal.valueOf(FibFunctionStrategy.MAX_MEMOIZED_ARGUMENT + 1);
+        Assertions.assertThat(fib.execute(MathContext.DECIMAL64, small)).isSameAs(fib.execute(MathContext.DECIMAL64, small));
+        Assertions.assertThat(fib.execute(MathContext.DECIMAL64, large)).isNotSameAs(fib.execute(MathContext.DECIMAL64, large))
+                .isEqualTo(fib.execute(MathContext.DECIMAL64, large));
+    }
+
+    @Test
+    public void shouldAcceptIntegerWithScale() throws WrongArgumentException, NoSuchFunctionFound {
+        Assertions.assertThat(calc.calculate("fib(10.00)")).isEqualTo(new BigDecimal("55.00"));
+    }
+
+    @Test(expected = WrongArgumentException.class)
+    public void shouldRejectNegativeArgument() throws WrongArgumentException, NoSuchFunctionFound {
+        calc.calculate("fib(-1)");
+    }
+
+    @Test(expected = WrongArgumentException.class)
+    public void shouldRejectFraction() throws WrongArgumentException, NoSuchFunctionFound {
+        calc.calculate("fib(2.5)");
+    }
+
+    @Test(expected = WrongArgumentException.class)
+    public void shouldRejectTooLargeArgument() throws WrongArgumentException, NoSuchFunctionFound {
+        calc.calculate("fib(1000001)");
+    }
 }
@@ -0,0 +1,113 @@
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.exceptions.RPNException;
+import com.github.bgora.rpnlibrary.functions.AbstractFunctionStrategy;
+import com.github.bgora.rpnlibrary.functions.BinaryFunctionStrategy;
+import com.github.bgora.rpnlibrary.functions.DefaultFunctionProvider;
+import com.github.bgora.rpnlibrary.operators.AbstractOperatorStrategy;
+import com.github.bgora.rpnlibrary.operators.DefaultOperatorsProvider;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class NumericStrategiesTest {
+
+    private static final String[] VALUES = {"0", "1", "-2.5", "3.14159265358979323846264", "12345678901234567890.123",
+            "0.000000000000000000123", "1E+3", "7"};
+
+    @Test
+    public void operatorsShouldReturnSameValueForStringsAndNumbers() {
+        for (AbstractOperatorStrategy operator : new DefaultOperatorsProvider().getOperators().values()) {
+            for (String first : VALUES) {
+                for (String second : VALUES) {
+                    if ("/".equals(operator.getOperator()) && new BigDecimal(second).signum() == 0) {
+                        continue;
+                    }
+                    if ("^".equals(operator.getOperator())
+                            && (new BigDecimal(first).signum() <= 0 || new BigDecimal(second).abs().compareTo(BigDecimal.TEN) > 0)) {
+                        continue;
+                    }
+                    BigDecimal numeric = operator.execute(new BigDecimal(first), new BigDecimal(second), MathContext.DECIMAL64);
+                    BigDecimal text = operator.execute(first, second, MathContext.DECIMAL64);
+                    Assertions.assertThat(numeric).as(first + " " + operator.getOperator() + " " + second).isEqualTo(text);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void functionsShouldReturnSameValueForStringsAndNumbers() {
+        for (Map.Entry<String, AbstractFunctionStrategy> entry : new DefaultFunctionProvider().getFunctions().entrySet()) {
+            if ("fib".equals(entry.getKey())) {
+                continue;
+            }
+            for (String first : VALUES) {
+                if ("ctg".equals(entry.getKey()) && new BigDecimal(first).signum() == 0) {
+                    continue;
+                }
+                BigDecimal numeric = entry.getValue().execute(MathContext.DECIMAL64, new BigDecimal(first), BigDecimal.ONE);
+                BigDecimal text = entry.getValue().execute(MathContext.DECIMAL64, first, "1");
+                Assertions.assertThat(numeric).as(entry.getKey() + "(" + first + ")").isEqualTo(text);
+            }
+        }
+    }
+
+    @Test
+    public void shouldPassPlainStringsToStringStrategies() throws RPNException {
+        List<String> arguments = new ArrayList<>();
+        AbstractOperatorStrategy modulo = new AbstractOperatorStrategy("%") {
+            @Override
+            public BigDecimal execute(final String first, final String second, final MathContext mathContext) {
+                arguments.add(first);
+                arguments.add(second);
+                return new BigDecimal(first).remainder(new BigDecimal(second));
+            }
+        };
+        Calculator calc = Calculator.createCalculator(RPNCheckerFactory.createRPNCheckerWithDefaults(Map.of("%", 1), Map.of()),
+                RPNExecutionerFactory.createRPNExecutionerWithDefaults(Map.of("%", modulo), Map.of()),
+                MathContext.DECIMAL64, 2);
+
+        Assertions.assertThat(calc.calculate("(10^3)%(2.50*3)")).isEqualTo(new BigDecimal("2.50"));
+        Assertions.assertThat(arguments).containsExactly("1000", "7.50");
+    }
+
+    @Test
+    public void builtInsShouldCalculateDoubles() {
+        Map<String, AbstractOperatorStrategy> operators = new DefaultOperatorsProvider().getOperators();
+        Assertions.assertThat(operators.get("+").execute(1.5, 2.0)).isEqualTo(3.5);
+        Assertions.assertThat(operators.get("/").execute(1.0, 4.0)).isEqualTo(0.25);
+        Assertions.assertThat(operators.get("^").execute(2.0, 10.0)).isEqualTo(1024.0);
+
+        Map<String, AbstractFunctionStrategy> functions = new DefaultFunctionProvider().getFunctions();
+        Assertions.assertThat(functions.get("sin").execute(0.5)).isEqualTo(Math.sin(0.5));
+        Assertions.assertThat(functions.get("ctg").execute(0.5)).isEqualTo(1.0 / Math.tan(0.5));
+        Assertions.assertThat(functions.get("max").execute(-1.0, 2.0)).isEqualTo(2.0);
+        Assertions.assertThat(functions.get("fib").execute(10.0)).isEqualTo(55.0);
+    }
+
+    @Test
+    public void shouldCallCustomBinaryFunctionWithoutArray() throws RPNException {
+        List<BigDecimal> arguments = new ArrayList<>();
+        BinaryFunctionStrategy hypot = new BinaryFunctionStrategy("hypot") {
+            @Override
+            public BigDecimal execute(final MathContext mathContext, final BigDecimal first, final BigDecimal second) {
+                arguments.addAll(Arrays.asList(first, second));
+                return first.pow(2).add(second.pow(2)).sqrt(mathContext);
+            }
+        };
+        Calculator calc = Calculator.createCalculator(RPNCheckerFactory.createRPNCheckerWithDefaults(Map.of(), Map.of("hypot", 2)),
+                RPNExecutionerFactory.createRPNExecutionerWithDefaults(Map.of(), Map.of("hypot", hypot)),
+                MathContext.DECIMAL64, 2);
+
+        Assertions.assertThat(calc.calculate("hypot(3, 4)")).isEqualTo(new BigDecimal("5.00"));
+        Assertions.assertThat(hypot.execute(MathContext.DECIMAL64, "6", "8")).isEqualByComparingTo("10");
+        Assertions.assertThat(hypot.execute(6.0, 8.0)).isEqualTo(10.0);
+        Assertions.assertThat(arguments).hasSize(6);
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.exceptions.RPNException;
+import com.github.bgora.rpnlibrary.exceptions.WrongArgumentException;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public class ParallelEvaluatorTest {
+
+    private static final int INPUTS = 20_000;
+
+    private static String[] inputs() {
+        String[] inputs = new String[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            inputs[i] = (i % 97) + "*2+sin(" + (i % 13) + ")";
+        }
+        return inputs;
+    }
+
+    @Test
+    public void shouldReturnResultsInOrderOfInputs() throws RPNException {
+        Calculator calc = Calculator.createCalculator(64);
+        String[] inputs = inputs();
+        ForkJoinPool pool = new ForkJoinPool(8);
+        try {
+            BigDecimal[] results = ParallelEvaluator.create(calc, pool, 100).calculateAll(inputs);
+            for (int i = 0; i < INPUTS; i += 7) {
+                Assertions.assertThat(results[i]).as(inputs[i]).isEqualTo(calc.calculate(inputs[i]));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldUseCustomExecutor() throws RPNException {
+        Calculator calc = Calculator.createCalculator();
+        List<String> inputs = List.of(inputs());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<BigDecimal> results = ParallelEvaluator.create(calc, executor, 333).calculateAll(inputs);
+            Assertions.assertThat(results).hasSize(INPUTS);
+            Assertions.assertThat(results.get(INPUTS - 1)).isEqualTo(calc.calculate(inputs.get(INPUTS - 1)));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldEvaluateColumnsInParallel() throws RPNException {
+        Calculator calc = Calculator.createCalculator();
+        CompiledExpression expression = calc.compile("x*x + max(x, 10)/y");
+        double[] x = new double[INPUTS];
+        long[] y = new long[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            x[i] = i * 0.5;
+            y[i] = i % 9 + 1;
+        }
+        Columns columns = expression.newColumns(INPUTS).set("x", x).set("y", y);
+        double[] sequential = new double[INPUTS];
+        expression.evaluateBatch(columns, sequential);
+        double[] parallel = new double[INPUTS];
+        ParallelEvaluator evaluator = ParallelEvaluator.create(calc, ForkJoinPool.commonPool(), 1500);
+        evaluator.evaluateBatch(expression, columns, parallel);
+        Assertions.assertThat(parallel).containsExactly(sequential);
+
+        BigDecimal[] decimals = new BigDecimal[INPUTS];
+        evaluator.evaluateBatch(expression, columns, decimals);
+        BigDecimal[] expected = new BigDecimal[INPUTS];
+        expression.evaluateBatch(columns, expected);
+        Assertions.assertThat(decimals).containsExactly(expected);
+    }
+
+    @Test
+    public void shouldShareCalculatorBetweenThreads() throws Exception {
+        Calculator calc = Calculator.createCalculator(CalculationMode.DOUBLE);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            String[] inputs = Arrays.copyOf(inputs(), 1000);
+            ParallelEvaluator evaluator = ParallelEvaluator.create(calc, executor, 50);
+            List<Future<BigDecimal[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> ParallelEvaluator.create(calc).calculateAll(inputs)));
+            }
+            BigDecimal[] expected = evaluator.calculateAll(inputs);
+            for (Future<BigDecimal[]> future : futures) {
+                Assertions.assertThat(future.get()).containsExactly(expected);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldReuseStacksForExpressionsOfAnySize() throws RPNException {
+        StringBuilder deep = new StringBuilder("1");
+        for (int i = 0; i < EvaluationStacks.MAX_KEPT_SLOTS + 10; i++) {
+            deep.insert(0, "2+(").append(')');
+        }
+        String[] inputs = {"1+2", deep.toString(), "sin(1)*(2+(3*(4-5)))", "2*3", deep.toString(), "max(1, 2)"};
+        for (Calculator calc : new Calculator[]{Calculator.createCalculator(), Calculator.createCalculator(CalculationMode.DOUBLE)}) {
+            BigDecimal[] results = ParallelEvaluator.create(calc).calculateAll(inputs);
+            for (int i = 0; i < inputs.length; i++) {
+                Assertions.assertThat(results[i]).isEqualTo(calc.calculate(inputs[i]));
+            }
+        }
+    }
+
+    @Test(expected = WrongArgumentException.class)
+    public void shouldThrowExceptionOfWrongInput() throws RPNException {
+        String[] inputs = inputs();
+        inputs[12_345] = "2+";
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ParallelEvaluator.create(Calculator.createCalculator(), executor, 1000).calculateAll(inputs);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowForWrongChunkSize() {
+        ParallelEvaluator.create(Calculator.createCalculator(), ForkJoinPool.commonPool(), 0);
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.bgora.rpnlibrary;
+
+import ch.obermuhlner.math.big.BigDecimalMath;
+import com.github.bgora.rpnlibrary.exceptions.RPNException;
+import com.github.bgora.rpnlibrary.exceptions.WrongArgumentException;
+import com.github.bgora.rpnlibrary.operators.AbstractOperatorStrategy;
+import com.github.bgora.rpnlibrary.operators.DefaultOperatorsProvider;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+public class PowerTest {
+
+    private final AbstractOperatorStrategy power = new DefaultOperatorsProvider().getOperators().get("^");
+
+    @Test
+    public void shouldCalculateIntegerExponents() {
+        String[] bases = {"2", "-3", "1.0001", "0.5", "12345.6789", "-0.007"};
+        int[] exponents = {0, 1, 2, 3, 10, 17, 100, -1, -5, 1000};
+        MathContext[] contexts = {MathContext.DECIMAL32, MathContext.DECIMAL64, MathContext.DECIMAL128,
+                new MathContext(40, RoundingMode.HALF_UP)};
+        for (MathContext mathContext : contexts) {
+            MathContext wide = new MathContext(mathContext.getPrecision() + 20, mathContext.getRoundingMode());
+            for (String base : bases) {
+                for (int exponent : exponents) {
+                    BigDecimal x = new BigDecimal(base);
+                    BigDecimal expected = BigDecimalMath.pow(x, BigDecimal.valueOf(exponent), wide).round(mathContext);
+                    Assertions.assertThat(power.execute(x, BigDecimal.valueOf(exponent), mathContext))
+                            .as(base + "^" + exponent + " " + mathContext)
+                            .isEqualByComparingTo(expected);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldTreatIntegerValuedDecimalsAsIntegers() {
+        Assertions.assertThat(power.execute(new BigDecimal("-2"), new BigDecimal("3.000"), MathContext.DECIMAL64))
+                .isEqualByComparingTo("-8");
+        Assertions.assertThat(power.execute(new BigDecimal("3"), new BigDecimal("2E+1"), MathContext.DECIMAL64))
+                .isEqualByComparingTo("3486784401");
+    }
+
+    @Test
+    public void shouldCalculateExactlyWithUnlimitedPrecision() {
+        Assertions.assertThat(power.execute(new BigDecimal("1.1"), BigDecimal.valueOf(3), MathContext.UNLIMITED))
+                .isEqualTo(new BigDecimal("1.331"));
+    }
+
+    @Test
+    public void shouldCalculateFractionalExponents() throws RPNException {
+        Calculator calc = Calculator.createCalculator();
+        Assertions.assertThat(calc.calculate("16^0.5")).isEqualTo(new BigDecimal("4.00"));
+        Assertions.assertThat(calc.calculate("2^-2")).isEqualTo(new BigDecimal("0.25"));
+    }
+
+    @Test
+    public void shouldAcceptResultAtLimit() {
+        Assertions.assertThat(power.execute(BigDecimal.TEN, BigDecimal.valueOf(1_000_000), MathContext.DECIMAL64))
+                .isEqualByComparingTo("1E+1000000");
+    }
+
+    @Test(timeout = 1000)
+    public void shouldRejectTooLargeResult() {
+        Calculator calc = Calculator.createCalculator();
+        Assertions.assertThatThrownBy(() -> calc.calculate("10^999999999"))
+                .isInstanceOf(WrongArgumentException.class);
+        Assertions.assertThatThrownBy(() -> calc.calculate("2^(10^9)"))
+                .isInstanceOf(WrongArgumentException.class);
+        Assertions.assertThatThrownBy(() -> calc.calculate("1.5^12345678.5"))
+                .isInstanceOf(WrongArgumentException.class);
+    }
+
+    @Test(timeout = 1000)
+    public void shouldRejectTooSmallResult() {
+        Assertions.assertThatThrownBy(() -> power.execute(new BigDecimal("0.1"), BigDecimal.valueOf(2_000_000),
+                MathContext.DECIMAL64)).isInstanceOf(WrongArgumentException.class);
+    }
+
+    @Test
+    public void shouldCalculateLargeExponentOfOne() {
+        Assertions.assertThat(power.execute(BigDecimal.ONE, new BigDecimal("1E+20"), MathContext.DECIMAL64))
+                .isEqualByComparingTo("1");
+    }
+
+    @Test(timeout = 1000)
+    public void shouldCalculateHugeExponentsOfOneAndZero() {
+        Assertions.assertThat(power.execute(BigDecimal.ONE, new BigDecimal("1E+400"), MathContext.DECIMAL64))
+                .isEqualByComparingTo("1");
+        Assertions.assertThat(power.execute(new BigDecimal("1.0"), new BigDecimal("-1E+400"), MathContext.DECIMAL64))
+                .isEqualByComparingTo("1");
+        Assertions.assertThat(power.execute(new BigDecimal("-1"), new BigDecimal("1E+400"), MathContext.DECIMAL64))
+                .isEqualByComparingTo("1");
+        Assertions.assertThat(power.execute(new BigDecimal("-1"), new BigDecimal("99999999999"), MathContext.DECIMAL64))
+                .isEqualByComparingTo("-1");
+        Assertions.assertThat(power.execute(BigDecimal.ZERO, new BigDecimal("1E+400"), MathContext.DECIMAL64))
+                .isEqualByComparingTo("0");
+    }
+
+    @Test(timeout = 1000)
+    public void shouldRejectResultOfExponentTooLargeForDouble() {
+        Assertions.assertThatThrownBy(() -> power.execute(new BigDecimal("1.5"), new BigDecimal("1E+400"),
+                MathContext.DECIMAL64)).isInstanceOf(WrongArgumentException.class);
+    }
+}
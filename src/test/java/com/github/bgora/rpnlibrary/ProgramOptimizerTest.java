@@ -0,0 +1,143 @@
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.exceptions.RPNException;
+import com.github.bgora.rpnlibrary.functions.UnaryFunctionStrategy;
+import com.github.bgora.rpnlibrary.operators.AbstractOperatorStrategy;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ProgramOptimizerTest {
+
+    private final Calculator calc = Calculator.createCalculator();
+
+    private String optimized(String input) {
+        return ProgramOptimizer.optimize(ExpressionCompiler.compile(RPNCheckerFactory.createRPNChecker(), input),
+                RPNExecutionerFactory.createRPNExecutioner(), MathContext.DECIMAL64).toString();
+    }
+
+    @Test
+    public void shouldFoldConstants() {
+        Assertions.assertThat(optimized("x*(2*3.14159/360)")).isEqualTo("x 0.01745327777777778 *");
+        Assertions.assertThat(optimized("max(1,2)+x")).isEqualTo("2 x +");
+        Assertions.assertThat(optimized("sin(x)+27*8")).isEqualTo("x sin 216 +");
+    }
+
+    @Test
+    public void shouldNotOptimizeInputsCalculatedOnce() throws RPNException {
+        Assertions.assertThat(calc.compileOnce("sin(x)+27*8").toString()).isEqualTo("x sin 27 8 * +");
+        Assertions.assertThat(calc.calculate("2^3*(12/6)+18/3+5.0/2"))
+                .isEqualTo(calc.compile("2^3*(12/6)+18/3+5.0/2").evaluate());
+    }
+
+    @Test
+    public void shouldRemoveIdentities() {
+        Assertions.assertThat(optimized("(x*y)*1")).isEqualTo("x y *");
+        Assertions.assertThat(optimized("1*sin(x)/1")).isEqualTo("x sin");
+        Assertions.assertThat(optimized("x-0")).isEqualTo("x");
+        Assertions.assertThat(optimized("(x/y)^(3-2)")).isEqualTo("x y /");
+    }
+
+    @Test
+    public void shouldKeepIdentitiesChangingResult() {
+        Assertions.assertThat(optimized("x*1")).isEqualTo("x 1 *");
+        Assertions.assertThat(optimized("x*y+0")).isEqualTo("x y * 0 +");
+        Assertions.assertThat(optimized("x-(0*-1)")).isEqualTo("x 0 -");
+    }
+
+    @Test
+    public void shouldNotFoldErrors() throws RPNException {
+        Assertions.assertThat(optimized("x+1/0")).isEqualTo("x 1 0 / +");
+        Assertions.assertThatThrownBy(() -> calc.compile("x+1/0").evaluate(BigDecimal.ONE))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    public void shouldReturnSameResultsAsNotOptimized() throws RPNException {
+        String[] inputs = {"x*(2*3.14159/360)", "(x*y)*1", "1*sin(x)/1", "x-0", "(x/y)^(3-2)", "x*1", "max(x, 2^0.5*1)",
+                "ctg(1/3)*x+fib(7)-y"};
+        BigDecimal[][] values = {{new BigDecimal("1.23456789012345678901234"), new BigDecimal("3")},
+                {new BigDecimal("-0.0000001"), new BigDecimal("7E+5")}};
+        RPNExecutioner executioner = RPNExecutionerFactory.createRPNExecutioner();
+        for (String input : inputs) {
+            RPNProgram program = ExpressionCompiler.compile(RPNCheckerFactory.createRPNChecker(), input);
+            CompiledExpression plain = new CompiledExpression(program, new ProgramInterpreter(program, executioner,
+                    MathContext.DECIMAL64, false), executioner, EvaluationBackend.INTERPRETER, MathContext.DECIMAL64,
+                    20, CalculationMode.BIG_DECIMAL);
+            CompiledExpression optimized = Calculator.createCalculator(RPNCheckerFactory.createRPNChecker(), executioner,
+                    MathContext.DECIMAL64, 20).compile(input);
+            for (BigDecimal[] value : values) {
+                BigDecimal[] bound = optimized.getVariables().size() == 2 ? value : new BigDecimal[]{value[0]};
+                Assertions.assertThat(optimized.evaluate(bound)).as(input).isEqualTo(plain.evaluate(bound));
+                double[] doubles = new double[bound.length];
+                for (int i = 0; i < bound.length; i++) {
+                    doubles[i] = bound[i].doubleValue();
+                }
+                Assertions.assertThat(optimized.evaluateDouble(doubles)).as(input).isEqualTo(plain.evaluateDouble(doubles));
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotFoldImpureStrategies() throws RPNException {
+        AbstractOperatorStrategy counter = new AbstractOperatorStrategy("#") {
+            private int calls;
+
+            @Override
+            public BigDecimal execute(final String first, final String second, final MathContext mathContext) {
+                return BigDecimal.valueOf(++calls);
+            }
+        };
+        Calculator custom = Calculator.createCalculator(RPNCheckerFactory.createRPNCheckerWithDefaults(Map.of("#", 1), Map.of()),
+                RPNExecutionerFactory.createRPNExecutionerWithDefaults(Map.of("#", counter), Map.of()),
+                MathContext.DECIMAL64, 0);
+        CompiledExpression expression = custom.compile("(1#1)*1");
+        Assertions.assertThat(expression.toString()).isEqualTo("1 1 # 1 *");
+        Assertions.assertThat(expression.evaluate()).isEqualTo(BigDecimal.ONE);
+        Assertions.assertThat(expression.evaluate()).isEqualTo(BigDecimal.valueOf(2));
+    }
+
+    @Test
+    public void shouldEvaluateCommonSubexpressionsOnce() {
+        Assertions.assertThat(optimized("sin(a)*x + sin(a)*y")).isEqualTo("a sin =$0 x * $0 y * +");
+        Assertions.assertThat(optimized("fib(n)/fib(n)")).isEqualTo("n fib =$0 $0 /");
+        Assertions.assertThat(optimized("(x+1)*(x+1)+sin(x+1)")).isEqualTo("x 1 + =$0 $0 * $0 sin +");
+        Assertions.assertThat(optimized("x*y+y*x")).isEqualTo("x y * y x * +");
+    }
+
+    @Test
+    public void shouldCallSharedPureFunctionOnce() throws RPNException {
+        AtomicInteger calls = new AtomicInteger();
+        UnaryFunctionStrategy square = new UnaryFunctionStrategy("sq") {
+            @Override
+            public BigDecimal execute(final MathContext mathContext, final BigDecimal param) {
+                calls.incrementAndGet();
+                return param.multiply(param, mathContext);
+            }
+
+            @Override
+            public boolean isPure() {
+                return true;
+            }
+        };
+        Calculator custom = Calculator.createCalculator(RPNCheckerFactory.createRPNCheckerWithDefaults(Map.of(), Map.of("sq", 1)),
+                RPNExecutionerFactory.createRPNExecutionerWithDefaults(Map.of(), Map.of("sq", square)),
+                MathContext.DECIMAL64, 2);
+        String input = "sq(x)*a + sq(x)*b - sq(x)";
+        BigDecimal[] values = {new BigDecimal("1.5"), new BigDecimal("2"), new BigDecimal("3")};
+        for (EvaluationBackend backend : EvaluationBackend.values()) {
+            calls.set(0);
+            CompiledExpression expression = custom.compile(input, backend);
+            Assertions.assertThat(expression.evaluate(values)).as(backend.name()).isEqualTo(new BigDecimal("9.00"));
+            Assertions.assertThat(expression.evaluateDouble(1.5, 2, 3)).as(backend.name()).isEqualTo(9.0);
+            // once for each of two evaluations
+            if (backend != EvaluationBackend.METHOD_HANDLES) {
+                Assertions.assertThat(calls.get()).as(backend.name()).isEqualTo(2);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.bgora.rpnlibrary;
+
+import com.github.bgora.rpnlibrary.exceptions.RPNException;
+import com.github.bgora.rpnlibrary.functions.AbstractFunctionStrategy;
+import com.github.bgora.rpnlibrary.operators.AbstractOperatorStrategy;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.HashMap;
+import java.util.Map;
+
+public class RPNRegistryTest {
+
+    @Test
+    public void shouldAssignDenseOpcodes() {
+        RPNRegistry registry = RPNRegistry.defaults();
+        boolean[] used = new boolean[12];
+        for (String operator : new String[]{"+", "-", "*", "/", "^"}) {
+            int opcode = registry.operatorOpcode(operator);
+            Assertions.assertThat(opcode).isBetween(0, 4);
+            used[opcode] = true;
+        }
+        for (String function : new String[]{"sin", "cos", "tg", "ctg", "min", "max", "fib"}) {
+            int opcode = registry.functionOpcode(function);
+            Assertions.assertThat(opcode).isBetween(5, 11);
+            used[opcode] = true;
+        }
+        Assertions.assertThat(used).containsOnly(true);
+        Assertions.assertThat(registry.operatorOpcode("sin")).isEqualTo(-1);
+        Assertions.assertThat(registry.functionOpcode("x")).isEqualTo(-1);
+    }
+
+    @Test
+    public void shouldShareDefaultStrategies() {
+        RPNRegistry registry = RPNRegistry.defaults();
+        Assertions.assertThat(RPNRegistry.defaults()).isSameAs(registry);
+        Assertions.assertThat(registry.extend(Map.of(), Map.of(), Map.of(), Map.of())).isSameAs(registry);
+        Assertions.assertThat(registry.arity(registry.functionOpcode("max"))).isEqualTo(2);
+        Assertions.assertThat(registry.associativity(registry.operatorOpcode("^"))).isEqualTo(RPNRegistry.RIGHT);
+        Assertions.assertThat(registry.operator("+")).isNotNull();
+        Assertions.assertThat(registry.function("fib")).isNotNull();
+    }
+
+    @Test
+    public void shouldNotSeeChangesOfSourceMaps() throws RPNException {
+        Map<String, Integer> operators = new HashMap<>(Map.of("+", 1));
+        RPNChecker checker = RPNCheckerFactory.createNewRPNChecker(operators, Map.of());
+        operators.put("*", 2);
+        Assertions.assertThat(checker.isOperator("+")).isTrue();
+        Assertions.assertThat(checker.isOperator("*")).isFalse();
+    }
+
+    @Test
+    public void shouldReplaceDefaultStrategy() throws RPNException {
+        AbstractOperatorStrategy truncatingDivide = new AbstractOperatorStrategy("/") {
+            @Override
+            public BigDecimal execute(final String first, final String second, final MathContext mathContext) {
+                return new BigDecimal(first).divideToIntegralValue(new BigDecimal(second));
+            }
+        };
+        Map<String, AbstractFunctionStrategy> functions = Map.of();
+        Calculator calc = Calculator.createCalculator(RPNCheckerFactory.createRPNChecker(),
+                RPNExecutionerFactory.createRPNExecutionerWithDefaults(Map.of("/", truncatingDivide), functions),
+                MathContext.DECIMAL64, 2);
+        Assertions.assertThat(calc.calculate("7/2")).isEqualTo(new BigDecimal("3.00"));
+        Assertions.assertThat(calc.calculate("sin(0)+1")).isEqualTo(new BigDecimal("1.00"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.bgora.rpnlibrary;
+
+import ch.obermuhlner.math.big.BigDecimalMath;
+import com.github.bgora.rpnlibrary.functions.AbstractFunctionStrategy;
+import com.github.bgora.rpnlibrary.functions.DefaultFunctionProvider;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+public class TrigonometricFunctionsTest {
+
+    private static final String[] VALUES = {"0.5", "-1", "1.5707963", "2", "3.14159", "-3.2", "4.71238898", "6.2831853",
+            "7", "-12.34567890123456789", "100", "12345.678", "999999", "0.000000001", "1E-30", "1.65091"};
+
+    private static final MathContext[] CONTEXTS = {MathContext.DECIMAL32, MathContext.DECIMAL64, MathContext.DECIMAL128,
+            new MathContext(50, RoundingMode.HALF_UP), new MathContext(7, RoundingMode.HALF_DOWN)};
+
+    private final Map<String, AbstractFunctionStrategy> functions = new DefaultFunctionProvider().getFunctions();
+
+    /**
+     * Reference value, calculated by big-math with 20 more digits, and rounded.
+     */
+    private void assertFunction(String name, BiFunction<BigDecimal, MathContext, BigDecimal> reference) {
+        for (MathContext mathContext : CONTEXTS) {
+            MathContext wide = new MathContext(mathContext.getPrecision() + 20, mathContext.getRoundingMode());
+            for (String value : VALUES) {
+                BigDecimal x = new BigDecimal(value);
+                BigDecimal expected = reference.apply(x, wide).round(mathContext);
+                Assertions.assertThat(functions.get(name).execute(mathContext, x))
+                        .as(name + "(" + value + ") " + mathContext)
+                        .isEqualByComparingTo(expected);
+            }
+        }
+    }
+
+    @Test
+    public void shouldCalculateSin() {
+        assertFunction("sin", BigDecimalMath::sin);
+    }
+
+    @Test
+    public void shouldCalculateCos() {
+        assertFunction("cos", BigDecimalMath::cos);
+    }
+
+    @Test
+    public void shouldCalculateTan() {
+        assertFunction("tg", BigDecimalMath::tan);
+    }
+
+    @Test
+    public void shouldCalculateCtg() {
+        assertFunction("ctg", BigDecimalMath::cot);
+    }
+
+    @Test
+    public void shouldPassLargeArgumentsToBigMath() {
+        BigDecimal x = new BigDecimal("1E+20");
+        Assertions.assertThat(functions.get("sin").execute(MathContext.DECIMAL64, x))
+                .isEqualTo(BigDecimalMath.sin(x, MathContext.DECIMAL64));
+    }
+
+    @Test
+    public void shouldPassDirectedRoundingToBigMath() {
+        MathContext mathContext = new MathContext(7, RoundingMode.DOWN);
+        for (String value : VALUES) {
+            BigDecimal x = new BigDecimal(value);
+            Assertions.assertThat(functions.get("sin").execute(mathContext, x)).isEqualTo(BigDecimalMath.sin(x, mathContext));
+            Assertions.assertThat(functions.get("tg").execute(mathContext, x)).isEqualTo(BigDecimalMath.tan(x, mathContext));
+        }
+    }
+}
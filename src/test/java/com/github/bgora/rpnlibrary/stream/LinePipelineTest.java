@@ -0,0 +1,82 @@
+package com.github.bgora.rpnlibrary.stream;
+
+import com.github.bgora.rpnlibrary.Calculator;
+import com.github.bgora.rpnlibrary.exceptions.RPNException;
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class LinePipelineTest {
+
+    private static final int LINES = 5000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Calculator calc = Calculator.createCalculator(256);
+
+    @Test
+    public void shouldWriteResultsInOrderOfLines() throws IOException, RPNException {
+        List<String> input = new ArrayList<>();
+        for (int i = 0; i < LINES; i++) {
+            input.add(i % 500 == 0 ? "2+" : (i % 100) + "*3-sin(" + (i % 7) + ")");
+        }
+        Path source = folder.newFile().toPath();
+        Files.write(source, input);
+        Path target = folder.newFile().toPath();
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            long lines = LinePipeline.create(calc, executor, 64, 4).run(source, target);
+            Assertions.assertThat(lines).isEqualTo(LINES);
+        } finally {
+            executor.shutdown();
+        }
+        List<String> output = Files.readAllLines(target);
+        Assertions.assertThat(output).hasSize(LINES);
+        for (int i = 1; i < LINES; i++) {
+            if (i % 500 == 0) {
+                Assertions.assertThat(output.get(i)).startsWith(LinePipeline.ERROR_PREFIX);
+            } else {
+                Assertions.assertThat(output.get(i)).as(input.get(i)).isEqualTo(calc.calculate(input.get(i)).toPlainString());
+            }
+        }
+    }
+
+    @Test
+    public void shouldReportErrorsInline() throws IOException {
+        StringWriter output = new StringWriter();
+        long lines = LinePipeline.create(calc).run(new BufferedReader(new StringReader("1+1\n\nfoo(2)\n1/0\n(2\n10/4")), output);
+        Assertions.assertThat(lines).isEqualTo(6);
+        String[] results = output.toString().split("\n", -1);
+        Assertions.assertThat(results[0]).isEqualTo("2.00");
+        Assertions.assertThat(results[1]).isEmpty();
+        Assertions.assertThat(results[2]).startsWith(LinePipeline.ERROR_PREFIX);
+        Assertions.assertThat(results[3]).startsWith(LinePipeline.ERROR_PREFIX);
+        Assertions.assertThat(results[4]).startsWith(LinePipeline.ERROR_PREFIX);
+        Assertions.assertThat(results[5]).isEqualTo("2.50");
+    }
+
+    @Test
+    public void shouldHandleEmptyInput() throws IOException {
+        StringWriter output = new StringWriter();
+        Assertions.assertThat(LinePipeline.create(calc).run(new BufferedReader(new StringReader("")), output)).isZero();
+        Assertions.assertThat(output.toString()).isEmpty();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowForWrongChunkLines() {
+        LinePipeline.create(calc, Runnable::run, 0, 1);
+    }
+}
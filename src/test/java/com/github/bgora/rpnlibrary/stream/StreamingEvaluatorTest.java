@@ -0,0 +1,140 @@
+package com.github.bgora.rpnlibrary.stream;
+
+import com.github.bgora.rpnlibrary.CalculationMode;
+import com.github.bgora.rpnlibrary.Calculator;
+import com.github.bgora.rpnlibrary.CompiledExpression;
+import com.github.bgora.rpnlibrary.RPNCheckerFactory;
+import com.github.bgora.rpnlibrary.RPNExecutionerFactory;
+import com.github.bgora.rpnlibrary.exceptions.RPNException;
+import com.github.bgora.rpnlibrary.exceptions.WrongArgumentException;
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.math.MathContext;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class StreamingEvaluatorTest {
+
+    private static final int RECORDS = 10_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Calculator calc = Calculator.createCalculator();
+
+    private Path write(String content) throws IOException {
+        Path path = folder.newFile().toPath();
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+
+    private static double x(int i) {
+        return i * 0.37 - 12.5;
+    }
+
+    private static double y(int i) {
+        return (i % 17) + 1;
+    }
+
+    private void assertResults(CompiledExpression expression, Path output) throws IOException, RPNException {
+        List<String> lines = Files.readAllLines(output);
+        Assertions.assertThat(lines).hasSize(RECORDS);
+        for (int i = 0; i < RECORDS; i += 13) {
+            double[] values = new double[2];
+            values[expression.getVariableIndex("x")] = x(i);
+            values[expression.getVariableIndex("y")] = y(i);
+            Assertions.assertThat(lines.get(i)).as("line " + i).isEqualTo(expression.evaluate(values).toPlainString());
+        }
+    }
+
+    @Test
+    public void shouldEvaluateCsv() throws IOException, RPNException {
+        StringBuilder content = new StringBuilder("id, y ,name,x\r\n");
+        for (int i = 0; i < RECORDS; i++) {
+            content.append(i).append(',').append(y(i)).append(",row ").append(i).append(',').append(x(i)).append("\r\n");
+        }
+        CompiledExpression expression = calc.compile("x*y + max(x, 0)/y");
+        Path output = folder.newFile().toPath();
+        Assertions.assertThat(StreamingEvaluator.csv(expression).evaluate(write(content.toString()), output)).isEqualTo(RECORDS);
+        assertResults(expression, output);
+    }
+
+    @Test
+    public void shouldEvaluateNdjsonAcrossWindows() throws IOException, RPNException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < RECORDS; i++) {
+            content.append("{\"name\": \"a, \\\"b\\\"\", \"x\": ").append(x(i)).append(", \"tags\": [1, {\"y\": 2}], \"y\":")
+                    .append(y(i)).append(", \"ok\": true}\n");
+            if (i % 1000 == 0) {
+                content.append('\n');
+            }
+        }
+        CompiledExpression expression = calc.compile("y - x/3");
+        Path output = folder.newFile().toPath();
+        long records = new StreamingEvaluator(expression, false, 4096).evaluate(write(content.toString()), output);
+        Assertions.assertThat(records).isEqualTo(RECORDS);
+        assertResults(expression, output);
+    }
+
+    @Test
+    public void shouldUseModeAndScaleOfCalculator() throws IOException, RPNException {
+        Path input = write("x,y\n0.1,0.2\n1,3\n");
+        Path output = folder.newFile().toPath();
+        StreamingEvaluator.csv(calc.compile("x+y/3")).evaluate(input, output);
+        Assertions.assertThat(Files.readAllLines(output)).containsExactly(calc.calculate("0.1+0.2/3").toPlainString(),
+                calc.calculate("1+3/3").toPlainString());
+
+        Calculator precise = Calculator.createCalculator(RPNCheckerFactory.createRPNChecker(),
+                RPNExecutionerFactory.createRPNExecutioner(), new MathContext(30), 20);
+        StreamingEvaluator.csv(precise.compile("x+y/3")).evaluate(input, output);
+        Assertions.assertThat(Files.readAllLines(output)).containsExactly(precise.calculate("0.1+0.2/3").toPlainString(),
+                precise.calculate("1+3/3").toPlainString());
+
+        Calculator doubles = Calculator.createCalculator(CalculationMode.DOUBLE);
+        StreamingEvaluator.csv(doubles.compile("x+y/3")).evaluate(input, output);
+        Assertions.assertThat(Files.readAllLines(output)).containsExactly(doubles.calculate("0.1+0.2/3").toPlainString(),
+                doubles.calculate("1+3/3").toPlainString());
+    }
+
+    @Test
+    public void shouldParseNumbersLikeDoubleParse() throws WrongArgumentException {
+        String[] numbers = {"0", "-0", "1", "-2.5", "3.141592653589793", "0.1", "1e22", "1e23", "1.7976931348623157e308",
+                "4.9e-324", "123456789012345678901234567890", "0.000001234", "+7", "2.", ".5", " 12.25 ", "1E-5"};
+        for (String number : numbers) {
+            ByteBuffer buffer = ByteBuffer.wrap(number.getBytes(StandardCharsets.US_ASCII));
+            Assertions.assertThat(NumberParser.parse(buffer, 0, number.length())).as(number)
+                    .isEqualTo(Double.parseDouble(number.trim()));
+        }
+    }
+
+    @Test
+    public void shouldReportLineOfWrongValue() throws IOException, RPNException {
+        Path input = write("x,y\n1,2\n3,abc\n");
+        StreamingEvaluator evaluator = StreamingEvaluator.csv(calc.compile("x+y"));
+        Assertions.assertThatThrownBy(() -> evaluator.evaluate(input, folder.newFile().toPath()))
+                .isInstanceOf(WrongArgumentException.class)
+                .hasMessageContaining("Line 3")
+                .hasMessageContaining("abc");
+    }
+
+    @Test
+    public void shouldReportMissingVariable() throws IOException, RPNException {
+        Path input = write("{\"x\": 1}\n");
+        StreamingEvaluator evaluator = StreamingEvaluator.ndjson(calc.compile("x+y"));
+        Assertions.assertThatThrownBy(() -> evaluator.evaluate(input, folder.newFile().toPath()))
+                .isInstanceOf(WrongArgumentException.class)
+                .hasMessageContaining("\"y\" is missing");
+    }
+
+    @Test(expected = WrongArgumentException.class)
+    public void shouldThrowForLineLongerThanWindow() throws IOException, RPNException {
+        new StreamingEvaluator(calc.compile("x+1"), true, 8).evaluate(write("x\n123456789012\n"), folder.newFile().toPath());
+    }
+}